@@ -0,0 +1,17 @@
+-- Seeds the meals table for the menu range-query benchmark (meal-menu-benchmark.js).
+-- Run with psql, e.g. for 10M rows over 5000 restaurants:
+--   psql -v rows=10000000 -v restaurants=5000 -f seed-meals.sql
+
+INSERT INTO restaurants (name, description)
+SELECT 'Benchmark Restaurant ' || r, 'Generated for benchmarking'
+FROM generate_series(1, :restaurants) AS r;
+
+-- Spread meals across a rolling year of menus, starting a few months in the past
+INSERT INTO meals (name, description, restaurant_id, available_date)
+SELECT 'Benchmark Meal ' || m,
+       'Generated for benchmarking',
+       (SELECT min(id) FROM restaurants) + (m % :restaurants),
+       CURRENT_DATE - 90 + ((m / :restaurants) % 365)::int
+FROM generate_series(1, :rows) AS m;
+
+ANALYZE meals;
@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react';
 import { useParams, Link } from 'react-router-dom';
-import { getRestaurantById, getActiveReservations, findReservationByCode, markReservationAsUsed } from '../services/api';
+import { getRestaurantById, getAllActiveReservations, findReservationByCode, markReservationAsUsed, subscribeToReservationChanges } from '../services/api';
 
 export default function StaffRestaurantDetail() {
   const { id } = useParams();
@@ -46,8 +46,8 @@ export default function StaffRestaurantDetail() {
 
         // Fetch active reservations
         try {
-          const reservationsResponse = await getActiveReservations(id);
-          const normalizedReservations = reservationsResponse.data.map(normalizeReservationData);
+          const activeReservations = await getAllActiveReservations(id);
+          const normalizedReservations = activeReservations.map(normalizeReservationData);
           console.log("Normalized reservations:", normalizedReservations);
           setReservations(normalizedReservations);
         } catch (err) {
@@ -67,6 +67,40 @@ export default function StaffRestaurantDetail() {
     fetchData();
   }, [id]);
 
+  // Apply reservation changes pushed by the server instead of polling the active list
+  useEffect(() => {
+    const events = subscribeToReservationChanges(id);
+    const codesOf = (event) => JSON.parse(event.data).map(reservation => reservation.token);
+
+    events.addEventListener('created', (event) => {
+      const created = JSON.parse(event.data).map(normalizeReservationData);
+      setReservations(prevReservations => [
+        ...prevReservations,
+        ...created.filter(res => !prevReservations.some(prev => prev.reservationCode === res.reservationCode))
+      ]);
+    });
+    events.addEventListener('used', (event) => {
+      const codes = codesOf(event);
+      setReservations(prevReservations => 
+        prevReservations.map(res => codes.includes(res.reservationCode) ? { ...res, status: "USED" } : res)
+      );
+    });
+    events.addEventListener('cancelled', (event) => {
+      const codes = codesOf(event);
+      setReservations(prevReservations => prevReservations.filter(res => !codes.includes(res.reservationCode)));
+    });
+    events.addEventListener('reset', async () => {
+      try {
+        const activeReservations = await getAllActiveReservations(id);
+        setReservations(activeReservations.map(normalizeReservationData));
+      } catch (err) {
+        console.error("Error reloading reservations:", err);
+      }
+    });
+
+    return () => events.close();
+  }, [id]);
+
   const handleSearch = async () => {
     if (!searchCode.trim()) return;
     
@@ -32,8 +32,24 @@ export const cancelReservation = (token) =>
   api.delete(`/api/v1/reservations/${token}`);
 
 // Staff-related API calls
-export const getActiveReservations = (restaurantId) => 
-  api.get(`/api/v1/restaurants/${restaurantId}/reservations/active`);
+// Returns one page; the next page's cursor is in the x-next-cursor response header
+export const getActiveReservations = (restaurantId, { limit, after } = {}) => 
+  api.get(`/api/v1/restaurants/${restaurantId}/reservations/active`, { params: { limit, after } });
+// Follows the x-next-cursor header page by page until the last page; resolves to all active reservations
+export const getAllActiveReservations = async (restaurantId, { limit } = {}) => {
+  const reservations = [];
+  let after;
+  do {
+    const response = await getActiveReservations(restaurantId, { limit, after });
+    reservations.push(...response.data);
+    after = response.headers['x-next-cursor'];
+  } while (after);
+  return reservations;
+};
+// Server-Sent Events: created, used and cancelled events each carry a JSON array of reservations;
+// reset means changes were missed and the active list must be reloaded. EventSource resumes on its own.
+export const subscribeToReservationChanges = (restaurantId) =>
+  new EventSource(`${API_URL}/api/v1/restaurants/${restaurantId}/reservations/events`);
 export const findReservationByCode = (code) => {
   // Normalize code to uppercase for consistency
   const normalizedCode = code.toUpperCase();
@@ -0,0 +1,44 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+import { randomIntBetween } from 'https://jslib.k6.io/k6-utils/1.2.0/index.js';
+
+// Menu lookup latency, tagged with the size of the meals table it ran against.
+// Seed the database with config/benchmark/seed-meals.sql (10k, 100k, 1M, 10M rows)
+// and run once per size, e.g.:
+//   k6 run -e MEAL_ROWS=10000000 -e RESTAURANTS=5000 meal-menu-benchmark.js
+const menuDuration = new Trend('menu_lookup_duration', true);
+
+export const options = {
+  scenarios: {
+    menu: {
+      executor: 'constant-arrival-rate',
+      rate: 200,
+      timeUnit: '1s',
+      duration: '60s',
+      preAllocatedVUs: 50,
+    },
+  },
+  thresholds: {
+    // Should hold regardless of table size now that the lookup is an index range scan
+    'menu_lookup_duration': ['p(95)<50'],
+  },
+};
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const RESTAURANTS = parseInt(__ENV.RESTAURANTS || '3');
+const MEAL_ROWS = __ENV.MEAL_ROWS || 'unknown';
+
+export default function() {
+  const restaurantId = randomIntBetween(1, RESTAURANTS);
+  const response = http.get(`${BASE_URL}/api/v1/meals?restaurantId=${restaurantId}&days=7`, {
+    headers: { 'Accept': 'application/json' },
+    tags: { meal_rows: MEAL_ROWS },
+  });
+
+  menuDuration.add(response.timings.duration, { meal_rows: MEAL_ROWS });
+
+  check(response, {
+    'meals status is 200': (r) => r.status === 200,
+  });
+}
@@ -0,0 +1,58 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+import { randomIntBetween } from 'https://jslib.k6.io/k6-utils/1.2.0/index.js';
+
+// Payload size and server time of a 30-day menu: today's per-meal format (GET /api/v1/meals)
+// against the normalized menu (GET /api/v1/meals/menu) as JSON, CBOR and Smile.
+//   k6 run meal-payload-benchmark.js
+// Start the server with -Dmeal.web.response-cache.enabled=false to include the rendering cost of
+// the per-meal format, which is otherwise served from pre-rendered bytes.
+// Sizes are of the decoded body; run with -e GZIP=true to compare compressed transfers instead
+// (data_received per format tag).
+const FORMATS = {
+  'per-meal': { path: '/api/v1/meals', accept: 'application/json' },
+  'menu-json': { path: '/api/v1/meals/menu', accept: 'application/json' },
+  'menu-cbor': { path: '/api/v1/meals/menu', accept: 'application/cbor' },
+  'menu-smile': { path: '/api/v1/meals/menu', accept: 'application/x-jackson-smile' },
+};
+
+const durations = {};
+const sizes = {};
+for (const format of Object.keys(FORMATS)) {
+  const metric = format.replace(/-/g, '_');
+  durations[format] = new Trend(`${metric}_duration`, true);
+  sizes[format] = new Trend(`${metric}_bytes`);
+}
+
+export const options = {
+  scenarios: {
+    formats: {
+      executor: 'constant-vus',
+      vus: 20,
+      duration: '60s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(95)', 'p(99)', 'max'],
+};
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const RESTAURANTS = parseInt(__ENV.RESTAURANTS || '3');
+const DAYS = parseInt(__ENV.DAYS || '30');
+const ACCEPT_ENCODING = __ENV.GZIP === 'true' ? 'gzip' : 'identity';
+
+export default function() {
+  const restaurantId = randomIntBetween(1, RESTAURANTS);
+
+  for (const [format, { path, accept }] of Object.entries(FORMATS)) {
+    const response = http.get(`${BASE_URL}${path}?restaurantId=${restaurantId}&days=${DAYS}`, {
+      headers: { 'Accept': accept, 'Accept-Encoding': ACCEPT_ENCODING },
+      responseType: 'binary',
+      tags: { format: format },
+    });
+
+    check(response, { [`${format} status is 200`]: (r) => r.status === 200 });
+    durations[format].add(response.timings.duration);
+    sizes[format].add(response.body ? response.body.byteLength : 0);
+  }
+}
@@ -0,0 +1,33 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+
+/**
+ * Indexes backing the active-reservations-per-restaurant query.
+ * Written in Java because partial indexes are PostgreSQL-only and the
+ * same migrations also run against the embedded H2 database.
+ */
+public class V3__Add_Active_Reservation_Indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String databaseProduct = context.getConnection().getMetaData().getDatabaseProductName();
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            // Foreign key lookups (joins from meals, cascades on meal deletion)
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_reservation_meal ON reservations (meal_id)");
+
+            if ("PostgreSQL".equalsIgnoreCase(databaseProduct)) {
+                // Only unused reservations are indexed, so the index stays small as check-ins pile up
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_reservation_active_meal "
+                        + "ON reservations (meal_id, created_at, id) WHERE used = FALSE");
+            } else {
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_reservation_active_meal "
+                        + "ON reservations (used, meal_id, created_at, id)");
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+
+/**
+ * Index backing keyset pagination of active reservations on (created_at, id).
+ * Partial on PostgreSQL, plain composite elsewhere (see V3).
+ */
+public class V4__Add_Active_Reservation_Keyset_Index extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String databaseProduct = context.getConnection().getMetaData().getDatabaseProductName();
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            if ("PostgreSQL".equalsIgnoreCase(databaseProduct)) {
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_reservation_active_created "
+                        + "ON reservations (created_at, id) WHERE used = FALSE");
+            } else {
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_reservation_active_created "
+                        + "ON reservations (used, created_at, id)");
+            }
+        }
+    }
+}
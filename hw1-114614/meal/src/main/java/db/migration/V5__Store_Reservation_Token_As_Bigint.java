@@ -0,0 +1,50 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Moves reservations.token from VARCHAR(10) to BIGINT and adds the sequence the
+ * token allocator reserves blocks from.
+ *
+ * Existing tokens are 8 hex characters; they are kept valid by storing their value
+ * with bit 40 set, which is outside the range of newly allocated tokens.
+ */
+public class V5__Store_Reservation_Token_As_Bigint extends BaseJavaMigration {
+    private static final long LEGACY_FLAG = 1L << 40;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS reservation_token_block_seq START WITH 1 INCREMENT BY 1");
+            statement.execute("ALTER TABLE reservations ADD COLUMN token_value BIGINT");
+        }
+
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, token FROM reservations");
+             PreparedStatement update = connection.prepareStatement("UPDATE reservations SET token_value = ? WHERE id = ?")) {
+            while (rows.next()) {
+                update.setLong(1, LEGACY_FLAG | Long.parseLong(rows.getString("token"), 16));
+                update.setLong(2, rows.getLong("id"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS idx_reservation_token");
+            statement.execute("ALTER TABLE reservations DROP COLUMN token");
+            statement.execute("ALTER TABLE reservations RENAME COLUMN token_value TO token");
+            statement.execute("ALTER TABLE reservations ALTER COLUMN token SET NOT NULL");
+            // The unique constraint's index serves findByToken
+            statement.execute("ALTER TABLE reservations ADD CONSTRAINT uk_reservation_token UNIQUE (token)");
+        }
+    }
+}
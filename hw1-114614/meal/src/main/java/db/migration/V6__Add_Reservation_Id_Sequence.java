@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Pooled sequence for reservation ids (allocationSize 50 in the Reservation mapping).
+ * The pooled optimizer hands out the 50 ids ending at each sequence value, so the
+ * sequence starts 50 past the current maximum id.
+ */
+public class V6__Add_Reservation_Id_Sequence extends BaseJavaMigration {
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM reservations")) {
+                result.next();
+                maxId = result.getLong(1);
+            }
+
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS reservation_seq START WITH " + (maxId + ALLOCATION_SIZE)
+                    + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package pt.ua.deti.tqs.meal;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MealApplication {
 
     public static void main(String[] args) {
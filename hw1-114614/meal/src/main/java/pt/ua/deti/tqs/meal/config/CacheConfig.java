@@ -1,29 +1,70 @@
 package pt.ua.deti.tqs.meal.config;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import pt.ua.deti.tqs.meal.service.InJvmInvalidationTransport;
+import pt.ua.deti.tqs.meal.service.InvalidationTransport;
+import pt.ua.deti.tqs.meal.service.PostgresInvalidationTransport;
+import pt.ua.deti.tqs.meal.service.WeatherService;
 
-import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.LocalDate;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
     @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(60, TimeUnit.MINUTES)
-                .recordStats();
+    public CacheManager cacheManager(CacheProperties cacheProperties, ObjectProvider<CacheReloader> reloaders,
+                                     ObjectProvider<CacheExpiry> expiries) {
+        return new PolicyCacheManager(cacheProperties, reloaders, expiries);
     }
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-        caffeineCacheManager.setCaffeine(caffeine);
-        return caffeineCacheManager;
+    public ForecastExpiry forecastExpiry() {
+        return new ForecastExpiry(Clock.systemDefaultZone());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Cross-node invalidation over PostgreSQL LISTEN/NOTIFY, for replicas sharing one database
+     */
+    @Bean
+    @ConditionalOnProperty(name = "meal.cache.invalidation.transport", havingValue = "postgres")
+    public InvalidationTransport postgresInvalidationTransport(DataSource dataSource) {
+        return new PostgresInvalidationTransport(dataSource);
+    }
+
+    /**
+     * Single node (and tests): invalidations only reach this JVM
+     */
+    @Bean
+    @ConditionalOnMissingBean(InvalidationTransport.class)
+    public InvalidationTransport inJvmInvalidationTransport() {
+        return new InJvmInvalidationTransport();
+    }
+
+    @Bean
+    public CacheReloader weatherDataReloader(@Lazy WeatherService weatherService) {
+        return new CacheReloader() {
+            @Override
+            public String cacheName() {
+                return WeatherService.WEATHER_CACHE;
+            }
+
+            @Override
+            public Object reload(Object key) {
+                LocalDate date = (LocalDate) key;
+                return weatherService.fetchForecasts(date, date).join().get(date);
+            }
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package pt.ua.deti.tqs.meal.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Per-entry expiry for one cache, used instead of the fixed expire-after-write/access of its policy.
+ */
+public interface CacheExpiry extends Expiry<Object, Object> {
+
+    /**
+     * @return Name of the cache this expiry applies to
+     */
+    String cacheName();
+}
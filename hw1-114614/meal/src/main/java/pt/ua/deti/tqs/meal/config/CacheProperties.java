@@ -0,0 +1,99 @@
+package pt.ua.deti.tqs.meal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache Caffeine policies, e.g.
+ * <pre>
+ * meal.cache.defaults.maximum-size=10000
+ * meal.cache.specs[weatherData].expire-after-write=6h
+ * meal.cache.specs[weatherData].refresh-after-write=1h
+ * </pre>
+ * Caches without a spec use the defaults.
+ */
+@ConfigurationProperties(prefix = "meal.cache")
+public class CacheProperties {
+
+    private Policy defaults = new Policy();
+
+    private Map<String, Policy> specs = new LinkedHashMap<>();
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Policy> specs) {
+        this.specs = specs;
+    }
+
+    /**
+     * @param cacheName The cache name
+     * @return The cache's own policy, or the defaults
+     */
+    public Policy policyFor(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    public static class Policy {
+        // Bound by entry count...
+        private Long maximumSize;
+        // ...or by total weight (see PolicyCacheManager for the weigher); not both
+        private Long maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        // Needs a CacheReloader for the cache, entries are reloaded asynchronously
+        private Duration refreshAfterWrite;
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(Long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
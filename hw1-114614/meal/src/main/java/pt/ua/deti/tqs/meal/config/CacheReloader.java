@@ -0,0 +1,19 @@
+package pt.ua.deti.tqs.meal.config;
+
+/**
+ * Recomputes a cache entry in the background for caches with a refresh-after-write policy.
+ * Must bypass the cache itself (call the underlying source, not the @Cacheable method).
+ */
+public interface CacheReloader {
+
+    /**
+     * @return Name of the cache this reloader serves
+     */
+    String cacheName();
+
+    /**
+     * @param key The cache key
+     * @return The fresh value, or null to keep serving the current one until it expires
+     */
+    Object reload(Object key);
+}
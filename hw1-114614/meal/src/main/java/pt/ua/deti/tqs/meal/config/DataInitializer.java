@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import pt.ua.deti.tqs.meal.domain.Meal;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
@@ -13,6 +14,7 @@ import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
 import java.time.LocalDate;
 
 @Component
+@Order(1)
 public class DataInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
     
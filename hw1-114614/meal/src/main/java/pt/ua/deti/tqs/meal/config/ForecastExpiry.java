@@ -0,0 +1,70 @@
+package pt.ua.deti.tqs.meal.config;
+
+import pt.ua.deti.tqs.meal.service.WeatherService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Expires weather forecasts by how far their date is from today: past forecasts never
+ * change, today's change hourly, and forecasts further out change a few times a day.
+ */
+public class ForecastExpiry implements CacheExpiry {
+
+    static final Duration PAST = Duration.ofDays(1);
+    static final Duration TODAY = Duration.ofHours(1);
+    static final Duration THIS_WEEK = Duration.ofHours(3);
+    static final Duration LATER = Duration.ofHours(6);
+
+    private final Clock clock;
+
+    public ForecastExpiry(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String cacheName() {
+        return WeatherService.WEATHER_CACHE;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return timeToLive(key).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        // Recomputed on every write, as the date may have moved closer since the last one
+        return timeToLive(key).toNanos();
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    /**
+     * Time to live of a forecast written now
+     * @param key The forecast date
+     * @return How long the forecast stays cached
+     */
+    public Duration timeToLive(Object key) {
+        if (!(key instanceof LocalDate date)) {
+            return TODAY;
+        }
+        
+        long daysAhead = ChronoUnit.DAYS.between(LocalDate.now(clock), date);
+        if (daysAhead < 0) {
+            return PAST;
+        }
+        if (daysAhead == 0) {
+            return TODAY;
+        }
+        if (daysAhead < 7) {
+            return THIS_WEEK;
+        }
+        return LATER;
+    }
+}
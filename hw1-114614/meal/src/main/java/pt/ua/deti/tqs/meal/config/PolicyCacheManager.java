@@ -0,0 +1,126 @@
+package pt.ua.deti.tqs.meal.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.controller.dto.SerializedResponse;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Caffeine cache manager that builds each cache from its own {@link CacheProperties.Policy}.
+ * Caches stay dynamic: names without a spec are created on demand with the defaults.
+ */
+public class PolicyCacheManager extends CaffeineCacheManager {
+    private static final Logger logger = LoggerFactory.getLogger(PolicyCacheManager.class);
+
+    private final CacheProperties properties;
+    private final ObjectProvider<CacheReloader> reloaders;
+    private final ObjectProvider<CacheExpiry> expiries;
+
+    public PolicyCacheManager(CacheProperties properties, ObjectProvider<CacheReloader> reloaders,
+                              ObjectProvider<CacheExpiry> expiries) {
+        this.properties = properties;
+        this.reloaders = reloaders;
+        this.expiries = expiries;
+        // Create the declared caches up front so they show up in the metrics
+        properties.getSpecs().keySet().forEach(this::getCache);
+    }
+
+    /**
+     * @param cacheName The cache name
+     * @return The policy the cache was built with
+     */
+    public CacheProperties.Policy getPolicy(String cacheName) {
+        return properties.policyFor(cacheName);
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        CacheProperties.Policy policy = properties.policyFor(name);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+
+        if (policy.getMaximumWeight() != null) {
+            builder.maximumWeight(policy.getMaximumWeight()).weigher(PolicyCacheManager::weigh);
+        } else if (policy.getMaximumSize() != null) {
+            builder.maximumSize(policy.getMaximumSize());
+        }
+        CacheExpiry expiry = expiries.orderedStream()
+                .filter(candidate -> candidate.cacheName().equals(name))
+                .findFirst()
+                .orElse(null);
+        if (expiry != null) {
+            // Caffeine does not combine variable expiry with fixed expire-after-write/access
+            if (policy.getExpireAfterWrite() != null || policy.getExpireAfterAccess() != null) {
+                logger.warn("Cache {} has a CacheExpiry, ignoring its fixed expiry settings", name);
+            }
+            builder.expireAfter(expiry);
+        } else {
+            if (policy.getExpireAfterWrite() != null) {
+                builder.expireAfterWrite(policy.getExpireAfterWrite());
+            }
+            if (policy.getExpireAfterAccess() != null) {
+                builder.expireAfterAccess(policy.getExpireAfterAccess());
+            }
+        }
+
+        if (policy.getRefreshAfterWrite() != null) {
+            CacheReloader reloader = reloaders.orderedStream()
+                    .filter(candidate -> candidate.cacheName().equals(name))
+                    .findFirst()
+                    .orElse(null);
+            if (reloader != null) {
+                builder.refreshAfterWrite(policy.getRefreshAfterWrite());
+                return builder.build(loaderFor(reloader));
+            }
+            logger.warn("Cache {} has refresh-after-write but no CacheReloader, refresh disabled", name);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Misses return null so the @Cacheable method computes the value as usual;
+     * only refreshes of existing entries go through the reloader (on Caffeine's executor).
+     */
+    private static CacheLoader<Object, Object> loaderFor(CacheReloader reloader) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) {
+                return null;
+            }
+
+            @Override
+            public Object reload(Object key, Object oldValue) {
+                Object fresh = reloader.reload(key);
+                return fresh != null ? fresh : oldValue;
+            }
+        };
+    }
+
+    /**
+     * Approximate an entry's heap footprint in rows, so page caches can be bounded by
+     * the number of reservations they hold rather than by the number of pages.
+     * Rendered responses are weighed in kilobytes instead.
+     */
+    static int weigh(Object key, Object value) {
+        if (value instanceof ReservationPage page) {
+            return page.getItems().size() + 1;
+        }
+        if (value instanceof SerializedResponse response) {
+            return response.getSizeKb();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size() + 1;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size() + 1;
+        }
+        return 1;
+    }
+}
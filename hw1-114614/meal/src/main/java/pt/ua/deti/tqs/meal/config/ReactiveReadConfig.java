@@ -0,0 +1,112 @@
+package pt.ua.deti.tqs.meal.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+import pt.ua.deti.tqs.meal.controller.ReactiveReadHandler;
+
+import java.util.Objects;
+
+import static org.springframework.web.servlet.function.RouterFunctions.route;
+
+/**
+ * Reactive read path for the listings, enabled with the "reactive" profile.
+ * The R2DBC auto-configuration is excluded in application.properties so that it never competes
+ * with the JPA transaction manager. The connection pool is built here from spring.r2dbc.*,
+ * kept out of the application context and only used for reads; writes keep going through JPA.
+ * Unless spring.r2dbc.url is set, it connects to the database of the JDBC datasource.
+ */
+@Configuration
+@Profile("reactive")
+@EnableR2dbcRepositories(basePackages = "pt.ua.deti.tqs.meal.repository.reactive")
+public class ReactiveReadConfig extends AbstractR2dbcConfiguration {
+
+    @Value("${spring.r2dbc.url:}")
+    private String url;
+
+    @Value("${spring.r2dbc.username:}")
+    private String username;
+
+    @Value("${spring.r2dbc.password:}")
+    private String password;
+
+    @Value("${meal.reactive.pool.max-size:20}")
+    private int maxPoolSize;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    private ConnectionPool connectionPool;
+
+    // Deliberately not a bean: a ConnectionFactory in the context makes the JDBC DataSource auto-configuration back off
+    @Override
+    public synchronized ConnectionFactory connectionFactory() {
+        if (connectionPool == null) {
+            ConnectionFactoryOptions.Builder options;
+            if (!url.isEmpty()) {
+                options = ConnectionFactoryOptions.parse(url).mutate();
+                if (!username.isEmpty()) {
+                    options.option(ConnectionFactoryOptions.USER, username);
+                    options.option(ConnectionFactoryOptions.PASSWORD, password);
+                }
+            } else {
+                options = ConnectionFactoryOptions.parse(r2dbcUrl(dataSourceProperties.determineUrl())).mutate();
+                String jdbcUsername = dataSourceProperties.determineUsername();
+                if (jdbcUsername != null && !jdbcUsername.isEmpty()) {
+                    options.option(ConnectionFactoryOptions.USER, jdbcUsername);
+                    options.option(ConnectionFactoryOptions.PASSWORD, Objects.toString(dataSourceProperties.determinePassword(), ""));
+                }
+            }
+            connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                    .maxSize(maxPoolSize)
+                    .build());
+        }
+        return connectionPool;
+    }
+
+    /**
+     * The R2DBC URL of the database a JDBC URL points at
+     * @param jdbcUrl e.g. jdbc:postgresql://host/db or jdbc:h2:mem:name;DB_CLOSE_DELAY=-1
+     * @return e.g. r2dbc:postgresql://host/db or r2dbc:h2:mem:///name?options=DB_CLOSE_DELAY=-1
+     */
+    static String r2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:h2:mem:")) {
+            String[] nameAndOptions = jdbcUrl.substring("jdbc:h2:mem:".length()).split(";", 2);
+            return "r2dbc:h2:mem:///" + nameAndOptions[0] + (nameAndOptions.length > 1 ? "?options=" + nameAndOptions[1] : "");
+        }
+        if (!jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalStateException("Cannot derive an R2DBC URL from " + jdbcUrl + ", set spring.r2dbc.url");
+        }
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+    }
+
+    @PreDestroy
+    public synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    // Router functions are matched before the annotated controllers, so these replace the blocking handlers
+    @Bean
+    public RouterFunction<ServerResponse> reactiveReadRoutes(ReactiveReadHandler handler) {
+        return route()
+                .GET("/api/v1/restaurants", handler::getAllRestaurants)
+                .GET("/api/v1/meals", handler::getMeals)
+                .GET("/api/v1/weather/forecast/days", handler::getMultiDayForecast)
+                .build();
+    }
+}
@@ -1,11 +1,18 @@
 package pt.ua.deti.tqs.meal.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import pt.ua.deti.tqs.meal.controller.RestaurantController;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -22,7 +29,22 @@ public class WebConfig implements WebMvcConfigurer {
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
         
+        // Let browser clients read the pagination cursor and the ETag of listings
+        config.addExposedHeader(RestaurantController.NEXT_CURSOR_HEADER);
+        config.addExposedHeader(HttpHeaders.ETAG);
+        
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
     }
-} 
\ No newline at end of file
+
+    // The binary encodings of the menu use the same mapper settings as JSON (ISO dates, modules)
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
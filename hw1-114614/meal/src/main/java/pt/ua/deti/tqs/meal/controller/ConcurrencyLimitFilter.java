@@ -0,0 +1,168 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pt.ua.deti.tqs.meal.service.ConcurrencyLimiter;
+import pt.ua.deti.tqs.meal.service.ConcurrencyLimiter.Priority;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Load shedding for the API.
+ * Requests past the adaptive {@link ConcurrencyLimiter} limit get an immediate 503 with Retry-After
+ * instead of queueing in Tomcat, so an overload makes some requests fail fast rather than all of them
+ * slow. Check-ins are critical and may use the share of the limit that browsing cannot.
+ * Metrics and the reservation event streams are not limited: the first must stay reachable under
+ * load, the second are long-lived and would hold their slot for the whole connection.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private static final String API_PREFIX = "/api/";
+    private static final String METRICS_PREFIX = "/api/v1/metrics";
+    private static final Pattern EVENT_STREAM = Pattern.compile("^/api/v1/restaurants/[^/]+/reservations/events$");
+    private static final Pattern CHECK_IN = Pattern.compile("^/api/v1/reservations/(check-in|(code/)?[^/]+/use)$");
+
+    @Value("${meal.web.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${meal.web.concurrency-limit.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${meal.web.concurrency-limit.min-limit:10}")
+    private int minLimit;
+
+    @Value("${meal.web.concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${meal.web.concurrency-limit.window-size:50}")
+    private int windowSize;
+
+    @Value("${meal.web.concurrency-limit.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${meal.web.concurrency-limit.critical-share:0.2}")
+    private double criticalShare;
+
+    @Value("${meal.web.concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private ConcurrencyLimiter limiter;
+
+    @PostConstruct
+    void init() {
+        limiter = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, windowSize, tolerance, criticalShare);
+    }
+
+    /**
+     * @return Limiter state; only the enabled flag when limiting is off
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (enabled) {
+            stats.putAll(limiter.getStats());
+        }
+        return stats;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || !path.startsWith(API_PREFIX)
+                || path.startsWith(METRICS_PREFIX)
+                || EVENT_STREAM.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            logger.debug("Shedding {} {} at concurrency limit {}", request.getMethod(), request.getRequestURI(), limiter.getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server is overloaded, retry later");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (!completed) {
+                limiter.onDropped();
+            } else if (request.isAsyncStarted()) {
+                // The response is written later; the slot is held until then
+                request.getAsyncContext().addListener(new SampleOnCompletion(start));
+            } else {
+                limiter.onSample(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private Priority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean checkIn = (HttpMethod.PUT.matches(request.getMethod()) || HttpMethod.POST.matches(request.getMethod()))
+                && CHECK_IN.matcher(path).matches();
+        return checkIn ? Priority.CRITICAL : Priority.NORMAL;
+    }
+
+    private final class SampleOnCompletion implements AsyncListener {
+        private final long start;
+        private boolean done;
+
+        SampleOnCompletion(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            if (!done) {
+                done = true;
+                limiter.onSample(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public synchronized void onError(AsyncEvent event) {
+            if (!done) {
+                done = true;
+                limiter.onDropped();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Followed by onComplete, which records the time it took
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not re-registered on async re-dispatch
+        }
+    }
+}
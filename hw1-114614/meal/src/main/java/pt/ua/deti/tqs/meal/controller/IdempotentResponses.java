@@ -0,0 +1,106 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import pt.ua.deti.tqs.meal.domain.IdempotencyRecord;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyInFlightException;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyReusedException;
+import pt.ua.deti.tqs.meal.service.IdempotencyStore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for unsafe requests that clients retry.
+ * The first request with a key runs; its successful response is stored as the bytes sent and
+ * replayed, with the {@code Idempotent-Replayed} header, to every later request with the same key
+ * until the key expires. Failed responses are not stored, so a retry after a failure runs again.
+ */
+@Component
+public class IdempotentResponses {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Run a request at most once per key
+     * @param key The Idempotency-Key sent by the client
+     * @param request Identifies the request (method, path, parameters); a key is bound to one request
+     * @param action Handles the request when the key is new
+     * @return The response of the original request
+     */
+    public ResponseEntity<?> respond(String key, String request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(IDEMPOTENCY_KEY_HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyRecord stored;
+        try {
+            stored = store.claim(key, request);
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().body(e.getMessage());
+        } catch (IdempotencyKeyInFlightException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+        }
+        if (stored != null) {
+            return toResponse(stored).header(REPLAYED_HEADER, "true").body(stored.getResponseBody());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            store.release(key);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            store.release(key);
+            return response;
+        }
+
+        byte[] body;
+        String contentType;
+        try {
+            Object value = response.getBody();
+            if (value == null) {
+                body = new byte[0];
+                contentType = null;
+            } else if (value instanceof String text) {
+                body = text.getBytes(StandardCharsets.UTF_8);
+                contentType = MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8";
+            } else {
+                body = objectMapper.writeValueAsBytes(value);
+                contentType = MediaType.APPLICATION_JSON_VALUE;
+            }
+        } catch (JsonProcessingException e) {
+            store.release(key);
+            throw new IllegalStateException("Failed to render response for idempotency key " + key, e);
+        }
+
+        // The original gets the same bytes as its replays
+        IdempotencyRecord record = store.complete(key, request, response.getStatusCode().value(), contentType, body);
+        return toResponse(record).body(record.getResponseBody());
+    }
+
+    private ResponseEntity.BodyBuilder toResponse(IdempotencyRecord record) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(record.getResponseStatus());
+        if (record.getContentType() != null) {
+            response.contentType(MediaType.parseMediaType(record.getContentType()));
+        }
+        return response;
+    }
+}
@@ -3,21 +3,41 @@ package pt.ua.deti.tqs.meal.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import pt.ua.deti.tqs.meal.controller.dto.MealMenuResponse;
 import pt.ua.deti.tqs.meal.controller.dto.MealResponse;
 import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.service.ConcurrentLookups;
+import pt.ua.deti.tqs.meal.service.ContentVersions;
 import pt.ua.deti.tqs.meal.service.MealService;
+import pt.ua.deti.tqs.meal.service.RestaurantService;
 import pt.ua.deti.tqs.meal.service.WeatherService;
 import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
 
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,32 +47,196 @@ import org.springframework.web.bind.annotation.*;
 public class MealController {
     private static final Logger logger = LoggerFactory.getLogger(MealController.class);
     
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    
+    private static final List<MediaType> MENU_ENCODINGS = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, MediaType.parseMediaType(APPLICATION_SMILE_VALUE));
+    
     @Autowired
     private MealService mealService;
 
     @Autowired
     private WeatherService weatherService;
 
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private ConcurrentLookups lookups;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private SerializedResponseCache responseCache;
+
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
+
     @GetMapping
     public ResponseEntity<?> getMeals(
             @RequestParam Long restaurantId,
-            @RequestParam(required = false, defaultValue = "7") int days
+            @RequestParam(required = false, defaultValue = "7") int days,
+            WebRequest request
     ) {
         logger.info("Request to get meals for restaurant ID {} for {} days", restaurantId, days);
         
-        List<Meal> meals = mealService.getMealsForRestaurant(restaurantId, days);
+        if (days <= 0 || days > MealService.MAX_MENU_DAYS) {
+            return ResponseEntity.badRequest().body("Days must be between 1 and " + MealService.MAX_MENU_DAYS);
+        }
+        return responseCache.respond(request, "meals?restaurantId=" + restaurantId + "&days=" + days,
+                contentVersions.menuVersion(restaurantId, days), () -> {
+                    MenuLookup menu = findMenu(restaurantId, days);
+                    return menu.meals().stream()
+                            .map(meal -> new MealResponse(meal, menu.forecasts().get(meal.getAvailableDate())))
+                            .collect(Collectors.toList());
+                });
+    }
+
+    /**
+     * Get the meals of a restaurant in the normalized shape: the restaurant once, then each date with
+     * its forecast once and the meals served on it. JSON by default; CBOR or Smile through Accept.
+     * @param restaurantId The restaurant ID
+     * @param days Number of days from today
+     * @param request The request
+     * @return The menu, or null when the client's copy is current (304)
+     * @throws ResourceNotFoundException if the restaurant does not exist
+     * @throws HttpMediaTypeNotAcceptableException if Accept allows none of the encodings
+     */
+    @GetMapping(value = "/menu", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<MealMenuResponse> getMenu(
+            @RequestParam Long restaurantId,
+            @RequestParam(required = false, defaultValue = "7") int days,
+            NativeWebRequest request
+    ) throws HttpMediaTypeNotAcceptableException {
+        logger.info("Request to get the menu of restaurant ID {} for {} days", restaurantId, days);
+        
+        if (days <= 0 || days > MealService.MAX_MENU_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        Restaurant restaurant = restaurantService.getRestaurantById(restaurantId);
         
+        // Each encoding is a separate representation, with its own strong ETag. The response is
+        // written in the type chosen here, so the tag always names the bytes that are sent
+        MediaType encoding = negotiateMenuEncoding(request);
+        MenuLookup menu = findMenu(restaurantId, days);
+        MealMenuResponse body = MealMenuResponse.of(restaurant, menu.meals(), menu.forecasts());
+        if (request.checkNotModified(responseCache.contentTag(body) + "-menu-" + encoding.getSubtype())) {
+            return null;
+        }
+        
+        return ResponseEntity.ok()
+                .contentType(encoding)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * Set the seat limit of a meal
+     * @param id The meal ID
+     * @param capacity The new number of seats; without it the meal has no seat limit
+     * @return 200 OK, 404 if the meal does not exist, 409 if more seats are already taken, 400 if negative
+     */
+    @PutMapping("/{id}/capacity")
+    public ResponseEntity<?> setCapacity(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer capacity
+    ) {
+        logger.info("Request to set the capacity of meal ID {} to {}", id, capacity);
+        
+        try {
+            mealService.setCapacity(id, capacity);
+            return ResponseEntity.ok().body("Meal capacity updated");
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private MenuLookup findMenu(Long restaurantId, int days) {
+        if (lookups.isEnabled()) {
+            // Forecasts within the horizon are looked up alongside the meals, then completed for
+            // the dates that have meals, as the sequential lookup below would
+            try (ConcurrentLookups.Scope scope = lookups.open()) {
+                Supplier<List<Meal>> mealLookup = scope.fork(() -> mealService.getMealsForRestaurant(restaurantId, days));
+                Supplier<Map<LocalDate, WeatherForecast>> forecastLookup = scope.fork(
+                        () -> weatherService.getForecastForDates(WeatherService.forecastWindow(days)));
+                scope.join();
+                List<Meal> meals = mealLookup.get();
+                return new MenuLookup(meals, mealForecasts(weatherService, forecastLookup.get(), meals));
+            }
+        }
+        
+        List<Meal> meals = mealService.getMealsForRestaurant(restaurantId, days);
         Map<LocalDate, WeatherForecast> forecastMap = weatherService.getForecastForDates(
                 meals.stream()
                     .map(Meal::getAvailableDate)
                     .collect(Collectors.toSet())
         );
+        return new MenuLookup(meals, forecastMap);
+    }
 
-    
-        List<MealResponse> response = meals.stream()
-                .map(meal -> new MealResponse(meal, forecastMap.get(meal.getAvailableDate())))
-                .collect(Collectors.toList());
+    /**
+     * Forecasts of the meals' dates, from those looked up for {@link WeatherService#forecastWindow} before
+     * the meals were known. Dates past the window are looked up now; dates within it that have no
+     * forecast already failed and are not asked for again.
+     * @param weatherService The weather service
+     * @param windowForecasts Forecasts looked up for the window
+     * @param meals The meals
+     * @return Forecasts by meal date
+     */
+    static Map<LocalDate, WeatherForecast> mealForecasts(WeatherService weatherService,
+            Map<LocalDate, WeatherForecast> windowForecasts, List<Meal> meals) {
+        Set<LocalDate> window = WeatherService.forecastWindow(WeatherService.FORECAST_HORIZON_DAYS);
+        Map<LocalDate, WeatherForecast> forecasts = new HashMap<>();
+        Set<LocalDate> later = new TreeSet<>();
+        for (Meal meal : meals) {
+            LocalDate date = meal.getAvailableDate();
+            if (!window.contains(date)) {
+                later.add(date);
+            } else if (windowForecasts.containsKey(date)) {
+                forecasts.put(date, windowForecasts.get(date));
+            }
+        }
+        if (!later.isEmpty()) {
+            forecasts.putAll(weatherService.getForecastForDates(later));
+        }
+        return forecasts;
+    }
+
+    /**
+     * Pick the menu encoding the way message conversion would: acceptable types by quality, then by
+     * specificity, each matched against the encodings in order of preference
+     * @return The encoding to write
+     * @throws HttpMediaTypeNotAcceptableException if Accept allows none of the encodings
+     */
+    private MediaType negotiateMenuEncoding(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> acceptable = new ArrayList<>(contentNegotiationManager.resolveMediaTypes(request));
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        // Stable sort: equal qualities keep the more specific type first
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        
+        for (MediaType accepted : acceptable) {
+            if (accepted.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType encoding : MENU_ENCODINGS) {
+                if (accepted.isCompatibleWith(encoding) && !refused(acceptable, encoding)) {
+                    return encoding;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(MENU_ENCODINGS);
+    }
+
+    // An encoding explicitly given q=0 is refused even when a wildcard also matches it
+    private static boolean refused(List<MediaType> acceptable, MediaType encoding) {
+        return acceptable.stream().anyMatch(accepted -> accepted.getQualityValue() == 0 && accepted.includes(encoding));
+    }
 
-        return ResponseEntity.ok(response);
+    private record MenuLookup(List<Meal> meals, Map<LocalDate, WeatherForecast> forecasts) {
     }
 }
@@ -14,14 +14,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import pt.ua.deti.tqs.meal.service.CacheWarmer;
+import pt.ua.deti.tqs.meal.service.ReservationFeed;
 import pt.ua.deti.tqs.meal.service.WeatherService;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 @RestController
@@ -37,6 +41,15 @@ public class MetricsController {
     @Autowired
     private CacheManager cacheManager;
     
+    @Autowired
+    private CacheWarmer cacheWarmer;
+    
+    @Autowired
+    private ReservationFeed reservationFeed;
+    
+    @Autowired
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+    
     @Operation(summary = "Get weather cache statistics", description = "Returns hit and miss metrics for the weather forecast cache")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully",
@@ -47,6 +60,46 @@ public class MetricsController {
         return ResponseEntity.ok(weatherService.getCacheStats());
     }
     
+    @Operation(summary = "Get weather provider resilience state", description = "Returns the circuit breaker state, bulkhead and rejection counts for the weather provider")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Provider state retrieved successfully",
+                content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @GetMapping("/weather-provider")
+    public ResponseEntity<Map<String, Object>> getWeatherProviderStats() {
+        return ResponseEntity.ok(weatherService.getProviderStats());
+    }
+    
+    @Operation(summary = "Get the last cache warm-up", description = "Returns the runtime and the entries loaded by the last cache warm-up")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Warm-up report retrieved successfully",
+                content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @GetMapping("/warm-up")
+    public ResponseEntity<Map<String, Object>> getWarmUpReport() {
+        return ResponseEntity.ok(cacheWarmer.getLastReport());
+    }
+    
+    @Operation(summary = "Get reservation feed statistics", description = "Returns open event streams, buffered events and the last event id of the reservation feed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feed statistics retrieved successfully",
+                content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @GetMapping("/reservation-feed")
+    public ResponseEntity<Map<String, Object>> getReservationFeedStats() {
+        return ResponseEntity.ok(reservationFeed.getStats());
+    }
+    
+    @Operation(summary = "Get API concurrency limiter state", description = "Returns the adaptive concurrency limit, requests in flight, latency estimates and accepted/rejected counts per priority")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Limiter state retrieved successfully",
+                content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @GetMapping("/concurrency-limit")
+    public ResponseEntity<Map<String, Object>> getConcurrencyLimitStats() {
+        return ResponseEntity.ok(concurrencyLimitFilter.getStats());
+    }
+    
     /**
      * Get cache statistics for monitoring
      * @return JSON object with cache statistics
@@ -82,6 +135,7 @@ public class MetricsController {
                 cacheInfo.put("misses", cacheStats.missCount());
                 cacheInfo.put("hitRate", cacheStats.hitRate());
                 cacheInfo.put("evictions", cacheStats.evictionCount());
+                cacheInfo.put("policy", describePolicy(nativeCache));
                 
                 stats.put(cacheName, cacheInfo);
             } catch (Exception e) {
@@ -92,4 +146,25 @@ public class MetricsController {
         
         return ResponseEntity.ok(stats);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Describe the effective Caffeine policy of a cache
+     * @param nativeCache The native cache
+     * @return Bounds and expiry settings; absent keys are not configured
+     */
+    private Map<String, Object> describePolicy(Cache<Object, Object> nativeCache) {
+        Policy<Object, Object> policy = nativeCache.policy();
+        Map<String, Object> description = new LinkedHashMap<>();
+        
+        policy.eviction().ifPresent(eviction -> {
+            description.put(eviction.isWeighted() ? "maximumWeight" : "maximumSize", eviction.getMaximum());
+            eviction.weightedSize().ifPresent(weight -> description.put("weightedSize", weight));
+        });
+        policy.expireAfterWrite().ifPresent(expiry -> description.put("expireAfterWrite", expiry.getExpiresAfter().toString()));
+        policy.expireAfterAccess().ifPresent(expiry -> description.put("expireAfterAccess", expiry.getExpiresAfter().toString()));
+        policy.expireVariably().ifPresent(expiry -> description.put("expireVariably", true));
+        policy.refreshAfterWrite().ifPresent(refresh -> description.put("refreshAfterWrite", refresh.getRefreshesAfter().toString()));
+        
+        return description;
+    }
+}
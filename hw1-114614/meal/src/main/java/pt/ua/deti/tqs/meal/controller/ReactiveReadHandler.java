@@ -0,0 +1,185 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import pt.ua.deti.tqs.meal.controller.dto.MealResponse;
+import pt.ua.deti.tqs.meal.repository.reactive.MealRow;
+import pt.ua.deti.tqs.meal.repository.reactive.ReactiveMealRepository;
+import pt.ua.deti.tqs.meal.repository.reactive.ReactiveRestaurantRepository;
+import pt.ua.deti.tqs.meal.repository.reactive.RestaurantRow;
+import pt.ua.deti.tqs.meal.service.MealService;
+import pt.ua.deti.tqs.meal.service.WeatherService;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking handlers for the read-heavy listings, active with the "reactive" profile.
+ * Rows are read through R2DBC and forecasts through the asynchronous weather lookup, so no
+ * servlet thread waits on the database or the provider. Responses keep the JSON contracts of
+ * {@link RestaurantController}, {@link MealController} and {@link WeatherController}; clients
+ * that accept application/x-ndjson get the items streamed as they are read instead.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveReadHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReadHandler.class);
+
+    @Autowired
+    private ReactiveRestaurantRepository restaurantRepository;
+
+    @Autowired
+    private ReactiveMealRepository mealRepository;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private SerializedResponseCache responseCache;
+
+    /**
+     * Get all restaurants
+     * @param request The request
+     * @return List of restaurants
+     */
+    public ServerResponse getAllRestaurants(ServerRequest request) {
+        logger.info("Reactive request to get all restaurants");
+        return respond(request,
+                () -> restaurantRepository.findAll().map(RestaurantRow::toRestaurant));
+    }
+
+    /**
+     * Get the meals of a restaurant for the next days, with their forecasts
+     * @param request The request, with restaurantId and optional days (default 7, at most MealService.MAX_MENU_DAYS) parameters
+     * @return List of meal responses
+     */
+    public ServerResponse getMeals(ServerRequest request) {
+        Optional<Long> restaurantId;
+        int days;
+        try {
+            restaurantId = request.param("restaurantId").map(Long::valueOf);
+            days = request.param("days").map(Integer::parseInt).orElse(7);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().body("Parameters 'restaurantId' and 'days' must be numbers.");
+        }
+        if (restaurantId.isEmpty()) {
+            return ServerResponse.badRequest().body("Required parameter 'restaurantId' is not present.");
+        }
+        if (days <= 0 || days > MealService.MAX_MENU_DAYS) {
+            return ServerResponse.badRequest().body("Days must be between 1 and " + MealService.MAX_MENU_DAYS);
+        }
+        logger.info("Reactive request to get meals for restaurant ID {} for {} days", restaurantId.get(), days);
+
+        return respond(request, () -> {
+            LocalDate today = LocalDate.now();
+            // The forecast lookup starts now for the dates within the forecast horizon; meal rows are
+            // mapped once it completes, usually from the cache
+            Set<LocalDate> window = WeatherService.forecastWindow(days);
+            Mono<Map<LocalDate, WeatherForecast>> forecasts = forecasts(window);
+            Flux<MealRow> rows = mealRepository.findMenu(restaurantId.get(), today, today.plusDays(days - 1L));
+            if (days <= WeatherService.FORECAST_HORIZON_DAYS) {
+                return forecasts.flatMapMany(forecastMap ->
+                        rows.map(row -> new MealResponse(row.toMeal(), forecastMap.get(row.availableDate()))));
+            }
+            // Past the horizon only the dates that have meals are looked up, once the rows are read
+            return Mono.zip(forecasts, rows.collectList()).flatMapMany(read -> {
+                Set<LocalDate> later = read.getT2().stream()
+                        .map(MealRow::availableDate)
+                        .filter(date -> !window.contains(date))
+                        .collect(Collectors.toCollection(TreeSet::new));
+                Mono<Map<LocalDate, WeatherForecast>> laterForecasts = later.isEmpty() ? Mono.just(Map.of()) : forecasts(later);
+                return laterForecasts.flatMapIterable(more -> {
+                    Map<LocalDate, WeatherForecast> forecastMap = new HashMap<>(read.getT1());
+                    forecastMap.putAll(more);
+                    return read.getT2().stream()
+                            .map(row -> new MealResponse(row.toMeal(), forecastMap.get(row.availableDate())))
+                            .toList();
+                });
+            });
+        });
+    }
+
+    /**
+     * Get weather forecast for multiple days starting from today
+     * @param request The request, with an optional days parameter (default 5)
+     * @return Map of dates to weather forecasts
+     */
+    public ServerResponse getMultiDayForecast(ServerRequest request) {
+        int days;
+        try {
+            days = request.param("days").map(Integer::parseInt).orElse(5);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().body("Parameter 'days' must be a number.");
+        }
+        logger.info("Reactive request to get weather forecast for the next {} days", days);
+
+        if (days <= 0 || days > WeatherService.FORECAST_HORIZON_DAYS) {
+            return ServerResponse.badRequest().body("Days must be between 1 and " + WeatherService.FORECAST_HORIZON_DAYS);
+        }
+
+        return ServerResponse.async(forecasts(WeatherService.forecastWindow(days))
+                .map(forecastMap -> ServerResponse.ok().body(WeatherController.multiDayForecastBody(forecastMap))));
+    }
+
+    private Mono<Map<LocalDate, WeatherForecast>> forecasts(Set<LocalDate> dates) {
+        return Mono.fromFuture(weatherService.getForecastsWithinDeadline(dates));
+    }
+
+    /**
+     * Send the items as a JSON array, tagged with a hash of their content and answered with 304 when the
+     * client's copy is current, or stream them one JSON document per line when the client accepts
+     * application/x-ndjson. The stream is written as the items are read, before their content is
+     * known, so it carries no ETag
+     * @param request The request
+     * @param items Reads the items to send
+     * @return The response
+     */
+    private ServerResponse respond(ServerRequest request, Supplier<Flux<?>> items) {
+        if (!request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ServerResponse.async(items.get().collectList().map(list -> {
+                String etag = responseCache.contentTag(list);
+                if (isCurrent(request, etag)) {
+                    return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+                return ServerResponse.ok().eTag(etag).body(list);
+            }));
+        }
+
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).stream(stream -> items.get().subscribe(
+                item -> {
+                    try {
+                        stream.write(item, MediaType.APPLICATION_JSON).write("\n", MediaType.TEXT_PLAIN).flush();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Client went away while streaming", e);
+                    }
+                },
+                stream::error,
+                stream::complete));
+    }
+
+    private static boolean isCurrent(ServerRequest request, String etag) {
+        ETag current = ETag.create(etag);
+        return request.headers().header(HttpHeaders.IF_NONE_MATCH).stream()
+                .flatMap(header -> ETag.parse(header).stream())
+                .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+}
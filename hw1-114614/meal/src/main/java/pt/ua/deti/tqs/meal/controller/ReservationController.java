@@ -2,6 +2,7 @@ package pt.ua.deti.tqs.meal.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,14 +11,25 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import pt.ua.deti.tqs.meal.controller.dto.BatchReservationRequest;
+import pt.ua.deti.tqs.meal.controller.dto.BulkTokenRequest;
 import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
+import pt.ua.deti.tqs.meal.controller.dto.TokenResult;
+import pt.ua.deti.tqs.meal.controller.dto.WaitlistEntryDto;
 import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.WaitlistEntry;
+import pt.ua.deti.tqs.meal.exception.ConcurrentCheckInException;
+import pt.ua.deti.tqs.meal.exception.MealFullyBookedException;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
 import pt.ua.deti.tqs.meal.service.ReservationService;
+import pt.ua.deti.tqs.meal.service.WaitlistService;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -30,33 +42,171 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
     
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private IdempotentResponses idempotentResponses;
+    
     /**
      * Create a new reservation
      * @param mealId The meal ID to reserve
+     * @param idempotencyKey Optional key making retries of this request safe
      * @return The created reservation details
      */
-    @Operation(summary = "Create a new reservation", description = "Creates a new reservation for the specified meal")
+    @Operation(summary = "Create a new reservation", description = "Creates a new reservation for the specified meal. "
+            + "With an Idempotency-Key header, retries with the same key get the response of the first request "
+            + "(marked Idempotent-Replayed) instead of creating another reservation.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Reservation created successfully",
                 content = @Content(schema = @Schema(implementation = ReservationDto.class))),
         @ApiResponse(responseCode = "404", description = "Meal not found"),
+        @ApiResponse(responseCode = "409", description = "Meal fully booked, join the waitlist instead; or a request with the same Idempotency-Key is still running"),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
         @ApiResponse(responseCode = "400", description = "Error creating reservation")
     })
     @PostMapping
     public ResponseEntity<?> createReservation(
-            @Parameter(description = "ID of the meal to reserve") @RequestParam Long mealId) {
+            @Parameter(description = "ID of the meal to reserve") @RequestParam Long mealId,
+            @Parameter(description = "Unique key per reservation attempt, reused on retries")
+            @RequestHeader(value = IdempotentResponses.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         logger.info("Request to create reservation for meal ID: {}", mealId);
         
+        if (idempotencyKey == null) {
+            return reserve(mealId);
+        }
+        return idempotentResponses.respond(idempotencyKey, "POST /api/v1/reservations?mealId=" + mealId, () -> reserve(mealId));
+    }
+    
+    private ResponseEntity<?> reserve(Long mealId) {
         try {
             Reservation reservation = reservationService.createReservation(mealId);
             return ResponseEntity.ok(new ReservationDto(reservation));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (MealFullyBookedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error creating reservation: " + e.getMessage());
         }
     }
     
+    /**
+     * Create several reservations in one request
+     * @param request Meals and quantities to reserve
+     * @return The created reservations
+     */
+    @Operation(summary = "Create reservations in batch", description = "Creates several reservations (e.g. group bookings) in one transaction. Either all reservations are created or none.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reservations created successfully",
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = ReservationDto.class)))),
+        @ApiResponse(responseCode = "404", description = "A meal was not found"),
+        @ApiResponse(responseCode = "409", description = "A meal has not enough seats left"),
+        @ApiResponse(responseCode = "400", description = "Invalid batch")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<?> createReservations(@RequestBody BatchReservationRequest request) {
+        List<BatchReservationRequest.Item> items = request.getItems();
+        if (items == null || items.isEmpty() || items.size() > ReservationService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("Error creating reservations: between 1 and "
+                    + ReservationService.MAX_BATCH_SIZE + " items per batch");
+        }
+        logger.info("Request to create reservations in batch for {} items", items.size());
+        
+        // Merge repeated meals, keeping request order. Every quantity and the running total stay within
+        // the batch limit, so the sums cannot overflow
+        Map<Long, Integer> quantitiesByMeal = new LinkedHashMap<>();
+        int total = 0;
+        for (BatchReservationRequest.Item item : items) {
+            if (item == null || item.getMealId() == null) {
+                return ResponseEntity.badRequest().body("Error creating reservations: mealId is required");
+            }
+            if (item.getQuantity() < 1 || item.getQuantity() > ReservationService.MAX_BATCH_SIZE - total) {
+                return ResponseEntity.badRequest().body("Error creating reservations: each quantity must be positive, and at most "
+                        + ReservationService.MAX_BATCH_SIZE + " reservations per batch");
+            }
+            total += item.getQuantity();
+            quantitiesByMeal.merge(item.getMealId(), item.getQuantity(), Integer::sum);
+        }
+        
+        try {
+            List<ReservationDto> reservations = reservationService.createReservations(quantitiesByMeal).stream()
+                    .map(ReservationDto::new)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(reservations);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (MealFullyBookedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error creating reservations: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Look up many reservations by code in one request
+     * @param request The codes
+     * @return One result per code, in request order
+     */
+    @Operation(summary = "Look up reservations in bulk", description = "Resolves up to " + ReservationService.MAX_BULK_TOKENS
+            + " codes at once (e.g. batched by a door scanner). Each code gets a status: OK (active), ALREADY_USED or UNKNOWN.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Codes resolved",
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = TokenResult.class)))),
+        @ApiResponse(responseCode = "400", description = "No codes or too many codes")
+    })
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookupReservations(@RequestBody BulkTokenRequest request) {
+        if (!withinBulkLimit(request)) {
+            return ResponseEntity.badRequest().body("Error looking up reservations: between 1 and "
+                    + ReservationService.MAX_BULK_TOKENS + " codes per request");
+        }
+        logger.info("Request to look up {} reservations", request.getTokens().size());
+        
+        try {
+            return ResponseEntity.ok(reservationService.lookupReservations(request.getTokens()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error looking up reservations: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Check in many reservations by code in one request
+     * @param request The codes
+     * @return One result per code, in request order
+     */
+    @Operation(summary = "Check in reservations in bulk", description = "Marks up to " + ReservationService.MAX_BULK_TOKENS
+            + " reservations as used at once (e.g. codes a door scanner batched while offline). Each code gets a status: "
+            + "OK (checked in now), ALREADY_USED (before, or earlier in the same batch) or UNKNOWN.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed",
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = TokenResult.class)))),
+        @ApiResponse(responseCode = "400", description = "No codes or too many codes"),
+        @ApiResponse(responseCode = "409", description = "Some codes were checked in concurrently; nothing was changed, retry the batch")
+    })
+    @PostMapping("/check-in")
+    public ResponseEntity<?> checkInReservations(@RequestBody BulkTokenRequest request) {
+        if (!withinBulkLimit(request)) {
+            return ResponseEntity.badRequest().body("Error checking in reservations: between 1 and "
+                    + ReservationService.MAX_BULK_TOKENS + " codes per request");
+        }
+        logger.info("Request to check in {} reservations", request.getTokens().size());
+        
+        try {
+            return ResponseEntity.ok(reservationService.checkInReservations(request.getTokens()));
+        } catch (ConcurrentCheckInException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error checking in reservations: " + e.getMessage());
+        }
+    }
+    
+    // A missing or oversized list of codes is rejected before it reaches the service
+    private static boolean withinBulkLimit(BulkTokenRequest request) {
+        List<String> tokens = request.getTokens();
+        return tokens != null && !tokens.isEmpty() && tokens.size() <= ReservationService.MAX_BULK_TOKENS;
+    }
+    
     /**
      * Get reservation details by token
      * @param token The reservation token
@@ -185,4 +335,81 @@ public class ReservationController {
             return ResponseEntity.badRequest().body("Reservation already used");
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Join the waitlist of a fully booked meal
+     * @param mealId The meal ID
+     * @return The waitlist entry
+     */
+    @Operation(summary = "Join meal waitlist", description = "Queues for a fully booked meal. When a seat is freed, the oldest entry is promoted to a reservation with the same token.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Joined the waitlist (or promoted immediately if a seat was free)",
+                content = @Content(schema = @Schema(implementation = WaitlistEntryDto.class))),
+        @ApiResponse(responseCode = "404", description = "Meal not found"),
+        @ApiResponse(responseCode = "400", description = "Meal has no seat limit")
+    })
+    @PostMapping("/waitlist")
+    public ResponseEntity<?> joinWaitlist(
+            @Parameter(description = "ID of the meal") @RequestParam Long mealId) {
+        logger.info("Request to join waitlist for meal ID: {}", mealId);
+        
+        try {
+            WaitlistEntry entry = waitlistService.joinWaitlist(mealId);
+            return ResponseEntity.ok(new WaitlistEntryDto(entry, waitlistService.getPosition(entry)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body("Error joining waitlist: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get a waitlist entry by token
+     * @param token The waitlist token
+     * @return The entry with its current position
+     */
+    @Operation(summary = "Get waitlist entry", description = "Returns the status and position of a waitlist entry")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Waitlist entry found",
+                content = @Content(schema = @Schema(implementation = WaitlistEntryDto.class))),
+        @ApiResponse(responseCode = "404", description = "Waitlist entry not found")
+    })
+    @GetMapping("/waitlist/{token}")
+    public ResponseEntity<?> getWaitlistEntry(
+            @Parameter(description = "Token of the waitlist entry") @PathVariable String token) {
+        logger.info("Request to get waitlist entry with token: {}", token);
+        
+        try {
+            WaitlistEntry entry = waitlistService.getEntry(token);
+            return ResponseEntity.ok(new WaitlistEntryDto(entry, waitlistService.getPosition(entry)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Leave a waitlist
+     * @param token The waitlist token
+     * @return 200 OK if successful
+     */
+    @Operation(summary = "Leave meal waitlist", description = "Cancels a waiting entry")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Waitlist entry cancelled"),
+        @ApiResponse(responseCode = "404", description = "Waitlist entry not found"),
+        @ApiResponse(responseCode = "400", description = "Entry already promoted or cancelled")
+    })
+    @DeleteMapping("/waitlist/{token}")
+    public ResponseEntity<?> leaveWaitlist(
+            @Parameter(description = "Token of the waitlist entry") @PathVariable String token) {
+        logger.info("Request to leave waitlist with token: {}", token);
+        
+        try {
+            waitlistService.cancel(token);
+            return ResponseEntity.ok().body("Waitlist entry cancelled");
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body("Waitlist entry is no longer waiting");
+        }
+    }
+}
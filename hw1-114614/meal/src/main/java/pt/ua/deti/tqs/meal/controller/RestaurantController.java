@@ -10,17 +10,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
-import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.service.ContentVersions;
+import pt.ua.deti.tqs.meal.service.ReservationFeed;
 import pt.ua.deti.tqs.meal.service.ReservationService;
 import pt.ua.deti.tqs.meal.service.RestaurantService;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/restaurants")
@@ -29,36 +33,56 @@ import java.util.stream.Collectors;
 public class RestaurantController {
     private static final Logger logger = LoggerFactory.getLogger(RestaurantController.class);
     
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    
     @Autowired
     private RestaurantService restaurantService;
     
     @Autowired
     private ReservationService reservationService;
     
+    @Autowired
+    private ContentVersions contentVersions;
+    
+    @Autowired
+    private SerializedResponseCache responseCache;
+    
+    @Autowired
+    private ReservationFeed reservationFeed;
+    
     @Operation(summary = "Get all restaurants", description = "Returns a list of all available restaurants")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of restaurants retrieved successfully",
-                content = @Content(schema = @Schema(implementation = Restaurant.class)))
+                content = @Content(schema = @Schema(implementation = Restaurant.class))),
+        @ApiResponse(responseCode = "304", description = "Restaurants unchanged since the ETag sent in If-None-Match")
     })
     @GetMapping
-    public ResponseEntity<List<Restaurant>> getAllRestaurants() {
+    public ResponseEntity<byte[]> getAllRestaurants(WebRequest request) {
         logger.info("Request to get all restaurants");
-        return ResponseEntity.ok(restaurantService.getAllRestaurants());
+        return responseCache.respond(request, "restaurants", contentVersions.restaurantsVersion(),
+                restaurantService::getAllRestaurants);
     }
     
     @Operation(summary = "Get restaurant by ID", description = "Returns restaurant details for the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Restaurant found",
                 content = @Content(schema = @Schema(implementation = Restaurant.class))),
+        @ApiResponse(responseCode = "304", description = "Restaurant unchanged since the ETag sent in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Restaurant not found")
     })
     @GetMapping("/{id}")
     public ResponseEntity<Restaurant> getRestaurantById(
-            @Parameter(description = "ID of the restaurant") @PathVariable Long id) {
+            @Parameter(description = "ID of the restaurant") @PathVariable Long id, WebRequest request) {
         logger.info("Request to get restaurant with ID: {}", id);
         
         try {
+            // Served from the restaurant cache; a tag never makes a missing restaurant look unchanged
             Restaurant restaurant = restaurantService.getRestaurantById(id);
+            if (request.checkNotModified(responseCache.contentTag(restaurant))) {
+                return null;
+            }
             return ResponseEntity.ok(restaurant);
         } catch (ResourceNotFoundException e) {
             logger.warn("Restaurant not found with ID: {}", id);
@@ -67,34 +91,87 @@ public class RestaurantController {
     }
     
     /**
-     * Get all active reservations for a restaurant
+     * Get one page of active reservations for a restaurant
      * @param id The restaurant ID
-     * @return List of active reservations
+     * @param limit Maximum number of reservations to return
+     * @param after Cursor of the previous page, if any
+     * @return Page of active reservations, with the next cursor in the X-Next-Cursor header
      */
-    @Operation(summary = "Get active reservations for restaurant", description = "Returns a list of all active reservations for the specified restaurant")
+    @Operation(summary = "Get active reservations for restaurant", description = "Returns one page of active reservations for the specified restaurant, oldest first. "
+            + "When more reservations exist, the cursor for the next page is returned in the " + NEXT_CURSOR_HEADER + " header.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "List of active reservations retrieved successfully",
+        @ApiResponse(responseCode = "200", description = "Page of active reservations retrieved successfully",
                 content = @Content(schema = @Schema(implementation = ReservationDto.class))),
+        @ApiResponse(responseCode = "304", description = "Active reservations unchanged since the ETag sent in If-None-Match"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
         @ApiResponse(responseCode = "404", description = "Restaurant not found")
     })
     @GetMapping("/{id}/reservations/active")
     public ResponseEntity<?> getActiveReservations(
-            @Parameter(description = "ID of the restaurant") @PathVariable Long id) {
+            @Parameter(description = "ID of the restaurant") @PathVariable Long id,
+            @Parameter(description = "Maximum number of reservations to return") @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @Parameter(description = "Cursor from the " + NEXT_CURSOR_HEADER + " header of the previous page") @RequestParam(required = false) String after,
+            WebRequest request) {
         logger.info("Request to get active reservations for restaurant with ID: {}", id);
         
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
         try {
             // Just check if the restaurant exists
             restaurantService.getRestaurantById(id);
             
-            List<Reservation> activeReservations = reservationService.getActiveReservationsForRestaurant(id);
-            List<ReservationDto> reservationDtos = activeReservations.stream()
-                    .map(ReservationDto::new)
-                    .collect(Collectors.toList());
+            // Served from the page cache; the tag covers the items and the next cursor
+            ReservationPage page = reservationService.getActiveReservationsForRestaurant(id, after, limit);
+            if (request.checkNotModified(responseCache.contentTag(page))) {
+                return null;
+            }
             
-            return ResponseEntity.ok(reservationDtos);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Restaurant not found with ID: {}", id);
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+    
+    /**
+     * Stream reservation changes for a restaurant as Server-Sent Events
+     * @param id The restaurant ID
+     * @param lastEventId Resume token sent by EventSource when it reconnects
+     * @param after Resume token for clients that cannot set headers
+     * @return The event stream
+     */
+    @Operation(summary = "Stream reservation changes for restaurant", description = "Server-Sent Events stream of reservations created, used and cancelled at the specified restaurant. "
+            + "Each event carries a JSON array of reservations and an id to resume from after a reconnect. "
+            + "A reset event means missed changes are no longer available and the active list must be reloaded.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "Restaurant not found")
+    })
+    @GetMapping(value = "/{id}/reservations/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReservationChanges(
+            @Parameter(description = "ID of the restaurant") @PathVariable Long id,
+            @Parameter(description = "Id of the last event received") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "Id of the last event received, when the header cannot be set") @RequestParam(required = false) String after) {
+        logger.info("Request to stream reservation changes for restaurant with ID: {}", id);
+        
+        try {
+            restaurantService.getRestaurantById(id);
         } catch (ResourceNotFoundException e) {
             logger.warn("Restaurant not found with ID: {}", id);
             return ResponseEntity.notFound().build();
         }
+        
+        return ResponseEntity.ok()
+                // Stop buffering proxies from holding events back
+                .header("X-Accel-Buffering", "no")
+                .body(reservationFeed.subscribe(id, lastEventId != null ? lastEventId : after));
     }
-} 
\ No newline at end of file
+}
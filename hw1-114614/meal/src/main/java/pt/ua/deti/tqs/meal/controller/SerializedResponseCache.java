@@ -0,0 +1,179 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import pt.ua.deti.tqs.meal.controller.dto.SerializedResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response-level cache for hot JSON reads.
+ * Bodies are rendered with the application's ObjectMapper once per content version and kept as
+ * ready-to-write bytes, plain and gzip-compressed, keyed by endpoint and parameters. A cached body
+ * is only served while its version matches the current one from {@link pt.ua.deti.tqs.meal.service.ContentVersions},
+ * so it follows the same invalidation signals as the service caches. Hits write the stored bytes
+ * as they are: no service call, no Jackson, no compression.
+ * <p>
+ * Versions are local to each node; the ETag sent to clients is a hash of the JSON bytes instead
+ * (see {@link #contentTag(Object)}), so a copy fetched from one replica is still current on another.
+ */
+@Component
+public class SerializedResponseCache {
+
+    public static final String CACHE_NAME = "serializedResponses";
+
+    private static final String GZIP = "gzip";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${meal.web.response-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Answer a JSON read from the cached rendering of its current version
+     * @param request The request, for If-None-Match and Accept-Encoding
+     * @param key Endpoint and parameters
+     * @param version Version of the current content
+     * @param body Computes the body when no rendering of this version is cached
+     * @return The response, or null when the client's copy is current (304 already set)
+     */
+    public ResponseEntity<byte[]> respond(WebRequest request, String key, String version, Supplier<?> body) {
+        SerializedResponse serialized = lookup(key, version);
+        if (serialized == null) {
+            serialized = render(version, body.get());
+            store(key, serialized);
+        }
+
+        boolean gzip = acceptsGzip(request);
+        // The compressed bytes are another representation, with their own strong ETag
+        if (request.checkNotModified(gzip ? serialized.getEtag() + "-" + GZIP : serialized.getEtag())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(serialized.getGzip());
+        }
+        return response.body(serialized.getJson());
+    }
+
+    /**
+     * ETag of a body that is not kept here: a hash of its JSON rendering
+     * @param body The body
+     * @return The tag, the same on every node for the same content
+     */
+    public String contentTag(Object body) {
+        return contentTag(write(body));
+    }
+
+    private SerializedResponse lookup(String key, String version) {
+        Cache cache = enabled ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache == null) {
+            return null;
+        }
+        SerializedResponse cached = cache.get(key, SerializedResponse.class);
+        // Renderings of older versions are simply replaced
+        return cached != null && cached.getVersion().equals(version) ? cached : null;
+    }
+
+    private void store(String key, SerializedResponse serialized) {
+        Cache cache = enabled ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache != null) {
+            cache.put(key, serialized);
+        }
+    }
+
+    private SerializedResponse render(String version, Object body) {
+        byte[] json = write(body);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SerializedResponse(version, contentTag(json), json, compressed.toByteArray());
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render response body", e);
+        }
+    }
+
+    private static String contentTag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip: a gzip (or x-gzip) entry decides, otherwise a "*" entry does;
+     * either one with q=0, or a malformed quality, refuses it
+     * @param request The request
+     * @return true if the gzip body may be sent
+     */
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals(GZIP) || coding.equals("x-" + GZIP)) {
+                gzipQuality = Math.max(gzipQuality == null ? 0 : gzipQuality, quality(parts));
+            } else if (coding.equals("*")) {
+                anyQuality = quality(parts);
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    double quality = Double.parseDouble(parameter.substring(2).trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
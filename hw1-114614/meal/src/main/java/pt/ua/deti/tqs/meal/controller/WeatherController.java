@@ -15,7 +15,9 @@ import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
 
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/weather")
@@ -60,17 +62,29 @@ public class WeatherController {
     ) {
         logger.info("Request to get weather forecast for the next {} days", days);
         
-        if (days <= 0 || days > 10) {
-            return ResponseEntity.badRequest().body("Days must be between 1 and 10");
+        if (days <= 0 || days > WeatherService.FORECAST_HORIZON_DAYS) {
+            return ResponseEntity.badRequest().body("Days must be between 1 and " + WeatherService.FORECAST_HORIZON_DAYS);
         }
         
+        LocalDate today = LocalDate.now();
+        Set<LocalDate> dates = new HashSet<>();
+        for (int i = 0; i < days; i++) {
+            dates.add(today.plusDays(i));
+        }
+        
+        return ResponseEntity.ok(multiDayForecastBody(weatherService.getForecastForDates(dates)));
+    }
+    
+    /**
+     * Build the multi-day forecast body, shared with the reactive read path
+     * @param forecastsByDate Forecasts to include
+     * @return Body of the form {"forecasts": {"2025-04-01": {...}}}
+     */
+    static Map<String, Object> multiDayForecastBody(Map<LocalDate, WeatherForecast> forecastsByDate) {
         Map<String, Object> response = new HashMap<>();
         Map<String, Object> forecasts = new HashMap<>();
         
-        LocalDate today = LocalDate.now();
-        for (int i = 0; i < days; i++) {
-            LocalDate date = today.plusDays(i);
-            WeatherForecast forecast = weatherService.getForecastForDate(date);
+        forecastsByDate.forEach((date, forecast) -> {
             
             Map<String, Object> forecastData = new HashMap<>();
             forecastData.put("description", forecast.getDescription());
@@ -79,11 +93,10 @@ public class WeatherController {
             forecastData.put("precipitationProbability", forecast.getPrecipitationProbability());
             
             forecasts.put(date.toString(), forecastData);
-        }
+        });
         
         response.put("forecasts", forecasts);
-        
-        return ResponseEntity.ok(response);
+        return response;
     }
     
     /**
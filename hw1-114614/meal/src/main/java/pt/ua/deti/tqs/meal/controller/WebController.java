@@ -12,6 +12,7 @@ import pt.ua.deti.tqs.meal.domain.Meal;
 import pt.ua.deti.tqs.meal.domain.Reservation;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.service.ConcurrentLookups;
 import pt.ua.deti.tqs.meal.service.MealService;
 import pt.ua.deti.tqs.meal.service.ReservationService;
 import pt.ua.deti.tqs.meal.service.RestaurantService;
@@ -21,6 +22,7 @@ import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Controller
@@ -40,6 +42,9 @@ public class WebController {
     @Autowired
     private WeatherService weatherService;
     
+    @Autowired
+    private ConcurrentLookups lookups;
+    
     @GetMapping("/")
     public String home(Model model) {
         logger.info("Home page requested");
@@ -55,11 +60,30 @@ public class WebController {
         logger.info("Restaurant detail page requested for ID: {}", id);
         
         try {
-            Restaurant restaurant = restaurantService.getRestaurantById(id);
-            model.addAttribute("restaurant", restaurant);
-            
             int days = 7; // Show meals for the next 7 days
-            List<Meal> meals = mealService.getMealsForRestaurant(id, days);
+            Restaurant restaurant;
+            List<Meal> meals;
+            Map<LocalDate, WeatherForecast> weatherForecasts;
+            if (lookups.isEnabled()) {
+                // Restaurant, menu and forecasts do not depend on each other; forecasts cover the
+                // horizon and are then completed for the dates that have meals
+                try (ConcurrentLookups.Scope scope = lookups.open()) {
+                    Supplier<Restaurant> restaurantLookup = scope.fork(() -> restaurantService.getRestaurantById(id));
+                    Supplier<List<Meal>> mealLookup = scope.fork(() -> mealService.getMealsForRestaurant(id, days));
+                    Supplier<Map<LocalDate, WeatherForecast>> forecastLookup = scope.fork(
+                            () -> weatherService.getForecastForDates(WeatherService.forecastWindow(days)));
+                    scope.join();
+                    restaurant = restaurantLookup.get();
+                    meals = mealLookup.get();
+                    weatherForecasts = MealController.mealForecasts(weatherService, forecastLookup.get(), meals);
+                }
+            } else {
+                restaurant = restaurantService.getRestaurantById(id);
+                meals = mealService.getMealsForRestaurant(id, days);
+                weatherForecasts = weatherService.getForecastForDates(
+                        meals.stream().map(Meal::getAvailableDate).collect(Collectors.toSet()));
+            }
+            model.addAttribute("restaurant", restaurant);
             
             // Group meals by date
             Map<LocalDate, List<Meal>> mealsByDate = meals.stream()
@@ -69,10 +93,6 @@ public class WebController {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEEE, d MMMM", Locale.ENGLISH);
             Map<String, List<Meal>> formattedMeals = new LinkedHashMap<>();
             
-            // Get weather forecasts for the dates
-            Map<LocalDate, WeatherForecast> weatherForecasts = weatherService.getForecastForDates(
-                    mealsByDate.keySet());
-            
             // Sort dates and format for display
             mealsByDate.keySet().stream()
                     .sorted()
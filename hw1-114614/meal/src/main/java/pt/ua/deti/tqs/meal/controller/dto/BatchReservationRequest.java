@@ -0,0 +1,60 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Request to reserve several meals at once")
+public class BatchReservationRequest {
+    @Schema(description = "Meals to reserve and how many reservations of each")
+    private List<Item> items = new ArrayList<>();
+
+    public BatchReservationRequest() {
+    }
+
+    public BatchReservationRequest(List<Item> items) {
+        this.items = items;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    @Schema(description = "Number of reservations for one meal")
+    public static class Item {
+        @Schema(description = "ID of the meal to reserve", example = "42")
+        private Long mealId;
+
+        @Schema(description = "Number of reservations to create", example = "3")
+        private int quantity = 1;
+
+        public Item() {
+        }
+
+        public Item(Long mealId, int quantity) {
+            this.mealId = mealId;
+            this.quantity = quantity;
+        }
+
+        public Long getMealId() {
+            return mealId;
+        }
+
+        public void setMealId(Long mealId) {
+            this.mealId = mealId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
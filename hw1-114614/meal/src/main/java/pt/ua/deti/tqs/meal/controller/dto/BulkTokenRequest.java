@@ -0,0 +1,27 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Reservation codes to look up or check in at once, e.g. scanned at the door while offline")
+public class BulkTokenRequest {
+    @Schema(description = "Reservation codes, in scan order", example = "[\"3KQ7Z0M4X\", \"8BT2WQ9NC\"]")
+    private List<String> tokens = new ArrayList<>();
+
+    public BulkTokenRequest() {
+    }
+
+    public BulkTokenRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
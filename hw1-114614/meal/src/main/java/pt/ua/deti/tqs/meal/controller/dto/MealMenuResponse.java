@@ -0,0 +1,111 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Normalized menu of one restaurant: the restaurant once, then one entry per date
+ * carrying that date's forecast once and the meals served on it.
+ */
+public class MealMenuResponse {
+    private final Restaurant restaurant;
+    private final List<Day> days;
+
+    public MealMenuResponse(Restaurant restaurant, List<Day> days) {
+        this.restaurant = restaurant;
+        this.days = days;
+    }
+
+    /**
+     * Group meals by date
+     * @param restaurant The restaurant serving the meals
+     * @param meals The meals, in any order
+     * @param forecasts Forecasts by date; dates without one get a null weather
+     * @return The menu, dates in ascending order
+     */
+    public static MealMenuResponse of(Restaurant restaurant, List<Meal> meals, Map<LocalDate, WeatherForecast> forecasts) {
+        Map<LocalDate, List<Item>> mealsByDate = new TreeMap<>();
+        for (Meal meal : meals) {
+            mealsByDate.computeIfAbsent(meal.getAvailableDate(), date -> new ArrayList<>()).add(new Item(meal));
+        }
+
+        List<Day> days = new ArrayList<>(mealsByDate.size());
+        mealsByDate.forEach((date, items) -> days.add(new Day(date, forecasts.get(date), items)));
+        return new MealMenuResponse(restaurant, days);
+    }
+
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public static class Day {
+        private final LocalDate date;
+        private final WeatherForecast weather;
+        private final List<Item> meals;
+
+        public Day(LocalDate date, WeatherForecast weather, List<Item> meals) {
+            this.date = date;
+            this.weather = weather;
+            this.meals = meals;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public WeatherForecast getWeather() {
+            return weather;
+        }
+
+        public List<Item> getMeals() {
+            return meals;
+        }
+    }
+
+    public static class Item {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Integer capacity;
+        private final Integer remainingSeats;
+
+        public Item(Meal meal) {
+            this.id = meal.getId();
+            this.name = meal.getName();
+            this.description = meal.getDescription();
+            this.capacity = meal.getCapacity();
+            this.remainingSeats = meal.getRemainingSeats();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Integer getCapacity() {
+            return capacity;
+        }
+
+        public Integer getRemainingSeats() {
+            return remainingSeats;
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class MealResponse {
     private Long restaurantId;
     private String restaurantName;
     private String restaurantDescription;
+    private Integer capacity;
+    private Integer remainingSeats;
     private WeatherForecast weather;
 
     public MealResponse(Meal meal, WeatherForecast weather) {
@@ -20,6 +22,8 @@ public class MealResponse {
         this.name = meal.getName();
         this.description = meal.getDescription();
         this.date = meal.getAvailableDate();
+        this.capacity = meal.getCapacity();
+        this.remainingSeats = meal.getRemainingSeats();
         
         if (meal.getRestaurant() != null) {
             this.restaurantId = meal.getRestaurant().getId();
@@ -58,6 +62,14 @@ public class MealResponse {
         return restaurantDescription;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public Integer getRemainingSeats() {
+        return remainingSeats;
+    }
+
     public WeatherForecast getWeather() {
         return weather;
     }
@@ -1,5 +1,6 @@
 package pt.ua.deti.tqs.meal.controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import pt.ua.deti.tqs.meal.domain.Reservation;
 
@@ -7,6 +8,10 @@ import java.time.LocalDateTime;
 
 @Schema(description = "Reservation Data Transfer Object")
 public class ReservationDto {
+    // Only used as the keyset cursor tie-breaker, never exposed to clients
+    @JsonIgnore
+    private Long id;
+
     @Schema(description = "Unique reservation token", example = "ABC123XYZ")
     private String token;
     
@@ -29,7 +34,19 @@ public class ReservationDto {
     public ReservationDto() {
     }
 
+    public ReservationDto(Long id, String token, LocalDateTime createdAt, boolean used,
+                          Long mealId, String mealName, String restaurantName) {
+        this.id = id;
+        this.token = token;
+        this.createdAt = createdAt;
+        this.used = used;
+        this.mealId = mealId;
+        this.mealName = mealName;
+        this.restaurantName = restaurantName;
+    }
+
     public ReservationDto(Reservation reservation) {
+        this.id = reservation.getId();
         this.token = reservation.getToken();
         this.createdAt = reservation.getCreatedAt();
         this.used = reservation.isUsed();
@@ -44,6 +61,11 @@ public class ReservationDto {
         }
     }
 
+    @JsonIgnore
+    public Long getId() {
+        return id;
+    }
+
     public String getToken() {
         return token;
     }
@@ -0,0 +1,31 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of active reservations
+ */
+public class ReservationPage {
+    private final List<ReservationDto> items;
+    private final String nextCursor;
+
+    public ReservationPage(List<ReservationDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ReservationDto> getItems() {
+        return items;
+    }
+
+    /**
+     * @return Cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
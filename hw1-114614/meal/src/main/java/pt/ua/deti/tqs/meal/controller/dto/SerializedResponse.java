@@ -0,0 +1,42 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+/**
+ * A JSON body rendered once, kept as plain and gzip-compressed bytes together with the
+ * version of the content it was rendered from and the ETag derived from those bytes.
+ */
+public class SerializedResponse {
+    private final String version;
+    private final String etag;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    public SerializedResponse(String version, String etag, byte[] json, byte[] gzip) {
+        this.version = version;
+        this.etag = etag;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * @return Size of both renderings in kilobytes, for weighing cache entries
+     */
+    public int getSizeKb() {
+        return (json.length + gzip.length) / 1024 + 1;
+    }
+}
@@ -0,0 +1,43 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome for one code of a bulk lookup or check-in")
+public class TokenResult {
+
+    public enum Status {
+        // Active reservation (lookup) or checked in by this request (check-in)
+        OK,
+        // The reservation had already been used
+        ALREADY_USED,
+        // No reservation has this code
+        UNKNOWN
+    }
+
+    @Schema(description = "The code as sent")
+    private final String token;
+
+    @Schema(description = "Outcome for this code")
+    private final Status status;
+
+    @Schema(description = "The reservation, absent for unknown codes")
+    private final ReservationDto reservation;
+
+    public TokenResult(String token, Status status, ReservationDto reservation) {
+        this.token = token;
+        this.status = status;
+        this.reservation = reservation;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public ReservationDto getReservation() {
+        return reservation;
+    }
+}
@@ -0,0 +1,68 @@
+package pt.ua.deti.tqs.meal.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import pt.ua.deti.tqs.meal.domain.WaitlistEntry;
+import pt.ua.deti.tqs.meal.domain.WaitlistStatus;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Waitlist entry for a fully booked meal")
+public class WaitlistEntryDto {
+    @Schema(description = "Waitlist token; becomes the reservation token once promoted", example = "3KQ7Z0M4X")
+    private String token;
+    
+    @Schema(description = "Timestamp when the entry was created", example = "2023-05-15T14:30:00")
+    private LocalDateTime createdAt;
+    
+    @Schema(description = "Entry status", example = "WAITING")
+    private WaitlistStatus status;
+    
+    @Schema(description = "1-based position in the waitlist, 0 when no longer waiting", example = "3")
+    private long position;
+    
+    @Schema(description = "ID of the meal", example = "42")
+    private Long mealId;
+    
+    @Schema(description = "Name of the meal", example = "Vegetarian Pasta")
+    private String mealName;
+    
+    // Default constructor for JSON deserialization
+    public WaitlistEntryDto() {
+    }
+    
+    public WaitlistEntryDto(WaitlistEntry entry, long position) {
+        this.token = entry.getToken();
+        this.createdAt = entry.getCreatedAt();
+        this.status = entry.getStatus();
+        this.position = position;
+        
+        if (entry.getMeal() != null) {
+            this.mealId = entry.getMeal().getId();
+            this.mealName = entry.getMeal().getName();
+        }
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+    
+    public long getPosition() {
+        return position;
+    }
+    
+    public Long getMealId() {
+        return mealId;
+    }
+    
+    public String getMealName() {
+        return mealName;
+    }
+}
@@ -0,0 +1,71 @@
+package pt.ua.deti.tqs.meal.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Last forecast the weather provider returned for a date, served while the provider is unavailable
+@Entity
+@Table(name = "weather_forecasts")
+public class ForecastSnapshot {
+    @Id
+    private LocalDate forecastDate;
+    private String description;
+    private Double minTemperature;
+    private Double maxTemperature;
+    private String precipitationProbability;
+    private LocalDateTime fetchedAt;
+    
+    public ForecastSnapshot() {
+    
+    }
+    
+    public LocalDate getForecastDate() {
+        return forecastDate;
+    }
+    
+    public void setForecastDate(LocalDate forecastDate) {
+        this.forecastDate = forecastDate;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public Double getMinTemperature() {
+        return minTemperature;
+    }
+    
+    public void setMinTemperature(Double minTemperature) {
+        this.minTemperature = minTemperature;
+    }
+    
+    public Double getMaxTemperature() {
+        return maxTemperature;
+    }
+    
+    public void setMaxTemperature(Double maxTemperature) {
+        this.maxTemperature = maxTemperature;
+    }
+    
+    public String getPrecipitationProbability() {
+        return precipitationProbability;
+    }
+    
+    public void setPrecipitationProbability(String precipitationProbability) {
+        this.precipitationProbability = precipitationProbability;
+    }
+    
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+    
+    public void setFetchedAt(LocalDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+}
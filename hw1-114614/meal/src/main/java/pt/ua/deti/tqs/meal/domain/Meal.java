@@ -11,6 +11,9 @@ public class Meal {
     private String name;
     private String description;
     private LocalDate availableDate;
+    // Both null for meals without a seat limit
+    private Integer capacity;
+    private Integer remainingSeats;
 
     @ManyToOne
     private Restaurant restaurant;
@@ -58,6 +61,32 @@ public class Meal {
         this.availableDate = availableDate;
     }
     
+    public Integer getCapacity() {
+        return capacity;
+    }
+    
+    // A new seat limit starts with every seat free; see MealService.setCapacity for meals already on sale
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+        if (capacity == null) {
+            this.remainingSeats = null;
+        } else if (remainingSeats == null) {
+            this.remainingSeats = capacity;
+        }
+    }
+    
+    public Integer getRemainingSeats() {
+        return remainingSeats;
+    }
+    
+    public void setRemainingSeats(Integer remainingSeats) {
+        this.remainingSeats = remainingSeats;
+    }
+    
+    public boolean hasLimitedCapacity() {
+        return capacity != null;
+    }
+    
     public Restaurant getRestaurant() {
         return restaurant;
     }
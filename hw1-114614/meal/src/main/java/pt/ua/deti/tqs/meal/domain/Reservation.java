@@ -6,8 +6,13 @@ import java.time.LocalDateTime;
 
 @Entity
 public class Reservation {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+    @SequenceGenerator(name = "reservation_seq", sequenceName = "reservation_seq", allocationSize = 50)
     private Long id;
+    @Convert(converter = ReservationTokenConverter.class)
+    @Column(unique = true, nullable = false)
     private String token;
     private LocalDateTime createdAt;
     private boolean used;
@@ -0,0 +1,139 @@
+package pt.ua.deti.tqs.meal.domain;
+
+import java.util.Locale;
+
+/**
+ * Codec between the numeric value of a reservation token (stored as BIGINT) and the
+ * code shown to customers: 8 Crockford base32 characters (40 bits) followed by a
+ * Luhn mod 32 check character, e.g. {@code 3KQ7Z0M4X}.
+ *
+ * Tokens issued before the numeric format were 8 uppercase hex characters. They are
+ * stored with {@link #LEGACY_FLAG} set so both formats share the column without overlap.
+ */
+public final class ReservationToken {
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int BASE = ALPHABET.length();
+    private static final int PAYLOAD_LENGTH = 8;
+    private static final int LEGACY_LENGTH = 8;
+
+    public static final int LENGTH = PAYLOAD_LENGTH + 1;
+    public static final long MAX_VALUE = (1L << (5 * PAYLOAD_LENGTH)) - 1;
+    public static final long LEGACY_FLAG = 1L << (5 * PAYLOAD_LENGTH);
+
+    private ReservationToken() {
+    }
+
+    /**
+     * Encode a token value as a customer-facing code
+     * @param value Token value
+     * @return The code
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    public static String encode(long value) {
+        if ((value & LEGACY_FLAG) != 0 && (value & ~(LEGACY_FLAG | 0xFFFFFFFFL)) == 0) {
+            return String.format("%08X", value & 0xFFFFFFFFL);
+        }
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Token value out of range: " + value);
+        }
+        
+        char[] payload = new char[PAYLOAD_LENGTH];
+        long remaining = value;
+        for (int i = PAYLOAD_LENGTH - 1; i >= 0; i--) {
+            payload[i] = ALPHABET.charAt((int) (remaining & (BASE - 1)));
+            remaining >>>= 5;
+        }
+        
+        String code = new String(payload);
+        return code + checkCharacter(code);
+    }
+
+    /**
+     * Decode a customer-facing code. Lowercase and the Crockford look-alikes
+     * (O for 0, I and L for 1) are accepted.
+     * @param token The code
+     * @return Token value
+     * @throws IllegalArgumentException if the code is malformed or the check character does not match
+     */
+    public static long decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Token is null");
+        }
+        if (token.length() == LEGACY_LENGTH && isHex(token)) {
+            return LEGACY_FLAG | Long.parseLong(token, 16);
+        }
+        if (token.length() != LENGTH) {
+            throw new IllegalArgumentException("Invalid token length: " + token);
+        }
+        
+        String normalized = normalize(token);
+        String payload = normalized.substring(0, PAYLOAD_LENGTH);
+        long value = 0;
+        for (int i = 0; i < PAYLOAD_LENGTH; i++) {
+            int digit = ALPHABET.indexOf(payload.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid token character: " + token);
+            }
+            value = (value << 5) | digit;
+        }
+        
+        if (normalized.charAt(PAYLOAD_LENGTH) != checkCharacter(payload)) {
+            throw new IllegalArgumentException("Invalid token check character: " + token);
+        }
+        return value;
+    }
+
+    /**
+     * The code as issued, for a code typed in any accepted spelling
+     * @param token The code
+     * @return The canonical code
+     * @throws IllegalArgumentException if the code is malformed
+     */
+    public static String canonical(String token) {
+        return encode(decode(token));
+    }
+
+    /**
+     * Check whether a string is a well-formed token, without touching the database
+     * @param token The code
+     * @return true if the code decodes
+     */
+    public static boolean isValid(String token) {
+        try {
+            decode(token);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String normalize(String token) {
+        return token.toUpperCase(Locale.ROOT)
+                .replace('O', '0')
+                .replace('I', '1')
+                .replace('L', '1');
+    }
+
+    private static boolean isHex(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.digit(token.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Luhn mod N check character; catches any single substitution and most adjacent transpositions
+     */
+    private static char checkCharacter(String payload) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int addend = factor * ALPHABET.indexOf(payload.charAt(i));
+            factor = (factor == 2) ? 1 : 2;
+            sum += (addend / BASE) + (addend % BASE);
+        }
+        return ALPHABET.charAt((BASE - (sum % BASE)) % BASE);
+    }
+}
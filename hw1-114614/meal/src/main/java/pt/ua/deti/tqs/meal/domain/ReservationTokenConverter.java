@@ -0,0 +1,21 @@
+package pt.ua.deti.tqs.meal.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores reservation tokens as BIGINT while the rest of the application keeps using the code string
+ */
+@Converter
+public class ReservationTokenConverter implements AttributeConverter<String, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(String token) {
+        return token == null ? null : ReservationToken.decode(token);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long value) {
+        return value == null ? null : ReservationToken.encode(value);
+    }
+}
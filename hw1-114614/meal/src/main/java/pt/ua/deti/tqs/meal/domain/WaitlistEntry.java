@@ -0,0 +1,65 @@
+package pt.ua.deti.tqs.meal.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "waitlist_entries")
+public class WaitlistEntry {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    // Becomes the reservation token when the entry is promoted
+    @Convert(converter = ReservationTokenConverter.class)
+    @Column(unique = true, nullable = false)
+    private String token;
+    private LocalDateTime createdAt;
+    @Enumerated(EnumType.STRING)
+    private WaitlistStatus status;
+    @ManyToOne
+    private Meal meal;
+    
+    public WaitlistEntry() {
+    
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public void setToken(String token) {
+        this.token = token;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(WaitlistStatus status) {
+        this.status = status;
+    }
+    
+    public Meal getMeal() {
+        return meal;
+    }
+    
+    public void setMeal(Meal meal) {
+        this.meal = meal;
+    }
+}
@@ -0,0 +1,7 @@
+package pt.ua.deti.tqs.meal.domain;
+
+public enum WaitlistStatus {
+    WAITING,
+    PROMOTED,
+    CANCELLED
+}
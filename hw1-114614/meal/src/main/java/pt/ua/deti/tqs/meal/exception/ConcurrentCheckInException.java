@@ -0,0 +1,12 @@
+package pt.ua.deti.tqs.meal.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConcurrentCheckInException extends RuntimeException {
+    
+    public ConcurrentCheckInException() {
+        super("Some reservations were checked in concurrently, nothing was changed; retry the batch");
+    }
+}
@@ -0,0 +1,12 @@
+package pt.ua.deti.tqs.meal.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInFlightException extends RuntimeException {
+    
+    public IdempotencyKeyInFlightException(String key) {
+        super(String.format("A request with idempotency key '%s' is still being processed", key));
+    }
+}
@@ -0,0 +1,12 @@
+package pt.ua.deti.tqs.meal.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class MealFullyBookedException extends RuntimeException {
+    
+    public MealFullyBookedException(Long mealId) {
+        super(String.format("Meal with id '%s' is fully booked", mealId));
+    }
+}
@@ -0,0 +1,12 @@
+package pt.ua.deti.tqs.meal.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RequestDeadlineExceededException extends RuntimeException {
+    
+    public RequestDeadlineExceededException(long deadlineMs) {
+        super(String.format("Request did not complete within %d ms", deadlineMs));
+    }
+}
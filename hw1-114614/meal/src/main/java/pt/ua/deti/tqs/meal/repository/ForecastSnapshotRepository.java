@@ -0,0 +1,17 @@
+package pt.ua.deti.tqs.meal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import pt.ua.deti.tqs.meal.domain.ForecastSnapshot;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ForecastSnapshotRepository extends JpaRepository<ForecastSnapshot, LocalDate> {
+    List<ForecastSnapshot> findByForecastDateIn(Collection<LocalDate> dates);
+    List<ForecastSnapshot> findByForecastDateGreaterThanEqual(LocalDate from);
+    
+    @Transactional
+    void deleteByForecastDateBefore(LocalDate date);
+}
@@ -0,0 +1,78 @@
+package pt.ua.deti.tqs.meal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pt.ua.deti.tqs.meal.domain.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claim a key with a plain insert (save would merge into an existing row), so only one node can own it
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already claimed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_fingerprint, completed, owner_id, "
+            + "lease_expires_at, created_at, expires_at) "
+            + "VALUES (:key, :fingerprint, false, :owner, :leaseExpiresAt, :createdAt, :expiresAt)", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("fingerprint") String fingerprint,
+              @Param("owner") String owner,
+              @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+              @Param("createdAt") LocalDateTime createdAt,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Extend the lease of a claim still running
+     * @return 1 if renewed, 0 if the claim is no longer held by the owner
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.leaseExpiresAt = :leaseExpiresAt "
+            + "WHERE r.idempotencyKey = :key AND r.ownerId = :owner AND r.completed = false")
+    int renewLease(@Param("key") String key,
+                   @Param("owner") String owner,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * Store the response of a claimed key
+     * @return 1 if stored, 0 if the claim was taken over in the meantime
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.completed = true, r.responseStatus = :status, r.contentType = :contentType, "
+            + "r.responseBody = :body WHERE r.idempotencyKey = :key AND r.ownerId = :owner AND r.completed = false")
+    int complete(@Param("key") String key,
+                 @Param("owner") String owner,
+                 @Param("status") int status,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body);
+
+    /**
+     * Drop a claim whose request failed, unless its response was stored
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.ownerId = :owner AND r.completed = false")
+    int release(@Param("key") String key, @Param("owner") String owner);
+
+    /**
+     * Drop one owner's claim of a key if it is over: its response expired, or its lease lapsed before it
+     * completed. A newer claim of the key has another owner and is left alone.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.ownerId = :owner "
+            + "AND ((r.completed = true AND r.expiresAt < :now) OR (r.completed = false AND r.leaseExpiresAt < :now))")
+    int deleteStale(@Param("key") String key, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,7 +1,65 @@
 package pt.ua.deti.tqs.meal.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pt.ua.deti.tqs.meal.domain.Meal;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 public interface MealRepository extends JpaRepository<Meal, Long> {
+    List<Meal> findByRestaurantIdAndAvailableDateBetweenOrderByAvailableDateAsc(Long restaurantId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Read a meal and lock its row until the transaction ends. Joining the waitlist and freeing a seat
+     * both take it, so a freed seat can never miss an entry that is being added to the waitlist.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Meal m WHERE m.id = :mealId")
+    Optional<Meal> findByIdForUpdate(@Param("mealId") Long mealId);
+
+    /**
+     * Take seats only if enough remain; the conditional update is atomic, so concurrent
+     * callers can never oversell and no read-then-write lock is needed.
+     * @return 1 if the seats were taken, 0 if not enough remain (or the meal has no seat limit)
+     */
+    @Modifying
+    @Query("UPDATE Meal m SET m.remainingSeats = m.remainingSeats - :seats "
+            + "WHERE m.id = :mealId AND m.remainingSeats >= :seats")
+    int reserveSeats(@Param("mealId") Long mealId, @Param("seats") int seats);
+
+    @Modifying
+    @Query("UPDATE Meal m SET m.remainingSeats = m.remainingSeats + :seats "
+            + "WHERE m.id = :mealId AND m.remainingSeats IS NOT NULL")
+    int releaseSeats(@Param("mealId") Long mealId, @Param("seats") int seats);
+
+    /**
+     * Move the seat limit of a meal that has one, keeping the seats already taken; relative to the
+     * current row, so it stays correct alongside concurrent reservations
+     * @return 1 if changed, 0 if the meal has no seat limit or more seats are taken than the new capacity
+     */
+    @Modifying
+    @Query("UPDATE Meal m SET m.remainingSeats = m.remainingSeats + :capacity - m.capacity, m.capacity = :capacity "
+            + "WHERE m.id = :mealId AND m.capacity IS NOT NULL AND m.capacity - m.remainingSeats <= :capacity")
+    int changeCapacity(@Param("mealId") Long mealId, @Param("capacity") int capacity);
+
+    /**
+     * Give a seat limit to a meal without one, counting its existing reservations as taken seats
+     * @return 1 if limited, 0 if the meal already has a seat limit or more reservations than the capacity
+     */
+    @Modifying
+    @Query("UPDATE Meal m SET m.capacity = :capacity, "
+            + "m.remainingSeats = :capacity - CAST((SELECT COUNT(r) FROM Reservation r WHERE r.meal.id = :mealId) AS Integer) "
+            + "WHERE m.id = :mealId AND m.capacity IS NULL "
+            + "AND (SELECT COUNT(r) FROM Reservation r WHERE r.meal.id = :mealId) <= :capacity")
+    int limitCapacity(@Param("mealId") Long mealId, @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("UPDATE Meal m SET m.capacity = NULL, m.remainingSeats = NULL WHERE m.id = :mealId")
+    int removeCapacity(@Param("mealId") Long mealId);
 }
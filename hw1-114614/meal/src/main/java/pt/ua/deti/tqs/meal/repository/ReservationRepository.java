@@ -1,12 +1,76 @@
 package pt.ua.deti.tqs.meal.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
 import pt.ua.deti.tqs.meal.domain.Reservation;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    String ACTIVE_RESERVATION_DTO = "SELECT new pt.ua.deti.tqs.meal.controller.dto.ReservationDto("
+            + "r.id, r.token, r.createdAt, r.used, m.id, m.name, rest.name) "
+            + "FROM Reservation r JOIN r.meal m JOIN m.restaurant rest "
+            + "WHERE r.used = false ";
+    String AFTER_CURSOR = "AND (r.createdAt > :afterCreatedAt OR (r.createdAt = :afterCreatedAt AND r.id > :afterId)) ";
+    String KEYSET_ORDER = "ORDER BY r.createdAt, r.id";
+
     Optional<Reservation> findByToken(String token);
     List<Reservation> findByUsed(boolean used);
-}
\ No newline at end of file
+
+    /**
+     * Check in a reservation with one conditional update, so concurrent check-ins of the
+     * same token cannot both succeed.
+     * @return 1 if the reservation was checked in, 0 if it is unknown or already used
+     */
+    @Modifying
+    @Query("UPDATE Reservation r SET r.used = true WHERE r.token = :token AND r.used = false")
+    int markUsed(@Param("token") String token);
+
+    /**
+     * Resolve many tokens with one IN query, meals and restaurants fetched in the same join
+     * @return The reservations found, in no particular order
+     */
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.meal m JOIN FETCH m.restaurant WHERE r.token IN :tokens")
+    List<Reservation> findAllByTokenIn(@Param("tokens") Collection<String> tokens);
+
+    /**
+     * Check in many reservations with one conditional update.
+     * Clears the persistence context, so loaded entities are not written back by dirty checking.
+     * @return Number of reservations checked in; fewer than requested if some were used concurrently
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Reservation r SET r.used = true WHERE r.id IN :ids AND r.used = false")
+    int markAllUsed(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete a reservation only if it is still unused, so a concurrent check-in is never undone
+     * @return 1 if deleted, 0 if it was used or deleted meanwhile
+     */
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.id = :id AND r.used = false")
+    int deleteUnused(@Param("id") Long id);
+
+    @Query(ACTIVE_RESERVATION_DTO + KEYSET_ORDER)
+    List<ReservationDto> findActive(Limit limit);
+
+    @Query(ACTIVE_RESERVATION_DTO + AFTER_CURSOR + KEYSET_ORDER)
+    List<ReservationDto> findActiveAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                         @Param("afterId") Long afterId,
+                                         Limit limit);
+
+    @Query(ACTIVE_RESERVATION_DTO + "AND rest.id = :restaurantId " + KEYSET_ORDER)
+    List<ReservationDto> findActiveByRestaurantId(@Param("restaurantId") Long restaurantId, Limit limit);
+
+    @Query(ACTIVE_RESERVATION_DTO + "AND rest.id = :restaurantId " + AFTER_CURSOR + KEYSET_ORDER)
+    List<ReservationDto> findActiveByRestaurantIdAfter(@Param("restaurantId") Long restaurantId,
+                                                       @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                       @Param("afterId") Long afterId,
+                                                       Limit limit);
+}
@@ -0,0 +1,27 @@
+package pt.ua.deti.tqs.meal.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pt.ua.deti.tqs.meal.domain.WaitlistEntry;
+import pt.ua.deti.tqs.meal.domain.WaitlistStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    Optional<WaitlistEntry> findByToken(String token);
+    List<WaitlistEntry> findByMealIdAndStatusOrderByIdAsc(Long mealId, WaitlistStatus status, Limit limit);
+    long countByMealIdAndStatusAndIdLessThan(Long mealId, WaitlistStatus status, Long id);
+
+    /**
+     * Move an entry between states only if it is still in the expected one,
+     * so two concurrent promotions cannot both claim it
+     * @return 1 if the entry moved, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :to WHERE w.id = :id AND w.status = :from")
+    int transition(@Param("id") Long id, @Param("from") WaitlistStatus from, @Param("to") WaitlistStatus to);
+}
@@ -0,0 +1,31 @@
+package pt.ua.deti.tqs.meal.repository.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+
+import java.time.LocalDate;
+
+// A meal joined with its restaurant, as read by the R2DBC menu query; @Table marks it as an R2DBC type
+// so that the repository is not left to the JPA module
+@Table("meal")
+public record MealRow(@Id Long id, String name, String description, LocalDate availableDate,
+                      Integer capacity, Integer remainingSeats,
+                      Long restaurantId, String restaurantName, String restaurantDescription) {
+
+    public Meal toMeal() {
+        Restaurant restaurant = new Restaurant(restaurantName, restaurantDescription);
+        restaurant.setId(restaurantId);
+        
+        Meal meal = new Meal();
+        meal.setId(id);
+        meal.setName(name);
+        meal.setDescription(description);
+        meal.setAvailableDate(availableDate);
+        meal.setCapacity(capacity);
+        meal.setRemainingSeats(remainingSeats);
+        meal.setRestaurant(restaurant);
+        return meal;
+    }
+}
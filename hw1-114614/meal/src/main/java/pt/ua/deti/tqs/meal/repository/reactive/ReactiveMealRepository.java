@@ -0,0 +1,19 @@
+package pt.ua.deti.tqs.meal.repository.reactive;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+public interface ReactiveMealRepository extends Repository<MealRow, Long> {
+
+    // Same range scan on (restaurant_id, available_date) as the JPA menu query, joined with the restaurant
+    @Query("SELECT m.id, m.name, m.description, m.available_date, m.capacity, m.remaining_seats, "
+            + "r.id AS restaurant_id, r.name AS restaurant_name, r.description AS restaurant_description "
+            + "FROM meal m JOIN restaurant r ON r.id = m.restaurant_id "
+            + "WHERE m.restaurant_id = :restaurantId AND m.available_date BETWEEN :from AND :to "
+            + "ORDER BY m.available_date, m.id")
+    Flux<MealRow> findMenu(@Param("restaurantId") Long restaurantId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,6 @@
+package pt.ua.deti.tqs.meal.repository.reactive;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReactiveRestaurantRepository extends ReactiveCrudRepository<RestaurantRow, Long> {
+}
@@ -0,0 +1,16 @@
+package pt.ua.deti.tqs.meal.repository.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+
+// Read-only R2DBC view of the table the Restaurant entity is mapped to
+@Table("restaurant")
+public record RestaurantRow(@Id Long id, String name, String description) {
+
+    public Restaurant toRestaurant() {
+        Restaurant restaurant = new Restaurant(name, description);
+        restaurant.setId(id);
+        return restaurant;
+    }
+}
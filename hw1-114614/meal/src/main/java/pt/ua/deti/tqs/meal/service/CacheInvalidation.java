@@ -0,0 +1,152 @@
+package pt.ua.deti.tqs.meal.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A key-level cache change broadcast to the other nodes.
+ * Serialized as {@code TYPE|cache|restaurantId|key}, keys prefixed with their type
+ * (L = Long, S = String, D = LocalDate) so remote nodes rebuild an equal key.
+ */
+public final class CacheInvalidation {
+
+    public enum Type {
+        // Drop one key
+        EVICT,
+        // Drop every entry
+        CLEAR,
+        // Drop the active-reservation pages listing a reservation (key = reservation id)
+        EVICT_PAGES_LISTING,
+        // Drop the last active-reservation pages, where new reservations land
+        EVICT_LAST_PAGES,
+        // Drop several String keys (key = keys joined by commas)
+        EVICT_KEYS,
+        // Drop every active-reservation page of a restaurant, after a bulk change
+        EVICT_RESTAURANT_PAGES,
+        // Drop the cached menus of a restaurant, whose seat counts changed
+        EVICT_MENUS
+    }
+
+    // Keeps a message well below the 8000-byte NOTIFY payload limit for reservation tokens
+    static final int MAX_KEYS_PER_MESSAGE = 400;
+
+    private final Type type;
+    private final String cacheName;
+    private final Long restaurantId;
+    private final Object key;
+
+    private CacheInvalidation(Type type, String cacheName, Long restaurantId, Object key) {
+        this.type = type;
+        this.cacheName = cacheName;
+        this.restaurantId = restaurantId;
+        this.key = key;
+    }
+
+    /**
+     * @return An eviction of one key, or a clear of the whole cache if the key type cannot be sent
+     */
+    public static CacheInvalidation evict(String cacheName, Object key) {
+        if (!(key instanceof Long || key instanceof String || key instanceof LocalDate)) {
+            return clear(cacheName);
+        }
+        return new CacheInvalidation(Type.EVICT, cacheName, null, key);
+    }
+
+    /**
+     * @return Evictions of the given keys, several keys per message
+     */
+    public static List<CacheInvalidation> evictAll(String cacheName, List<String> keys) {
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_MESSAGE) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_MESSAGE, keys.size()));
+            invalidations.add(new CacheInvalidation(Type.EVICT_KEYS, cacheName, null, String.join(",", chunk)));
+        }
+        return invalidations;
+    }
+
+    public static CacheInvalidation clear(String cacheName) {
+        return new CacheInvalidation(Type.CLEAR, cacheName, null, null);
+    }
+
+    public static CacheInvalidation pagesListing(Long reservationId, Long restaurantId) {
+        return new CacheInvalidation(Type.EVICT_PAGES_LISTING, "", restaurantId, reservationId);
+    }
+
+    public static CacheInvalidation lastPages(Long restaurantId) {
+        return new CacheInvalidation(Type.EVICT_LAST_PAGES, "", restaurantId, null);
+    }
+
+    public static CacheInvalidation restaurantPages(Long restaurantId) {
+        return new CacheInvalidation(Type.EVICT_RESTAURANT_PAGES, "", restaurantId, null);
+    }
+
+    public static CacheInvalidation menus(Long restaurantId) {
+        return new CacheInvalidation(Type.EVICT_MENUS, "", restaurantId, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public String encode() {
+        return type + "|" + cacheName + "|" + (restaurantId == null ? "" : restaurantId) + "|" + encodeKey(key);
+    }
+
+    /**
+     * @param message An encoded invalidation
+     * @return The invalidation
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    public static CacheInvalidation decode(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cache invalidation: " + message);
+        }
+        Long restaurantId = parts[2].isEmpty() ? null : Long.valueOf(parts[2]);
+        return new CacheInvalidation(Type.valueOf(parts[0]), parts[1], restaurantId, decodeKey(parts[3]));
+    }
+
+    private static String encodeKey(Object key) {
+        if (key == null) {
+            return "";
+        }
+        if (key instanceof Long) {
+            return "L" + key;
+        }
+        if (key instanceof LocalDate) {
+            return "D" + key;
+        }
+        return "S" + key;
+    }
+
+    private static Object decodeKey(String encoded) {
+        if (encoded.isEmpty()) {
+            return null;
+        }
+        String value = encoded.substring(1);
+        return switch (encoded.charAt(0)) {
+            case 'L' -> Long.valueOf(value);
+            case 'D' -> LocalDate.parse(value);
+            case 'S' -> value;
+            default -> throw new IllegalArgumentException("Unknown cache key type: " + encoded);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,131 @@
+package pt.ua.deti.tqs.meal.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the local Caffeine caches of all replicas consistent.
+ * Writers apply their change locally and publish it after commit; every other node
+ * applies the same key-level eviction when the message arrives, so caches stay hot
+ * and cross-node staleness is bounded by the transport latency.
+ */
+@Component
+public class CacheInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    // Identifies this node's own messages, which are already applied locally
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    
+    // Notified of every invalidation applied on this node, local or remote
+    private final List<Consumer<CacheInvalidation>> observers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @PostConstruct
+    void subscribe() {
+        transport.subscribe(this::receive, this::clearAll);
+    }
+
+    /**
+     * Broadcast a change to the other nodes. Call after the change committed
+     * @param invalidation The change, already applied to this node's caches
+     */
+    public void publish(CacheInvalidation invalidation) {
+        observers.forEach(observer -> observer.accept(invalidation));
+        try {
+            transport.send(nodeId + "|" + invalidation.encode());
+        } catch (RuntimeException e) {
+            // The local change stands; remote nodes fall back to their expiry policy
+            logger.error("Failed to publish cache invalidation {}: {}", invalidation, e.getMessage());
+        }
+    }
+
+    /**
+     * Evict a key on this node and on every other node. Call after the change committed
+     * @param cacheName The cache name
+     * @param key The key
+     */
+    public void evict(String cacheName, Object key) {
+        CacheInvalidation invalidation = CacheInvalidation.evict(cacheName, key);
+        apply(invalidation);
+        publish(invalidation);
+    }
+
+    /**
+     * Register a handler for invalidation types the bus cannot apply by itself (page evictions)
+     * @param listener Receives invalidations from other nodes
+     */
+    public void addListener(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Register an observer of every invalidation applied on this node, after it was applied
+     * @param observer Receives local invalidations when published and remote ones once applied
+     */
+    public void addObserver(Consumer<CacheInvalidation> observer) {
+        observers.add(observer);
+    }
+
+    void receive(String message) {
+        int separator = message.indexOf('|');
+        if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        
+        CacheInvalidation invalidation = CacheInvalidation.decode(message.substring(separator + 1));
+        logger.debug("Applying remote cache invalidation {}", invalidation);
+        apply(invalidation);
+        observers.forEach(observer -> observer.accept(invalidation));
+    }
+
+    private void apply(CacheInvalidation invalidation) {
+        switch (invalidation.getType()) {
+            case EVICT -> {
+                Cache cache = cacheManager.getCache(invalidation.getCacheName());
+                if (cache != null) {
+                    cache.evict(invalidation.getKey());
+                }
+            }
+            case EVICT_KEYS -> {
+                Cache cache = cacheManager.getCache(invalidation.getCacheName());
+                if (cache != null) {
+                    for (String key : ((String) invalidation.getKey()).split(",")) {
+                        cache.evict(key);
+                    }
+                }
+            }
+            case CLEAR -> {
+                Cache cache = cacheManager.getCache(invalidation.getCacheName());
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+            default -> listeners.forEach(listener -> listener.accept(invalidation));
+        }
+    }
+
+    private void clearAll() {
+        logger.warn("Cache invalidations may have been missed, clearing all local caches");
+        cacheManager.getCacheNames().forEach(name -> {
+            cacheManager.getCache(name).clear();
+            observers.forEach(observer -> observer.accept(CacheInvalidation.clear(name)));
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package pt.ua.deti.tqs.meal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-populates the restaurant, weekly menu and weather caches.
+ * Runs as an application runner, after the sample data is seeded, with the readiness state
+ * ({@code /actuator/health/readiness}) held at REFUSING_TRAFFIC until it is done, and again at
+ * midnight when "today" moves on. The nightly run keeps serving: cold menus are only slower.
+ */
+@Component
+@Order(2)
+public class CacheWarmer implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+    
+    // The menu shown on restaurant pages
+    static final int MENU_DAYS = 7;
+    
+    @Value("${meal.cache.warm-up.enabled:true}")
+    private boolean enabled;
+    
+    // Restaurants warmed at the same time
+    @Value("${meal.cache.warm-up.parallelism:4}")
+    private int parallelism;
+    
+    @Autowired
+    private RestaurantService restaurantService;
+    
+    @Autowired
+    private MealService mealService;
+    
+    @Autowired
+    private WeatherService weatherService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    // Shared by every run; loads are short, so idle workers are not worth keeping around
+    private ExecutorService executor;
+    
+    private volatile Map<String, Object> lastReport = Map.of();
+    
+    @PostConstruct
+    void init() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-warm-up");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            warmUp();
+        } finally {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+    
+    /**
+     * Re-warm for the new day; menus cached yesterday cover the wrong dates
+     */
+    @Scheduled(cron = "${meal.cache.warm-up.cron:0 0 0 * * *}")
+    public void warmUpForNewDay() {
+        if (!enabled) {
+            return;
+        }
+        
+        Cache menus = cacheManager.getCache(MealService.MENU_CACHE);
+        if (menus != null) {
+            menus.clear();
+        }
+        warmUp();
+    }
+    
+    /**
+     * Load all restaurants, each restaurant's menu for the next days in parallel, and the
+     * forecasts for every menu date in one bulk lookup. Failures are logged, never thrown,
+     * so a cold cache cannot keep the application from starting.
+     * @return Report of the run
+     */
+    public Map<String, Object> warmUp() {
+        long start = System.nanoTime();
+        AtomicInteger menus = new AtomicInteger();
+        AtomicInteger meals = new AtomicInteger();
+        Set<LocalDate> dates = ConcurrentHashMap.newKeySet();
+        int restaurantCount = 0;
+        int forecastCount = 0;
+        String error = null;
+        
+        try {
+            List<Restaurant> restaurants = restaurantService.getAllRestaurants();
+            restaurantCount = restaurants.size();
+            
+            CompletableFuture<?>[] loads = restaurants.stream()
+                    .map(restaurant -> CompletableFuture.runAsync(() -> {
+                        restaurantService.getRestaurantById(restaurant.getId());
+                        List<Meal> menu = mealService.getMealsForRestaurant(restaurant.getId(), MENU_DAYS);
+                        menu.forEach(meal -> dates.add(meal.getAvailableDate()));
+                        menus.incrementAndGet();
+                        meals.addAndGet(menu.size());
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(loads).join();
+            
+            forecastCount = dates.isEmpty() ? 0 : weatherService.getForecastForDates(dates).size();
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            logger.error("Cache warm-up failed: {}", error);
+        }
+        
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("completedAt", LocalDateTime.now().toString());
+        report.put("durationMs", durationMs);
+        report.put("restaurants", restaurantCount);
+        report.put("menus", menus.get());
+        report.put("meals", meals.get());
+        report.put("forecasts", forecastCount);
+        if (error != null) {
+            report.put("error", error);
+        }
+        lastReport = Collections.unmodifiableMap(report);
+        
+        logger.info("Cache warm-up loaded {} restaurants, {} menus ({} meals) and {} forecasts in {} ms",
+                restaurantCount, menus.get(), meals.get(), forecastCount, durationMs);
+        return lastReport;
+    }
+    
+    /**
+     * Get the report of the last warm-up
+     * @return Report, empty if no warm-up has run
+     */
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,150 @@
+package pt.ua.deti.tqs.meal.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive limit on concurrent requests, derived from observed latency (gradient algorithm).
+ * Latencies are averaged per window of samples and compared with a slowly moving long-term average:
+ * while requests are not slower than {@code tolerance} times the long-term latency the limit grows
+ * with its square root, once they are it shrinks in proportion to the slowdown. Each window moves the
+ * limit a fifth of the way to its new target, so single slow windows do not make it swing.
+ * The limit only grows while it is actually used, so a quiet period does not open it up.
+ * Part of the limit is kept for {@link Priority#CRITICAL} requests: normal requests are rejected
+ * once {@code 1 - criticalShare} of it is in use.
+ */
+public class ConcurrencyLimiter {
+
+    public enum Priority { CRITICAL, NORMAL }
+
+    // Long-term latency follows the windows with this weight, and drops faster after a recovery
+    private static final double LONG_TERM_WEIGHT = 0.05;
+    private static final double RECOVERY_DECAY = 0.95;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double tolerance;
+    private final double criticalShare;
+
+    private double limit;
+    private int inFlight;
+    private final long[] accepted = new long[Priority.values().length];
+    private final long[] rejected = new long[Priority.values().length];
+
+    // Current window
+    private int windowSamples;
+    private long windowRttNanos;
+    private int windowMaxInFlight;
+
+    private double longTermRttNanos;
+    private double lastRttNanos;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int windowSize, double tolerance, double criticalShare) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.tolerance = tolerance;
+        this.criticalShare = criticalShare;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Ask to start a request; every accepted request must be followed by {@link #onSample} or {@link #onDropped()}
+     * @param priority Priority of the request
+     * @return true if the request may run, false if it must be rejected
+     */
+    public synchronized boolean tryAcquire(Priority priority) {
+        if (inFlight >= admitted(priority)) {
+            rejected[priority.ordinal()]++;
+            return false;
+        }
+        inFlight++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        accepted[priority.ordinal()]++;
+        return true;
+    }
+
+    /**
+     * Finish an accepted request and record how long it took
+     * @param rttNanos Time from acceptance to completion
+     */
+    public synchronized void onSample(long rttNanos) {
+        inFlight--;
+        windowSamples++;
+        windowRttNanos += rttNanos;
+        if (windowSamples >= windowSize) {
+            adjust((double) windowRttNanos / windowSamples);
+            windowSamples = 0;
+            windowRttNanos = 0;
+            windowMaxInFlight = inFlight;
+        }
+    }
+
+    /**
+     * Finish an accepted request whose latency says nothing about load (it failed early)
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Limit, usage, latency estimates and accepted/rejected counts per priority
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", (int) limit);
+        stats.put("normalLimit", admitted(Priority.NORMAL));
+        stats.put("inFlight", inFlight);
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("longTermRttMs", longTermRttNanos / 1_000_000.0);
+        stats.put("lastWindowRttMs", lastRttNanos / 1_000_000.0);
+        for (Priority priority : Priority.values()) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("accepted", accepted[priority.ordinal()]);
+            counts.put("rejected", rejected[priority.ordinal()]);
+            stats.put(priority.name().toLowerCase(), counts);
+        }
+        return stats;
+    }
+
+    private int admitted(Priority priority) {
+        int current = (int) limit;
+        if (priority == Priority.CRITICAL) {
+            return current;
+        }
+        return Math.max(1, (int) (current * (1 - criticalShare)));
+    }
+
+    private void adjust(double rttNanos) {
+        lastRttNanos = rttNanos;
+        if (longTermRttNanos == 0) {
+            longTermRttNanos = rttNanos;
+        } else {
+            longTermRttNanos += (rttNanos - longTermRttNanos) * LONG_TERM_WEIGHT;
+            // After an overload the long-term average is inflated; let it catch up with the current latency
+            if (longTermRttNanos > 2 * rttNanos) {
+                longTermRttNanos *= RECOVERY_DECAY;
+            }
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longTermRttNanos / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        // Not enough traffic to tell whether a higher limit would be safe
+        if (target > limit && windowMaxInFlight < limit / 2) {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,162 @@
+package pt.ua.deti.tqs.meal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import pt.ua.deti.tqs.meal.exception.RequestDeadlineExceededException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent lookups of one request concurrently, in a scope: the request waits for
+ * all of them, the first failure cancels the others, and the whole scope has a deadline.
+ * Tasks run on a bounded pool of their own, so request fan-out cannot starve {@code @Async} work
+ * or grow without limit; when the pool and its queue are full a lookup runs on the request thread.
+ * <pre>
+ * try (ConcurrentLookups.Scope scope = lookups.open()) {
+ *     Supplier&lt;Restaurant&gt; restaurant = scope.fork(() -&gt; ...);
+ *     Supplier&lt;List&lt;Meal&gt;&gt; meals = scope.fork(() -&gt; ...);
+ *     scope.join();
+ *     ... restaurant.get(), meals.get()
+ * }
+ * </pre>
+ */
+@Component
+public class ConcurrentLookups {
+
+    // Opt-in: when false, handlers keep running their lookups one after another
+    @Value("${meal.web.parallel-lookups.enabled:false}")
+    private boolean enabled;
+
+    @Value("${meal.web.request-deadline-ms:3000}")
+    private long deadlineMs;
+
+    @Value("${meal.web.parallel-lookups.max-threads:32}")
+    private int maxThreads;
+
+    @Value("${meal.web.parallel-lookups.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("lookup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open a scope whose deadline starts now
+     * @return The scope; close it to cancel anything still running
+     */
+    public Scope open() {
+        return new Scope(executor, deadlineMs);
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final AsyncTaskExecutor executor;
+        private final long deadlineMs;
+        private final long deadline;
+        private final List<FutureTask<?>> tasks = new ArrayList<>();
+        private final LinkedBlockingQueue<FutureTask<?>> completed = new LinkedBlockingQueue<>();
+
+        Scope(AsyncTaskExecutor executor, long deadlineMs) {
+            this.executor = executor;
+            this.deadlineMs = deadlineMs;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        }
+
+        /**
+         * Start a lookup
+         * @param lookup The lookup
+         * @return Its result, readable after {@link #join()}
+         */
+        public <T> Supplier<T> fork(Callable<T> lookup) {
+            FutureTask<T> task = new FutureTask<>(lookup) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            tasks.add(task);
+            executor.execute(task);
+            return () -> result(task);
+        }
+
+        /**
+         * Wait for every lookup, in completion order
+         * @throws RuntimeException the first lookup failure, after cancelling the other lookups
+         * @throws RequestDeadlineExceededException if the lookups outlive the deadline
+         */
+        public void join() {
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    long remaining = deadline - System.nanoTime();
+                    FutureTask<?> task = completed.poll(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                    if (task == null) {
+                        throw new RequestDeadlineExceededException(deadlineMs);
+                    }
+                    result(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for lookups", e);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Cancel (and interrupt) every lookup that has not finished
+         */
+        @Override
+        public void close() {
+            tasks.forEach(task -> task.cancel(true));
+        }
+
+        private static <T> T result(Future<T> task) {
+            try {
+                return task.get(0, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (Exception e) {
+                throw new IllegalStateException("Lookup has not completed", e);
+            }
+        }
+    }
+}
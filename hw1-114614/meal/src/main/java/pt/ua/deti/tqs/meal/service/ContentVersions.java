@@ -0,0 +1,95 @@
+package pt.ua.deti.tqs.meal.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters of the content behind the cached renderings of the read endpoints.
+ * A counter moves whenever the cache holding the matching content is invalidated, locally or by
+ * another node through the {@link CacheInvalidationBus}, so a rendering kept for the current version
+ * can be served, or its ETag compared, without any database query or serialization. The counters
+ * are local to this node and never leave it: ETags are derived from the rendered content, so every
+ * replica gives the same content the same tag.
+ */
+@Component
+public class ContentVersions {
+
+    static final String RESTAURANTS_ALL = "restaurantServiceFindAll";
+    static final String RESTAURANTS_BY_ID = "restaurantServiceFindById";
+
+    private final AtomicLong restaurants = new AtomicLong();
+    // Bumped when the per-restaurant counters can no longer be trusted (a whole cache was cleared)
+    private final AtomicLong menuGeneration = new AtomicLong();
+    private final Map<Long, AtomicLong> menus = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @PostConstruct
+    void observeInvalidations() {
+        invalidationBus.addObserver(this::invalidated);
+    }
+
+    /**
+     * @return Version of the restaurant listing
+     */
+    public String restaurantsVersion() {
+        return "r" + restaurants.get();
+    }
+
+    /**
+     * The menu also depends on the restaurant itself, the current date (its window moves) and the cached forecasts
+     * @param restaurantId The restaurant ID
+     * @param days Number of days shown
+     * @return Version of the restaurant's menu for the next days
+     */
+    public String menuVersion(Long restaurantId, int days) {
+        Set<LocalDate> window = WeatherService.forecastWindow(days);
+        return "m" + menuGeneration.get() + "." + version(menus, restaurantId)
+                + "-" + LocalDate.now() + "-" + Integer.toHexString(weatherService.cachedForecastsFingerprint(window));
+    }
+
+    void invalidated(CacheInvalidation invalidation) {
+        switch (invalidation.getType()) {
+            // New, used or deleted reservations and capacity changes move the seats left on the menu;
+            // bulk check-ins (EVICT_RESTAURANT_PAGES) do not
+            case EVICT_PAGES_LISTING, EVICT_LAST_PAGES, EVICT_MENUS ->
+                    counter(menus, invalidation.getRestaurantId()).incrementAndGet();
+            case EVICT, EVICT_KEYS, CLEAR -> {
+                String cacheName = invalidation.getCacheName();
+                if (RESTAURANTS_ALL.equals(cacheName)) {
+                    restaurants.incrementAndGet();
+                } else if (RESTAURANTS_BY_ID.equals(cacheName)) {
+                    restaurants.incrementAndGet();
+                    // Menus embed the restaurant's name and description
+                    if (invalidation.getType() == CacheInvalidation.Type.EVICT && invalidation.getKey() instanceof Long id) {
+                        counter(menus, id).incrementAndGet();
+                    } else {
+                        menuGeneration.incrementAndGet();
+                    }
+                } else if (MealService.MENU_CACHE.equals(cacheName)) {
+                    menuGeneration.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static long version(Map<Long, AtomicLong> counters, Long restaurantId) {
+        AtomicLong counter = counters.get(restaurantId);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private static AtomicLong counter(Map<Long, AtomicLong> counters, Long restaurantId) {
+        return counters.computeIfAbsent(restaurantId, id -> new AtomicLong());
+    }
+}
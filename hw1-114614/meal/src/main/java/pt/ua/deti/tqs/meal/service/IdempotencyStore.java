@@ -0,0 +1,322 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pt.ua.deti.tqs.meal.domain.IdempotencyRecord;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyInFlightException;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyReusedException;
+import pt.ua.deti.tqs.meal.repository.IdempotencyRecordRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Store behind Idempotency-Key handling: at most one execution per key, and its response for replay.
+ * Completed responses live in a bounded local cache in front of the idempotency_keys table, which
+ * every node shares. A key is claimed by inserting its row, so two nodes cannot both run the original.
+ * Duplicates that arrive while the original runs wait for it: on the same node on a shared future,
+ * from other nodes by polling the row. Each claim has an owner and a lease that this node renews
+ * while the original runs; a claim left behind by a crashed node is taken over once its lease lapses.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String CACHE_NAME = "idempotentResponses";
+
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final int COMPLETE_ATTEMPTS = 3;
+
+    // Originals running on this node; completed with the stored response, or null when released
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    
+    // Owner id of each claim held by this node, whose lease the heartbeat renews
+    private final ConcurrentMap<String, String> owned = new ConcurrentHashMap<>();
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${meal.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${meal.idempotency.wait-timeout:PT10S}")
+    private Duration waitTimeout;
+
+    @Value("${meal.idempotency.lease:PT30S}")
+    private Duration lease;
+
+    /**
+     * Claim a key for a request, or get the response already stored for it
+     * @param key The Idempotency-Key
+     * @param request Identifies the request the key is used for (method, path, parameters)
+     * @return null if the caller now owns the key and must {@link #complete} or {@link #release} it,
+     *         otherwise the stored response of the original
+     * @throws IdempotencyKeyReusedException if the key was used for a different request
+     * @throws IdempotencyKeyInFlightException if the original did not finish within the wait timeout
+     */
+    public IdempotencyRecord claim(String key, String request) {
+        String fingerprint = fingerprint(request);
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            IdempotencyRecord cached = cached(key);
+            if (cached != null) {
+                return verified(cached, key, fingerprint);
+            }
+
+            CompletableFuture<IdempotencyRecord> running = inFlight.get(key);
+            if (running != null) {
+                IdempotencyRecord record = await(running, key, deadline);
+                if (record != null) {
+                    return verified(record, key, fingerprint);
+                }
+                // The original failed and released the key; try to run it ourselves
+                continue;
+            }
+
+            CompletableFuture<IdempotencyRecord> claim = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, claim) != null) {
+                continue;
+            }
+
+            String owner = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                repository.claim(key, fingerprint, owner, now.plus(lease), now, now.plus(ttl));
+                owned.put(key, owner);
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Idempotency key {} already claimed, waiting for its response", key);
+            } catch (RuntimeException e) {
+                finish(key, null);
+                throw e;
+            }
+
+            // Claimed earlier or by another node: wait for its row here, duplicates on this node wait on us
+            IdempotencyRecord record = null;
+            try {
+                record = awaitRow(key, fingerprint, deadline);
+            } finally {
+                if (record != null) {
+                    remember(record);
+                }
+                finish(key, record);
+            }
+            if (record != null) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * Store the response of a claimed key and hand it to waiting duplicates.
+     * Failed writes are retried; if the response still cannot be stored the failure is thrown, the
+     * claim's lease is no longer renewed and a retry after it lapses runs the request again.
+     * @param key The Idempotency-Key
+     * @param request The request passed to {@link #claim}
+     * @param status HTTP status of the response
+     * @param contentType Content type of the body, or null
+     * @param body Response body
+     * @return The stored response
+     * @throws IllegalStateException if the response could not be stored
+     */
+    public IdempotencyRecord complete(String key, String request, int status, String contentType, byte[] body) {
+        String owner = owned.remove(key);
+        if (owner == null) {
+            finish(key, null);
+            throw new IllegalStateException("Idempotency key " + key + " is not claimed by this node");
+        }
+        
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setRequestFingerprint(fingerprint(request));
+        record.setCompleted(true);
+        record.setResponseStatus(status);
+        record.setContentType(contentType);
+        record.setResponseBody(body);
+        record.setOwnerId(owner);
+        record.setCreatedAt(LocalDateTime.now());
+        record.setLeaseExpiresAt(record.getCreatedAt());
+        record.setExpiresAt(record.getCreatedAt().plus(ttl));
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (repository.complete(key, owner, status, contentType, body) == 0) {
+                    // The lease lapsed and another node runs the request again; this response is still correct
+                    logger.warn("Claim of idempotency key {} was taken over before its response was stored", key);
+                }
+                break;
+            } catch (RuntimeException e) {
+                if (attempt == COMPLETE_ATTEMPTS) {
+                    logger.error("Could not store response for idempotency key {} after {} attempts: {}", key, attempt, e.getMessage());
+                    finish(key, null);
+                    throw new IllegalStateException("Could not store response for idempotency key " + key, e);
+                }
+                logger.warn("Could not store response for idempotency key {}, retrying: {}", key, e.getMessage());
+                sleep(POLL_INTERVAL_MS * attempt);
+            }
+        }
+
+        remember(record);
+        finish(key, record);
+        return record;
+    }
+
+    /**
+     * Give up a claimed key without storing a response, so a retry runs the request again
+     * @param key The Idempotency-Key
+     */
+    public void release(String key) {
+        String owner = owned.remove(key);
+        if (owner != null) {
+            try {
+                repository.release(key, owner);
+            } catch (RuntimeException e) {
+                // The lease is no longer renewed, so the claim is taken over once it lapses
+                logger.error("Could not release idempotency key {}: {}", key, e.getMessage());
+            }
+        }
+        finish(key, null);
+    }
+
+    /**
+     * Heartbeat: extend the leases of the claims whose originals still run on this node
+     */
+    @Scheduled(fixedDelayString = "${meal.idempotency.lease-renew-interval:PT10S}")
+    public void renewLeases() {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plus(lease);
+        owned.forEach((key, owner) -> {
+            try {
+                if (repository.renewLease(key, owner, leaseExpiresAt) == 0 && owned.containsKey(key)) {
+                    logger.warn("Lost the claim of idempotency key {} while its request was running", key);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not renew lease of idempotency key {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Drop expired responses from the shared table; the local cache expires on its own
+     */
+    @Scheduled(fixedDelayString = "${meal.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Poll a key claimed elsewhere until its response is stored
+     * @return The stored response, or null if the claim is gone (released, expired or abandoned)
+     */
+    private IdempotencyRecord awaitRow(String key, String fingerprint, long deadline) {
+        while (true) {
+            Optional<IdempotencyRecord> row = repository.findById(key);
+            if (row.isEmpty()) {
+                return null;
+            }
+
+            IdempotencyRecord record = row.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (record.isCompleted() && record.getExpiresAt().isAfter(now)) {
+                return verified(record, key, fingerprint);
+            }
+            if (!record.getRequestFingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            if (record.isCompleted() || record.getLeaseExpiresAt().isBefore(now)) {
+                logger.info("Taking over expired or abandoned idempotency key {} from {}", key, record.getOwnerId());
+                repository.deleteStale(key, record.getOwnerId(), now);
+                return null;
+            }
+
+            if (System.nanoTime() - deadline >= 0 || !sleep(POLL_INTERVAL_MS)) {
+                throw new IdempotencyKeyInFlightException(key);
+            }
+        }
+    }
+
+    /**
+     * @return false if interrupted
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running, String key, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IdempotencyKeyInFlightException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInFlightException(key);
+        }
+    }
+
+    private IdempotencyRecord verified(IdempotencyRecord record, String key, String fingerprint) {
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return record;
+    }
+
+    private IdempotencyRecord cached(String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        IdempotencyRecord record = cache == null ? null : cache.get(key, IdempotencyRecord.class);
+        return record != null && record.getExpiresAt().isAfter(LocalDateTime.now()) ? record : null;
+    }
+
+    private void remember(IdempotencyRecord record) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.put(record.getIdempotencyKey(), record);
+        }
+    }
+
+    private void finish(String key, IdempotencyRecord record) {
+        CompletableFuture<IdempotencyRecord> running = inFlight.remove(key);
+        if (running != null) {
+            running.complete(record);
+        }
+    }
+
+    private static String fingerprint(String request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pt.ua.deti.tqs.meal.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers messages synchronously to the subscribers in this JVM.
+ * Enough for a single node, and lets tests run several buses against one transport.
+ */
+public class InJvmInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(String message) {
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener, Runnable onGap) {
+        listeners.add(listener);
+    }
+}
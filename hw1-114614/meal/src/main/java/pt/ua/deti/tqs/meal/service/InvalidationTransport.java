@@ -0,0 +1,22 @@
+package pt.ua.deti.tqs.meal.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded cache invalidations between nodes.
+ * Messages are delivered to every subscriber, including the sender's own node.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Broadcast a message; called after the originating transaction committed
+     * @param message The encoded message
+     */
+    void send(String message);
+
+    /**
+     * @param listener Receives every broadcast message
+     * @param onGap Called when messages may have been lost (e.g. after a reconnect)
+     */
+    void subscribe(Consumer<String> listener, Runnable onGap);
+}
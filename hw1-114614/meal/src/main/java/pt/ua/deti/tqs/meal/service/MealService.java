@@ -3,17 +3,16 @@ package pt.ua.deti.tqs.meal.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pt.ua.deti.tqs.meal.domain.Meal;
-import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
 import pt.ua.deti.tqs.meal.repository.MealRepository;
-import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class MealService {
@@ -23,34 +22,32 @@ public class MealService {
     private MealRepository mealRepository;
 
     @Autowired
-    private RestaurantRepository restaurantRepository;
+    private WaitlistService waitlistService;
 
-   
+    @Autowired
+    private ReservationCacheMaintainer cacheMaintainer;
+
+    public static final String MENU_CACHE = "weeklyMenus";
+    
+    // Longest menu a client may ask for; the handlers reject longer ones before any lookup
+    public static final int MAX_MENU_DAYS = 28;
+    
+    /**
+     * Get the meals a restaurant serves from today on
+     * @param restaurantId The restaurant ID
+     * @param days Number of days, starting today
+     * @return Meals ordered by date
+     */
+    @Cacheable(value = MENU_CACHE, key = "{#restaurantId, #days}")
     public List<Meal> getMealsForRestaurant(Long restaurantId, int days) {
         logger.info("Finding meals for restaurant ID {} for the next {} days", restaurantId, days);
         
-        Optional<Restaurant> restaurant = restaurantRepository.findById(restaurantId);
-        
-        if (restaurant.isEmpty()) {
-            logger.warn("Restaurant with ID {} not found", restaurantId);
-            return new ArrayList<>();
-        }
-        
         LocalDate today = LocalDate.now();
         LocalDate endDate = today.plusDays(days - 1);
         
-        List<Meal> allMeals = mealRepository.findAll();
-        
-        return allMeals.stream()
-                .filter(meal -> meal.getRestaurant() != null && 
-                               meal.getRestaurant().getId().equals(restaurantId))
-                .filter(meal -> {
-                    LocalDate mealDate = meal.getAvailableDate();
-                    return mealDate != null && 
-                           (mealDate.isEqual(today) || mealDate.isAfter(today)) && 
-                           (mealDate.isEqual(endDate) || mealDate.isBefore(endDate));
-                })
-                .collect(Collectors.toList());
+        // Range query on (restaurant_id, available_date); an unknown restaurant simply yields no rows
+        return mealRepository.findByRestaurantIdAndAvailableDateBetweenOrderByAvailableDateAsc(
+                restaurantId, today, endDate);
     }
     
 
@@ -58,4 +55,47 @@ public class MealService {
         logger.info("Finding meal with ID {}", mealId);
         return mealRepository.findById(mealId);
     }
+
+    /**
+     * Set the seat limit of a meal. Seats already taken stay taken, and seats that become free
+     * go to the meal's waitlist first, oldest entry first.
+     * @param mealId The meal ID
+     * @param capacity The new number of seats, or null to remove the limit
+     * @throws ResourceNotFoundException if the meal does not exist
+     * @throws IllegalArgumentException if the capacity is negative
+     * @throws IllegalStateException if the meal has more reservations than the new capacity
+     */
+    @Transactional
+    public void setCapacity(Long mealId, Integer capacity) {
+        logger.info("Setting the capacity of meal ID {} to {}", mealId, capacity);
+        
+        if (capacity != null && capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        Meal meal = mealRepository.findById(mealId)
+            .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + mealId));
+        
+        if (capacity == null) {
+            mealRepository.removeCapacity(mealId);
+            // Without a limit, everybody waiting gets a seat
+            while (waitlistService.promoteNext(meal)) {
+                logger.debug("Promoted a waitlist entry of meal ID {} after removing its seat limit", mealId);
+            }
+        } else {
+            int changed = meal.hasLimitedCapacity()
+                    ? mealRepository.changeCapacity(mealId, capacity)
+                    : mealRepository.limitCapacity(mealId, capacity);
+            if (changed == 0) {
+                throw new IllegalStateException("Meal already has more reservations than " + capacity + " seats");
+            }
+            // Take each freed seat for the head of the waitlist, and give it back once nobody is waiting
+            while (mealRepository.reserveSeats(mealId, 1) == 1) {
+                if (!waitlistService.promoteNext(meal)) {
+                    mealRepository.releaseSeats(mealId, 1);
+                    break;
+                }
+            }
+        }
+        cacheMaintainer.seatsChanged(meal.getRestaurant().getId());
+    }
 } 
\ No newline at end of file
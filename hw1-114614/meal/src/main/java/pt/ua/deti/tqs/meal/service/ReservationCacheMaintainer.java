@@ -0,0 +1,240 @@
+package pt.ua.deti.tqs.meal.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.domain.Reservation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Key-level maintenance of the reservation caches.
+ * Only the token entry, the active pages and the menus a write can actually change are touched,
+ * so one check-in does not cold-start the listings of every other restaurant.
+ * Changes are applied after the surrounding transaction commits, then broadcast to the
+ * other nodes through the {@link CacheInvalidationBus}.
+ */
+@Component
+public class ReservationCacheMaintainer {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCacheMaintainer.class);
+
+    static final String BY_TOKEN = "reservationsByToken";
+    static final String ACTIVE = "activeReservations";
+    static final String ACTIVE_BY_RESTAURANT = "activeReservationsByRestaurant";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @PostConstruct
+    void listenForRemoteChanges() {
+        invalidationBus.addListener(invalidation -> {
+            switch (invalidation.getType()) {
+                case EVICT_PAGES_LISTING -> {
+                    evictPagesListing((Long) invalidation.getKey(), invalidation.getRestaurantId());
+                    evictMenus(invalidation.getRestaurantId());
+                }
+                case EVICT_LAST_PAGES -> {
+                    evictLastPages(invalidation.getRestaurantId());
+                    evictMenus(invalidation.getRestaurantId());
+                }
+                case EVICT_RESTAURANT_PAGES -> {
+                    // The changed reservations are not in the message; the global listing cannot be narrowed down
+                    evictPages(ACTIVE, null, page -> true);
+                    evictPages(ACTIVE_BY_RESTAURANT, invalidation.getRestaurantId(), page -> true);
+                }
+                case EVICT_MENUS -> evictMenus(invalidation.getRestaurantId());
+                default -> { }
+            }
+        });
+    }
+
+    /**
+     * New reservations: write the token entries through and evict the last pages
+     * (keyset order is creation order, so new reservations can only land there)
+     * @param reservations The created reservations
+     */
+    public void reservationsCreated(Collection<Reservation> reservations) {
+        afterCommit(() -> {
+            for (Reservation reservation : reservations) {
+                put(reservation);
+            }
+            reservations.stream()
+                    .map(this::restaurantId)
+                    .distinct()
+                    .forEach(restaurantId -> {
+                        evictLastPages(restaurantId);
+                        evictMenus(restaurantId);
+                        invalidationBus.publish(CacheInvalidation.lastPages(restaurantId));
+                    });
+        });
+    }
+
+    /**
+     * Checked-in reservation: write the token entry through and evict the pages listing it
+     * @param reservation The updated reservation
+     */
+    public void reservationUsed(Reservation reservation) {
+        afterCommit(() -> {
+            put(reservation);
+            evictPagesListing(reservation);
+            // Other nodes do not have the updated entity, they drop theirs
+            invalidationBus.publish(CacheInvalidation.evict(BY_TOKEN, reservation.getToken()));
+        });
+    }
+
+    /**
+     * Reservations checked in together: write the token entries through and evict the pages listing
+     * any of them, with one pass over each page cache and one message per restaurant to the other nodes
+     * @param reservations The updated reservations
+     */
+    public void reservationsUsed(Collection<Reservation> reservations) {
+        afterCommit(() -> {
+            reservations.forEach(this::put);
+            
+            Set<Long> ids = reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+            Predicate<ReservationPage> lists = page -> page.getItems().stream()
+                    .anyMatch(item -> ids.contains(item.getId()));
+            evictPages(ACTIVE, null, lists);
+            evictPages(ACTIVE_BY_RESTAURANT, null, lists);
+            reservations.stream()
+                    .map(this::restaurantId)
+                    .distinct()
+                    .forEach(restaurantId -> invalidationBus.publish(CacheInvalidation.restaurantPages(restaurantId)));
+            
+            List<String> tokens = reservations.stream().map(Reservation::getToken).toList();
+            CacheInvalidation.evictAll(BY_TOKEN, tokens).forEach(invalidationBus::publish);
+        });
+    }
+
+    /**
+     * Deleted reservation: drop the token entry and evict the pages listing it
+     * @param reservation The deleted reservation
+     */
+    public void reservationDeleted(Reservation reservation) {
+        afterCommit(() -> {
+            invalidationBus.evict(BY_TOKEN, reservation.getToken());
+            evictMenus(restaurantId(reservation));
+            evictPagesListing(reservation);
+        });
+    }
+
+    /**
+     * Seats of a restaurant's meal changed without any reservation changing (e.g. a new capacity):
+     * evict its menus, here and on the other nodes
+     * @param restaurantId The restaurant ID
+     */
+    public void seatsChanged(Long restaurantId) {
+        afterCommit(() -> {
+            evictMenus(restaurantId);
+            invalidationBus.publish(CacheInvalidation.menus(restaurantId));
+        });
+    }
+
+    private void put(Reservation reservation) {
+        Cache byToken = cacheManager.getCache(BY_TOKEN);
+        if (byToken != null) {
+            byToken.put(reservation.getToken(), reservation);
+        }
+    }
+
+    private void evictPagesListing(Reservation reservation) {
+        evictPagesListing(reservation.getId(), restaurantId(reservation));
+        invalidationBus.publish(CacheInvalidation.pagesListing(reservation.getId(), restaurantId(reservation)));
+    }
+
+    private void evictPagesListing(Long reservationId, Long restaurantId) {
+        Predicate<ReservationPage> lists = page -> page.getItems().stream()
+                .anyMatch(item -> reservationId.equals(item.getId()));
+        evictPages(ACTIVE, null, lists);
+        evictPages(ACTIVE_BY_RESTAURANT, restaurantId, lists);
+    }
+
+    private void evictLastPages(Long restaurantId) {
+        evictPages(ACTIVE, null, page -> !page.hasNext());
+        evictPages(ACTIVE_BY_RESTAURANT, restaurantId, page -> !page.hasNext());
+    }
+
+    /**
+     * Evict the cached pages matching a predicate
+     * @param cacheName Page cache name
+     * @param restaurantId Only consider keys of this restaurant (first key element), or null for all keys
+     * @param stale Decides which pages to evict
+     */
+    @SuppressWarnings("unchecked")
+    private void evictPages(String cacheName, Long restaurantId, Predicate<ReservationPage> stale) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            // Keys cannot be enumerated, fall back to clearing the cache
+            cache.clear();
+            return;
+        }
+
+        Map<Object, Object> entries = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap();
+        entries.entrySet().removeIf(entry -> {
+            if (!(entry.getKey() instanceof List<?> key) || !(entry.getValue() instanceof ReservationPage page)) {
+                return false;
+            }
+            if (restaurantId != null && !restaurantId.equals(key.get(0))) {
+                return false;
+            }
+            return stale.test(page);
+        });
+        logger.debug("Evicted stale pages from cache {}", cacheName);
+    }
+
+    /**
+     * Evict the cached menus of a restaurant, whose seat counts changed.
+     * Done before the change is published, so a new menu ETag never serves the old seat counts
+     * @param restaurantId The restaurant ID
+     */
+    @SuppressWarnings("unchecked")
+    private void evictMenus(Long restaurantId) {
+        Cache cache = cacheManager.getCache(MealService.MENU_CACHE);
+        if (cache == null) {
+            return;
+        }
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            cache.clear();
+            return;
+        }
+        
+        // Menu keys are {restaurantId, days}
+        ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().keySet()
+                .removeIf(key -> key instanceof List<?> parts && restaurantId.equals(parts.get(0)));
+    }
+
+    private Long restaurantId(Reservation reservation) {
+        return reservation.getMeal().getRestaurant().getId();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package pt.ua.deti.tqs.meal.service;
+
+import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
+import pt.ua.deti.tqs.meal.domain.Reservation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reservations of one restaurant created, checked in or cancelled by a transaction.
+ * Carries DTOs rather than entities, built while the transaction is still open, so
+ * listeners running after commit never touch lazy associations.
+ */
+public final class ReservationChangedEvent {
+
+    public enum Type {
+        CREATED,
+        USED,
+        CANCELLED
+    }
+
+    private final Type type;
+    private final Long restaurantId;
+    private final List<ReservationDto> reservations;
+
+    public ReservationChangedEvent(Type type, Long restaurantId, List<ReservationDto> reservations) {
+        this.type = type;
+        this.restaurantId = restaurantId;
+        this.reservations = List.copyOf(reservations);
+    }
+
+    /**
+     * Group changed reservations by restaurant
+     * @param type What happened to the reservations
+     * @param reservations The reservations, of any restaurants
+     * @return One event per restaurant, in order of first appearance
+     */
+    public static List<ReservationChangedEvent> of(Type type, Collection<Reservation> reservations) {
+        Map<Long, List<ReservationDto>> byRestaurant = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            Long restaurantId = reservation.getMeal().getRestaurant().getId();
+            byRestaurant.computeIfAbsent(restaurantId, id -> new ArrayList<>()).add(new ReservationDto(reservation));
+        }
+
+        List<ReservationChangedEvent> events = new ArrayList<>(byRestaurant.size());
+        byRestaurant.forEach((restaurantId, dtos) -> events.add(new ReservationChangedEvent(type, restaurantId, dtos)));
+        return events;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public List<ReservationDto> getReservations() {
+        return reservations;
+    }
+}
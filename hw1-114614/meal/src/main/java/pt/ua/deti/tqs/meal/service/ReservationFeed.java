@@ -0,0 +1,344 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events feed of reservation changes, one stream per restaurant.
+ * Every committed change is rendered once into an SSE frame and queued for all subscribers of its
+ * restaurant from a single dispatcher thread, so the cost of a change does not depend on how many
+ * dashboards are watching and no subscriber queries the database. Each subscriber's frames are written
+ * by a writer thread of its own while it has any queued, so a stalled connection holds up only itself;
+ * one that falls more than {@code max-pending} frames behind is dropped and resumes on reconnect.
+ * Event ids are resume tokens ({@code epoch-sequence}): a reconnecting client sends the last one it
+ * saw and gets the changes it missed from a bounded per-restaurant replay buffer, or a {@code reset}
+ * event telling it to reload the full list when they are no longer buffered. Subscribers only see
+ * changes committed on this node.
+ */
+@Component
+public class ReservationFeed {
+    private static final Logger logger = LoggerFactory.getLogger(ReservationFeed.class);
+
+    static final String OPEN = "open";
+    static final String RESET = "reset";
+
+    // Identifies this process, so tokens issued before a restart are recognised as unusable
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Blocking servlet writes; at most one thread per subscriber, and only while it has frames queued
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-feed-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched from the dispatcher thread
+    private final Map<Long, Channel> channels = new HashMap<>();
+    private long sequence;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${meal.reservations.feed.replay-size:256}")
+    private int replaySize;
+
+    @Value("${meal.reservations.feed.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${meal.reservations.feed.max-pending:64}")
+    private int maxPending;
+
+    /**
+     * Open a stream of reservation changes for a restaurant.
+     * The first event is {@code open} (nothing missed, or a fresh subscription) or {@code reset}
+     * (missed changes are gone), followed by any buffered changes after the given token
+     * @param restaurantId The restaurant ID
+     * @param lastEventId Resume token of the last event the client received, or null
+     * @return The emitter for the response
+     */
+    public SseEmitter subscribe(Long restaurantId, String lastEventId) {
+        return subscribe(restaurantId, lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(Long restaurantId, String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        Runnable remove = () -> {
+            subscriber.close();
+            dispatch(() -> {
+                Channel channel = channels.get(restaurantId);
+                if (channel != null) {
+                    channel.subscribers.remove(subscriber);
+                }
+            });
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Replay and registration happen on the dispatcher, so no change falls between them
+        dispatch(() -> {
+            Channel channel = channels.computeIfAbsent(restaurantId, id -> new Channel());
+            resume(subscriber, channel, lastEventId);
+            channel.subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    /**
+     * Buffer a committed change and fan it out to the restaurant's subscribers.
+     * The payload is rendered here, on the committing thread; only the fan-out is handed off
+     * @param event The change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void reservationsChanged(ReservationChangedEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event.getReservations());
+        } catch (JsonProcessingException e) {
+            logger.warn("Failed to render reservation change for restaurant ID {}: {}", event.getRestaurantId(), e.getMessage());
+            return;
+        }
+        String name = event.getType().name().toLowerCase();
+
+        dispatch(() -> {
+            long id = ++sequence;
+            Set<DataWithMediaType> frame = SseEmitter.event().id(token(id)).name(name).data(payload).build();
+            Channel channel = channels.computeIfAbsent(event.getRestaurantId(), restaurantId -> new Channel());
+            channel.buffer(id, frame, replaySize);
+            channel.broadcast(frame);
+        });
+    }
+
+    /**
+     * Keep idle streams open through proxies and drop subscribers whose connection is gone
+     */
+    @Scheduled(fixedDelayString = "${meal.reservations.feed.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> frame = SseEmitter.event().comment("").build();
+        dispatch(() -> channels.values().forEach(channel -> channel.broadcast(frame)));
+    }
+
+    /**
+     * @return Feed statistics: open streams and buffered events across all restaurants
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        try {
+            dispatcher.submit(() -> {
+                stats.put("subscribers", channels.values().stream().mapToInt(channel -> channel.subscribers.size()).sum());
+                stats.put("bufferedEvents", channels.values().stream().mapToInt(channel -> channel.replay.size()).sum());
+                stats.put("lastEventId", token(sequence));
+            }).get(1, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.debug("Reservation feed statistics unavailable: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    void close() throws InterruptedException {
+        // End open streams before the web server shuts down gracefully, so it does not wait on them
+        dispatch(() -> channels.values().forEach(channel -> {
+            channel.subscribers.forEach(Subscriber::complete);
+            channel.subscribers.clear();
+        }));
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        writers.shutdown();
+        writers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue the first event and the missed changes; the replay buffer bounds them, so they are not
+     * held to the subscriber's pending limit
+     */
+    private void resume(Subscriber subscriber, Channel channel, String lastEventId) {
+        Long after = parseToken(lastEventId);
+        if (lastEventId == null || after == null || after < channel.evictedUpTo) {
+            if (lastEventId != null) {
+                logger.debug("Reservation feed cannot resume from {}, sending reset", lastEventId);
+            }
+            subscriber.offer(SseEmitter.event().id(token(sequence)).name(lastEventId == null ? OPEN : RESET).data("").build(), false);
+            return;
+        }
+
+        subscriber.offer(SseEmitter.event().id(lastEventId).name(OPEN).data("").build(), false);
+        for (BufferedEvent buffered : channel.replay) {
+            if (buffered.id() > after) {
+                subscriber.offer(buffered.frame(), false);
+            }
+        }
+    }
+
+    /**
+     * @return The sequence number of a token issued by this process, or null if it was not
+     */
+    private Long parseToken(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(lastEventId.substring(separator + 1));
+            return id >= 0 && id <= sequence ? id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String token(long id) {
+        return epoch + "-" + id;
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Reservation feed is shut down, dropping task");
+        }
+    }
+
+    private record BufferedEvent(long id, Set<DataWithMediaType> frame) {
+    }
+
+    private static final class Channel {
+        private final Set<Subscriber> subscribers = new LinkedHashSet<>();
+        private final Deque<BufferedEvent> replay = new ArrayDeque<>();
+        // Highest sequence dropped from the replay buffer; resuming from before it would miss events
+        private long evictedUpTo;
+
+        void buffer(long id, Set<DataWithMediaType> frame, int capacity) {
+            replay.addLast(new BufferedEvent(id, frame));
+            while (replay.size() > capacity) {
+                evictedUpTo = replay.removeFirst().id();
+            }
+        }
+
+        void broadcast(Set<DataWithMediaType> frame) {
+            Iterator<Subscriber> iterator = subscribers.iterator();
+            while (iterator.hasNext()) {
+                Subscriber subscriber = iterator.next();
+                if (!subscriber.offer(frame, true)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * One stream's queue of rendered frames, drained in order by at most one writer at a time
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final Deque<Set<DataWithMediaType>> pending = new ArrayDeque<>();
+        private boolean writing;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queue a frame, starting a writer if none is running
+         * @param frame The rendered frame
+         * @param bounded Whether the pending limit applies
+         * @return false if the subscriber is gone or too far behind, and has been dropped
+         */
+        boolean offer(Set<DataWithMediaType> frame, boolean bounded) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (bounded && pending.size() >= maxPending) {
+                    logger.debug("Reservation feed subscriber is {} events behind, dropping it", pending.size());
+                    close();
+                    // Completed off the dispatcher: it waits for a write in progress
+                    execute(emitter::complete);
+                    return false;
+                }
+                pending.addLast(frame);
+                if (writing) {
+                    return true;
+                }
+                writing = true;
+            }
+            execute(this::drain);
+            return true;
+        }
+
+        /**
+         * Stop writing, for a stream that ended; frames still queued are discarded
+         */
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        void complete() {
+            close();
+            execute(emitter::complete);
+        }
+
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> frame;
+                synchronized (this) {
+                    frame = pending.pollFirst();
+                    if (frame == null) {
+                        writing = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    // Closed connection; the container completes the emitter, and the next broadcast drops it
+                    close();
+                }
+            }
+        }
+
+        private void execute(Runnable task) {
+            try {
+                writers.execute(task);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Reservation feed is shut down, dropping write");
+            }
+        }
+    }
+}
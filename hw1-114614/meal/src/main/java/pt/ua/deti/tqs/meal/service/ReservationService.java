@@ -3,24 +3,43 @@ package pt.ua.deti.tqs.meal.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationCursor;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.controller.dto.TokenResult;
 import pt.ua.deti.tqs.meal.domain.Meal;
 import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
+import pt.ua.deti.tqs.meal.exception.ConcurrentCheckInException;
+import pt.ua.deti.tqs.meal.exception.MealFullyBookedException;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
 import pt.ua.deti.tqs.meal.repository.MealRepository;
 import pt.ua.deti.tqs.meal.repository.ReservationRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
     private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+    
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int MAX_BULK_TOKENS = 5000;
 
     @Autowired
     private ReservationRepository reservationRepository;
@@ -28,96 +47,265 @@ public class ReservationService {
     @Autowired
     private MealRepository mealRepository;
 
+    @Autowired
+    private TokenAllocator tokenAllocator;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ReservationCacheMaintainer cacheMaintainer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Create a new reservation
      * @param mealId The meal ID to reserve
      * @return The created reservation with token
+     * @throws ResourceNotFoundException if the meal does not exist
+     * @throws MealFullyBookedException if the meal has no seats left
      */
+    @Transactional
     public Reservation createReservation(Long mealId) {
         logger.info("Creating reservation for meal ID: {}", mealId);
         
         Meal meal = mealRepository.findById(mealId)
             .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + mealId));
+        reserveSeats(meal, 1);
 
         Reservation reservation = new Reservation();
         reservation.setMeal(meal);
-        reservation.setToken(generateToken());
+        reservation.setToken(tokenAllocator.nextToken());
         reservation.setCreatedAt(LocalDateTime.now());
         reservation.setUsed(false);
 
         Reservation savedReservation = reservationRepository.save(reservation);
         logger.info("Created reservation with ID {} and token {}", savedReservation.getId(), savedReservation.getToken());
         
-        // Clear the active reservations cache since we added a new one
+        cacheMaintainer.reservationsCreated(List.of(savedReservation));
+        publish(ReservationChangedEvent.Type.CREATED, List.of(savedReservation));
         return savedReservation;
     }
 
+    /**
+     * Create several reservations in one transaction.
+     * Meals are resolved with a single query and rows are inserted in JDBC batches.
+     * @param quantitiesByMeal Number of reservations to create per meal ID
+     * @return The created reservations, grouped by meal in request order
+     * @throws ResourceNotFoundException if any meal does not exist (nothing is created)
+     * @throws IllegalArgumentException if a quantity is not positive or the batch is too large
+     * @throws MealFullyBookedException if any meal has fewer seats left than requested (nothing is created)
+     */
+    @Transactional
+    public List<Reservation> createReservations(Map<Long, Integer> quantitiesByMeal) {
+        if (quantitiesByMeal.isEmpty() || quantitiesByMeal.values().stream().anyMatch(quantity -> quantity == null || quantity < 1)) {
+            throw new IllegalArgumentException("Each meal must be reserved at least once");
+        }
+        // Summed as long, so large quantities cannot wrap around below the limit
+        long requested = quantitiesByMeal.values().stream().mapToLong(Integer::longValue).sum();
+        if (requested > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " reservations per batch");
+        }
+        int total = (int) requested;
+        logger.info("Creating {} reservations for {} meals", total, quantitiesByMeal.size());
+        
+        Map<Long, Meal> meals = mealRepository.findAllById(quantitiesByMeal.keySet()).stream()
+                .collect(Collectors.toMap(Meal::getId, Function.identity()));
+        for (Long mealId : quantitiesByMeal.keySet()) {
+            if (!meals.containsKey(mealId)) {
+                throw new ResourceNotFoundException("Meal not found with id: " + mealId);
+            }
+        }
+        // Take seats in meal ID order so concurrent batches lock meal rows in the same order
+        new TreeMap<>(quantitiesByMeal).forEach((mealId, quantity) -> reserveSeats(meals.get(mealId), quantity));
+        
+        Iterator<String> tokens = tokenAllocator.nextTokens(total).iterator();
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Reservation> reservations = new ArrayList<>(total);
+        quantitiesByMeal.forEach((mealId, quantity) -> {
+            for (int i = 0; i < quantity; i++) {
+                Reservation reservation = new Reservation();
+                reservation.setMeal(meals.get(mealId));
+                reservation.setToken(tokens.next());
+                reservation.setCreatedAt(createdAt);
+                reservation.setUsed(false);
+                reservations.add(reservation);
+            }
+        });
+        
+        List<Reservation> savedReservations = reservationRepository.saveAll(reservations);
+        logger.info("Created {} reservations in batch", savedReservations.size());
+        cacheMaintainer.reservationsCreated(savedReservations);
+        publish(ReservationChangedEvent.Type.CREATED, savedReservations);
+        return savedReservations;
+    }
+
     /**
      * Get reservation details by token
      * @param token The reservation token
      * @return The reservation if found
      * @throws ResourceNotFoundException if not found
      */
-    @Cacheable(value = "reservationsByToken", key = "#token")
+    // Keyed like the cache maintainer writes and evicts it, so every spelling of a code shares one entry
+    @Cacheable(value = "reservationsByToken", key = "T(pt.ua.deti.tqs.meal.domain.ReservationToken).canonical(#token)",
+            condition = "T(pt.ua.deti.tqs.meal.domain.ReservationToken).isValid(#token)")
     public Reservation getReservationByToken(String token) {
         logger.info("Finding reservation with token: {}", token);
-        return reservationRepository.findByToken(token)
-            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with token: " + token));
+        return findByToken(token);
     }
 
     /**
-     * Get all active (non-used) reservations
-     * @return List of all active reservations
+     * Get one page of active (non-used) reservations across all restaurants
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of reservations in the page
+     * @return Page of active reservations, oldest first
+     * @throws IllegalArgumentException if the cursor is invalid
      */
-    @Cacheable(value = "activeReservations")
-    public List<Reservation> getActiveReservations() {
-        logger.info("Finding all active reservations");
-        return reservationRepository.findByUsed(false);
+    @Cacheable(value = "activeReservations", key = "{#after, #limit}")
+    public ReservationPage getActiveReservations(String after, int limit) {
+        logger.info("Finding active reservations after cursor {} (limit {})", after, limit);
+        
+        // Fetch one extra row to know whether there is a next page
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<ReservationDto> reservations;
+        if (after == null) {
+            reservations = reservationRepository.findActive(fetchLimit);
+        } else {
+            ReservationCursor cursor = ReservationCursor.decode(after);
+            reservations = reservationRepository.findActiveAfter(cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        }
+        
+        return toPage(reservations, limit);
     }
 
     /**
-     * Get all active (non-used) reservations for a restaurant
+     * Get one page of active (non-used) reservations for a restaurant
      * @param restaurantId The restaurant ID
-     * @return List of active reservations
+     * @param after Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of reservations in the page
+     * @return Page of active reservations, oldest first
+     * @throws IllegalArgumentException if the cursor is invalid
      */
-    @Cacheable(value = "activeReservationsByRestaurant", key = "#restaurantId")
-    public List<Reservation> getActiveReservationsForRestaurant(Long restaurantId) {
-        logger.info("Finding active reservations for restaurant ID: {}", restaurantId);
+    @Cacheable(value = "activeReservationsByRestaurant", key = "{#restaurantId, #after, #limit}")
+    public ReservationPage getActiveReservationsForRestaurant(Long restaurantId, String after, int limit) {
+        logger.info("Finding active reservations for restaurant ID {} after cursor {} (limit {})", restaurantId, after, limit);
         
-        // Get all reservations where:
-        // 1. The reservation is not used
-        // 2. The meal belongs to the specified restaurant
-        List<Reservation> allReservations = reservationRepository.findByUsed(false);
+        // Single reservations -> meals -> restaurants join, projected straight into DTOs
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<ReservationDto> reservations;
+        if (after == null) {
+            reservations = reservationRepository.findActiveByRestaurantId(restaurantId, fetchLimit);
+        } else {
+            ReservationCursor cursor = ReservationCursor.decode(after);
+            reservations = reservationRepository.findActiveByRestaurantIdAfter(
+                    restaurantId, cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        }
         
-        return allReservations.stream()
-                .filter(r -> r.getMeal().getRestaurant().getId().equals(restaurantId))
-                .collect(Collectors.toList());
+        return toPage(reservations, limit);
     }
 
     /**
-     * Mark a reservation as used (when a user checks in)
+     * Mark a reservation as used (when a user checks in).
+     * The check-in is a single conditional update; its row count decides the outcome.
      * @param token The reservation token
      * @return The updated reservation
      * @throws ResourceNotFoundException if not found
+     * @throws IllegalStateException if already used
      */
-    @CachePut(value = "reservationsByToken", key = "#token")
-    @CacheEvict(value = {"activeReservations", "activeReservationsByRestaurant"}, allEntries = true)
+    @Transactional
     public Reservation markReservationAsUsed(String token) {
         logger.info("Marking reservation with token {} as used", token);
         
-        Reservation reservation = reservationRepository.findByToken(token)
-            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with token: " + token));
+        if (!ReservationToken.isValid(token)) {
+            throw new ResourceNotFoundException("Reservation not found with token: " + token);
+        }
         
-        if (reservation.isUsed()) {
+        if (reservationRepository.markUsed(token) == 0) {
+            // Only the failure path needs a read, to tell an unknown token from a used one
+            findByToken(token);
             logger.warn("Reservation with token {} has already been used", token);
             throw new IllegalStateException("Reservation has already been used");
         }
         
-        reservation.setUsed(true);
-        Reservation updatedReservation = reservationRepository.save(reservation);
-        
         logger.info("Reservation with token {} marked as used", token);
-        return updatedReservation;
+        Reservation reservation = findByToken(token);
+        cacheMaintainer.reservationUsed(reservation);
+        publish(ReservationChangedEvent.Type.USED, List.of(reservation));
+        return reservation;
+    }
+    
+    /**
+     * Look up many reservations at once, e.g. codes batched by a door scanner.
+     * All codes are resolved with a single query; malformed codes never reach the database.
+     * @param tokens Reservation codes, duplicates allowed
+     * @return One result per code, in request order: OK (active), ALREADY_USED or UNKNOWN
+     * @throws IllegalArgumentException if no codes or too many codes are given
+     */
+    public List<TokenResult> lookupReservations(List<String> tokens) {
+        logger.info("Looking up {} reservations", tokens.size());
+        
+        Map<String, Reservation> found = findAllByToken(tokens);
+        List<TokenResult> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Reservation reservation = found.get(canonicalToken(token));
+            if (reservation == null) {
+                results.add(new TokenResult(token, TokenResult.Status.UNKNOWN, null));
+            } else {
+                TokenResult.Status status = reservation.isUsed() ? TokenResult.Status.ALREADY_USED : TokenResult.Status.OK;
+                results.add(new TokenResult(token, status, new ReservationDto(reservation)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Check in many reservations at once, e.g. codes batched by a door scanner while offline.
+     * Codes are resolved with one query and the active ones checked in with one conditional update;
+     * caches and change listeners are notified once for the whole batch.
+     * @param tokens Reservation codes, duplicates allowed
+     * @return One result per code, in request order: OK (checked in now), ALREADY_USED (before, or
+     *         earlier in this batch) or UNKNOWN
+     * @throws IllegalArgumentException if no codes or too many codes are given
+     * @throws ConcurrentCheckInException if another request checked in some of the codes meanwhile (nothing is changed)
+     */
+    @Transactional
+    public List<TokenResult> checkInReservations(List<String> tokens) {
+        logger.info("Checking in {} reservations", tokens.size());
+        
+        Map<String, Reservation> found = findAllByToken(tokens);
+        List<Reservation> checkedIn = found.values().stream()
+                .filter(reservation -> !reservation.isUsed())
+                .toList();
+        
+        if (!checkedIn.isEmpty()) {
+            List<Long> ids = checkedIn.stream().map(Reservation::getId).toList();
+            if (reservationRepository.markAllUsed(ids) != ids.size()) {
+                logger.warn("Concurrent check-in detected in a batch of {} reservations", ids.size());
+                throw new ConcurrentCheckInException();
+            }
+            // The entities are detached by the update, so this only refreshes the returned state
+            checkedIn.forEach(reservation -> reservation.setUsed(true));
+            cacheMaintainer.reservationsUsed(checkedIn);
+            publish(ReservationChangedEvent.Type.USED, checkedIn);
+        }
+        logger.info("Checked in {} reservations", checkedIn.size());
+        
+        Set<String> pending = new HashSet<>();
+        checkedIn.forEach(reservation -> pending.add(reservation.getToken()));
+        List<TokenResult> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            String canonical = canonicalToken(token);
+            Reservation reservation = found.get(canonical);
+            if (reservation == null) {
+                results.add(new TokenResult(token, TokenResult.Status.UNKNOWN, null));
+            } else {
+                // Only the first scan of a code checks it in
+                TokenResult.Status status = pending.remove(canonical) ? TokenResult.Status.OK : TokenResult.Status.ALREADY_USED;
+                results.add(new TokenResult(token, status, new ReservationDto(reservation)));
+            }
+        }
+        return results;
     }
     
     /**
@@ -127,12 +315,11 @@ public class ReservationService {
      * @throws ResourceNotFoundException if not found
      * @throws IllegalStateException if already used
      */
-    @CacheEvict(value = {"reservationsByToken", "activeReservations", "activeReservationsByRestaurant"}, allEntries = true)
+    @Transactional
     public boolean deleteReservation(String token) {
         logger.info("Deleting reservation with token: {}", token);
         
-        Reservation reservation = reservationRepository.findByToken(token)
-            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with token: " + token));
+        Reservation reservation = findByToken(token);
         
         // Do not allow deletion of used reservations
         if (reservation.isUsed()) {
@@ -140,17 +327,121 @@ public class ReservationService {
             throw new IllegalStateException("Cannot delete a used reservation");
         }
         
-        // Delete the reservation
-        reservationRepository.delete(reservation);
+        // The meal row is locked first, as joinWaitlist does, so the freed seat sees every waiting entry
+        Meal meal = reservation.getMeal();
+        if (meal.hasLimitedCapacity()) {
+            mealRepository.findByIdForUpdate(meal.getId());
+        }
+        // Conditional, in case the reservation was checked in since it was read
+        if (reservationRepository.deleteUnused(reservation.getId()) == 0) {
+            logger.warn("Reservation with token {} was used or cancelled meanwhile", token);
+            throw new IllegalStateException("Cannot delete a used reservation");
+        }
+        // Published before the seat is released, so a waitlist promotion follows the cancellation
+        publish(ReservationChangedEvent.Type.CANCELLED, List.of(reservation));
+        releaseSeat(meal);
+        cacheMaintainer.reservationDeleted(reservation);
         logger.info("Reservation with token {} deleted successfully", token);
         return true;
     }
 
     /**
-     * Generate a unique reservation token
-     * @return A unique token string
+     * Take seats from a meal with a single conditional update, so concurrent
+     * reservations never oversell without locking the meal row for long
+     * @param meal The meal
+     * @param seats Number of seats to take
+     * @throws MealFullyBookedException if fewer seats are left
+     */
+    private void reserveSeats(Meal meal, int seats) {
+        if (meal.hasLimitedCapacity() && mealRepository.reserveSeats(meal.getId(), seats) == 0) {
+            logger.warn("Meal ID {} has fewer than {} seats left", meal.getId(), seats);
+            throw new MealFullyBookedException(meal.getId());
+        }
+    }
+
+    /**
+     * Give a freed seat to the head of the meal's waitlist, or back to the meal if nobody is waiting.
+     * The caller holds the meal row lock.
+     * @param meal The meal
+     */
+    private void releaseSeat(Meal meal) {
+        if (meal.hasLimitedCapacity() && !waitlistService.promoteNext(meal)) {
+            mealRepository.releaseSeats(meal.getId(), 1);
+        }
+    }
+
+    /**
+     * Announce changed reservations to after-commit listeners such as the {@link ReservationFeed}
+     * @param type What happened to the reservations
+     * @param reservations The changed reservations
      */
-    private String generateToken() {
-        return UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private void publish(ReservationChangedEvent.Type type, List<Reservation> reservations) {
+        ReservationChangedEvent.of(type, reservations).forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Trim a limit+1 result down to a page and derive the next cursor
+     * @param reservations Reservations fetched with one extra row
+     * @param limit Requested page size
+     * @return The page
+     */
+    private ReservationPage toPage(List<ReservationDto> reservations, int limit) {
+        if (reservations.size() <= limit) {
+            return new ReservationPage(reservations, null);
+        }
+        
+        List<ReservationDto> items = List.copyOf(reservations.subList(0, limit));
+        String nextCursor = ReservationCursor.after(items.get(limit - 1)).encode();
+        return new ReservationPage(items, nextCursor);
+    }
+
+    /**
+     * Resolve well-formed codes with a single IN query
+     * @param tokens Reservation codes
+     * @return Reservations found, by canonical code
+     * @throws IllegalArgumentException if no codes or too many codes are given
+     */
+    private Map<String, Reservation> findAllByToken(List<String> tokens) {
+        if (tokens.isEmpty() || tokens.size() > MAX_BULK_TOKENS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BULK_TOKENS + " codes per request");
+        }
+        
+        Set<String> canonical = new LinkedHashSet<>();
+        for (String token : tokens) {
+            String code = canonicalToken(token);
+            if (code != null) {
+                canonical.add(code);
+            }
+        }
+        if (canonical.isEmpty()) {
+            // Lookups use null for malformed codes, which Map.of() rejects
+            return Collections.emptyMap();
+        }
+        
+        return reservationRepository.findAllByTokenIn(canonical).stream()
+                .collect(Collectors.toMap(Reservation::getToken, Function.identity()));
+    }
+
+    /**
+     * @param token A code as typed or scanned (any case, Crockford look-alikes)
+     * @return The code as stored, or null if it is malformed
+     */
+    private static String canonicalToken(String token) {
+        return ReservationToken.isValid(token) ? ReservationToken.canonical(token) : null;
+    }
+
+    /**
+     * Look up a reservation, rejecting malformed tokens without a database round trip
+     * @param token The reservation token
+     * @return The reservation
+     * @throws ResourceNotFoundException if the token is malformed or unknown
+     */
+    private Reservation findByToken(String token) {
+        if (!ReservationToken.isValid(token)) {
+            throw new ResourceNotFoundException("Reservation not found with token: " + token);
+        }
+        
+        return reservationRepository.findByToken(token)
+            .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with token: " + token));
     }
 } 
\ No newline at end of file
@@ -3,8 +3,8 @@ package pt.ua.deti.tqs.meal.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.stereotype.Service;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
@@ -19,6 +19,9 @@ public class RestaurantService {
     @Autowired
     private RestaurantRepository restaurantRepository;
     
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+    
     /**
      * Get all restaurants
      * @return List of all restaurants
@@ -47,10 +50,12 @@ public class RestaurantService {
      * @param restaurant The restaurant to create
      * @return The created restaurant
      */
-    @CacheEvict(value = {"restaurantServiceFindAll", "restaurantServiceFindById"}, allEntries = true)
     public Restaurant createRestaurant(Restaurant restaurant) {
         logger.info("Creating new restaurant: {}", restaurant.getName());
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        
+        invalidationBus.evict("restaurantServiceFindAll", SimpleKey.EMPTY);
+        return savedRestaurant;
     }
     
     /**
@@ -60,7 +65,6 @@ public class RestaurantService {
      * @return The updated restaurant
      * @throws ResourceNotFoundException if not found
      */
-    @CacheEvict(value = {"restaurantServiceFindAll", "restaurantServiceFindById"}, allEntries = true)
     public Restaurant updateRestaurant(Long id, Restaurant restaurantDetails) {
         logger.info("Updating restaurant with ID: {}", id);
         
@@ -70,7 +74,9 @@ public class RestaurantService {
         restaurant.setName(restaurantDetails.getName());
         restaurant.setDescription(restaurantDetails.getDescription());
         
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        evictRestaurant(id);
+        return savedRestaurant;
     }
     
     /**
@@ -78,7 +84,6 @@ public class RestaurantService {
      * @param id The restaurant ID to delete
      * @throws ResourceNotFoundException if not found
      */
-    @CacheEvict(value = {"restaurantServiceFindAll", "restaurantServiceFindById"}, allEntries = true)
     public void deleteRestaurant(Long id) {
         logger.info("Deleting restaurant with ID: {}", id);
         
@@ -86,5 +91,15 @@ public class RestaurantService {
             .orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + id));
         
         restaurantRepository.delete(restaurant);
+        evictRestaurant(id);
+    }
+    
+    /**
+     * Evict a saved restaurant on every node (the repository call has already committed)
+     * @param id The restaurant ID
+     */
+    private void evictRestaurant(Long id) {
+        invalidationBus.evict("restaurantServiceFindById", id);
+        invalidationBus.evict("restaurantServiceFindAll", SimpleKey.EMPTY);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,126 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocates reservation tokens without a database round trip per token.
+ *
+ * Each node reserves a block of {@link #BLOCK_SIZE} consecutive values from the
+ * {@code reservation_token_block_seq} sequence and hands them out from memory, so values
+ * are unique across nodes and restarts. Every value is then passed through a keyed
+ * 40-bit Feistel permutation, which is a bijection: tokens stay collision-free but are
+ * not guessable from one another.
+ */
+@Component
+public class TokenAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(TokenAllocator.class);
+    
+    // Must never change once tokens have been issued, or blocks would overlap
+    static final int BLOCK_SIZE = 1024;
+    private static final int HALF_BITS = 20;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final long[] roundKeys;
+    
+    private long next;
+    private long blockEnd;
+    
+    /**
+     * @param secret Permutation key; changing it after tokens were issued can produce duplicates
+     */
+    public TokenAllocator(@Value("${meal.token.secret:meal-reservation-tokens}") String secret) {
+        this.roundKeys = deriveRoundKeys(secret);
+    }
+    
+    /**
+     * Allocate a new reservation token
+     * @return The token code
+     */
+    public synchronized String nextToken() {
+        if (next >= blockEnd) {
+            reserveBlock();
+        }
+        return ReservationToken.encode(permute(next++));
+    }
+    
+    /**
+     * Allocate several tokens at once, reserving as many blocks as needed
+     * @param count Number of tokens
+     * @return The token codes
+     */
+    public synchronized List<String> nextTokens(int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(nextToken());
+        }
+        return tokens;
+    }
+    
+    private void reserveBlock() {
+        Long block = jdbcTemplate.queryForObject("SELECT nextval('reservation_token_block_seq')", Long.class);
+        long start = block * BLOCK_SIZE;
+        
+        if (start + BLOCK_SIZE - 1 > ReservationToken.MAX_VALUE) {
+            throw new IllegalStateException("Reservation token space exhausted");
+        }
+        
+        next = start;
+        blockEnd = start + BLOCK_SIZE;
+        logger.info("Reserved reservation token block {} ({} tokens)", block, BLOCK_SIZE);
+    }
+    
+    /**
+     * Balanced Feistel network over 40 bits (two 20-bit halves)
+     */
+    long permute(long value) {
+        long left = (value >>> HALF_BITS) & HALF_MASK;
+        long right = value & HALF_MASK;
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            long mixed = left ^ (mix(right ^ roundKeys[round]) & HALF_MASK);
+            left = right;
+            right = mixed;
+        }
+        
+        return (left << HALF_BITS) | right;
+    }
+    
+    private static long mix(long value) {
+        // MurmurHash3 64-bit finalizer
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+    
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = buffer.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
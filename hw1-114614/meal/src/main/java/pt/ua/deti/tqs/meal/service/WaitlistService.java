@@ -0,0 +1,171 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
+import pt.ua.deti.tqs.meal.domain.WaitlistEntry;
+import pt.ua.deti.tqs.meal.domain.WaitlistStatus;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+import pt.ua.deti.tqs.meal.repository.ReservationRepository;
+import pt.ua.deti.tqs.meal.repository.WaitlistEntryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class WaitlistService {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+    
+    // Candidates fetched per promotion attempt, in case the head is claimed concurrently
+    private static final int PROMOTION_CANDIDATES = 5;
+    
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    
+    @Autowired
+    private MealRepository mealRepository;
+    
+    @Autowired
+    private ReservationRepository reservationRepository;
+    
+    @Autowired
+    private TokenAllocator tokenAllocator;
+    
+    @Autowired
+    private ReservationCacheMaintainer cacheMaintainer;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Join the waitlist of a fully booked meal.
+     * The entry token becomes the reservation token once the entry is promoted.
+     * @param mealId The meal ID
+     * @return The waitlist entry (already promoted if a seat was free)
+     * @throws ResourceNotFoundException if the meal does not exist
+     * @throws IllegalStateException if the meal has no seat limit
+     */
+    @Transactional
+    public WaitlistEntry joinWaitlist(Long mealId) {
+        logger.info("Joining waitlist for meal ID: {}", mealId);
+        
+        // Locked until commit: a seat freed meanwhile waits for this entry, then goes to it
+        Meal meal = mealRepository.findByIdForUpdate(mealId)
+            .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + mealId));
+        
+        if (!meal.hasLimitedCapacity()) {
+            throw new IllegalStateException("Meal has no seat limit, reserve it directly");
+        }
+        
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setMeal(meal);
+        entry.setToken(tokenAllocator.nextToken());
+        entry.setCreatedAt(LocalDateTime.now());
+        
+        // A seat may have been freed since the caller saw the meal as full
+        if (mealRepository.reserveSeats(mealId, 1) == 1) {
+            entry.setStatus(WaitlistStatus.PROMOTED);
+            waitlistEntryRepository.save(entry);
+            createReservation(entry);
+        } else {
+            entry.setStatus(WaitlistStatus.WAITING);
+            waitlistEntryRepository.save(entry);
+        }
+        
+        logger.info("Waitlist entry {} for meal ID {} is {}", entry.getToken(), mealId, entry.getStatus());
+        return entry;
+    }
+    
+    /**
+     * Get a waitlist entry by token
+     * @param token The waitlist token
+     * @return The entry
+     * @throws ResourceNotFoundException if not found
+     */
+    public WaitlistEntry getEntry(String token) {
+        if (!ReservationToken.isValid(token)) {
+            throw new ResourceNotFoundException("Waitlist entry not found with token: " + token);
+        }
+        
+        return waitlistEntryRepository.findByToken(token)
+            .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found with token: " + token));
+    }
+    
+    /**
+     * Position of an entry in its meal's waitlist
+     * @param entry The waitlist entry
+     * @return 1-based position, or 0 if the entry is no longer waiting
+     */
+    public long getPosition(WaitlistEntry entry) {
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return 0;
+        }
+        return waitlistEntryRepository.countByMealIdAndStatusAndIdLessThan(
+                entry.getMeal().getId(), WaitlistStatus.WAITING, entry.getId()) + 1;
+    }
+    
+    /**
+     * Leave the waitlist
+     * @param token The waitlist token
+     * @throws ResourceNotFoundException if not found
+     * @throws IllegalStateException if the entry was already promoted or cancelled
+     */
+    @Transactional
+    public void cancel(String token) {
+        logger.info("Cancelling waitlist entry with token: {}", token);
+        
+        WaitlistEntry entry = getEntry(token);
+        if (waitlistEntryRepository.transition(entry.getId(), WaitlistStatus.WAITING, WaitlistStatus.CANCELLED) == 0) {
+            throw new IllegalStateException("Waitlist entry is no longer waiting");
+        }
+    }
+    
+    /**
+     * Hand a freed seat to the oldest waiting entry of a meal, creating its reservation.
+     * Must run in the transaction that freed the seat.
+     * @param meal The meal whose seat was freed
+     * @return true if an entry took the seat, false if nobody is waiting
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean promoteNext(Meal meal) {
+        while (true) {
+            List<WaitlistEntry> candidates = waitlistEntryRepository.findByMealIdAndStatusOrderByIdAsc(
+                    meal.getId(), WaitlistStatus.WAITING, Limit.of(PROMOTION_CANDIDATES));
+            
+            if (candidates.isEmpty()) {
+                return false;
+            }
+            
+            for (WaitlistEntry candidate : candidates) {
+                if (waitlistEntryRepository.transition(candidate.getId(), WaitlistStatus.WAITING, WaitlistStatus.PROMOTED) == 1) {
+                    createReservation(candidate);
+                    logger.info("Promoted waitlist entry {} for meal ID {}", candidate.getToken(), meal.getId());
+                    return true;
+                }
+            }
+        }
+    }
+    
+    private Reservation createReservation(WaitlistEntry entry) {
+        Reservation reservation = new Reservation();
+        reservation.setMeal(entry.getMeal());
+        reservation.setToken(entry.getToken());
+        reservation.setCreatedAt(LocalDateTime.now());
+        reservation.setUsed(false);
+        
+        Reservation savedReservation = reservationRepository.save(reservation);
+        cacheMaintainer.reservationsCreated(List.of(savedReservation));
+        ReservationChangedEvent.of(ReservationChangedEvent.Type.CREATED, List.of(savedReservation))
+                .forEach(eventPublisher::publishEvent);
+        return savedReservation;
+    }
+}
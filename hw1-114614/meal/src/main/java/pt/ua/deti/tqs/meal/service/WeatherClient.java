@@ -0,0 +1,109 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking client for the weather provider at {@code api.weather.url}.
+ * The provider answers {@code GET ?from=&to=&appid=} with one JSON object per day.
+ */
+@Component
+public class WeatherClient {
+    private static final Logger logger = LoggerFactory.getLogger(WeatherClient.class);
+    
+    @Value("${api.weather.url:https://api.openweathermap.org/data/2.5/weather}")
+    private String apiUrl;
+    
+    @Value("${api.weather.key:defaultKey}")
+    private String apiKey;
+    
+    @Value("${api.weather.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+    
+    @Value("${api.weather.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+    
+    /**
+     * Fetch forecasts for a range of dates with one request
+     * @param from First date (inclusive)
+     * @param to Last date (inclusive)
+     * @return Future of date to forecast; completes exceptionally on timeout or provider error
+     */
+    public CompletableFuture<Map<LocalDate, WeatherForecast>> fetchForecasts(LocalDate from, LocalDate to) {
+        URI uri = UriComponentsBuilder.fromUriString(apiUrl)
+                .queryParam("from", from)
+                .queryParam("to", to)
+                .queryParam("appid", apiKey)
+                .build()
+                .toUri();
+        
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        
+        logger.info("Requesting weather forecasts from {} to {}", from, to);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(this::parse);
+    }
+    
+    private Map<LocalDate, WeatherForecast> parse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Weather provider returned status " + response.statusCode());
+        }
+        
+        try {
+            List<ProviderForecast> days = objectMapper.readValue(response.body(), new TypeReference<>() { });
+            Map<LocalDate, WeatherForecast> forecasts = new HashMap<>();
+            for (ProviderForecast day : days) {
+                forecasts.put(day.date(), WeatherForecast.builder()
+                        .description(day.description())
+                        .minTemperature(day.minTemperature())
+                        .maxTemperature(day.maxTemperature())
+                        .precipitationProbability(day.precipitationProbability())
+                        .build());
+            }
+            return forecasts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid weather provider response", e);
+        }
+    }
+    
+    private record ProviderForecast(LocalDate date, String description, Double minTemperature,
+                                    Double maxTemperature, String precipitationProbability) {
+    }
+}
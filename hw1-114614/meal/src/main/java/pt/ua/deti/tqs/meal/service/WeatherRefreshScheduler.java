@@ -0,0 +1,41 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Refresh-ahead for the forecast horizon: reloads the next days into weatherData on a
+ * schedule shorter than the shortest forecast expiry, so requests never wait on the provider.
+ */
+@Component
+@ConditionalOnProperty(name = "meal.weather.refresh-ahead.enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherRefreshScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(WeatherRefreshScheduler.class);
+    
+    @Autowired
+    private WeatherService weatherService;
+    
+    /**
+     * Reload today and the rest of the forecast horizon in one range request
+     */
+    @Scheduled(fixedDelayString = "${meal.weather.refresh-ahead.interval:PT30M}",
+               initialDelayString = "${meal.weather.refresh-ahead.interval:PT30M}")
+    public void refreshHorizon() {
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(WeatherService.FORECAST_HORIZON_DAYS - 1);
+        logger.info("Refreshing weather forecasts from {} to {}", today, last);
+        
+        try {
+            weatherService.refreshForecasts(today, last).join();
+        } catch (RuntimeException e) {
+            // Cached forecasts stay until they expire; the next run tries again
+            logger.warn("Weather refresh-ahead failed: {}", e.getMessage());
+        }
+    }
+}
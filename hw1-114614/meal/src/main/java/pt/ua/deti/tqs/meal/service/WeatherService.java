@@ -1,64 +1,566 @@
 package pt.ua.deti.tqs.meal.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import pt.ua.deti.tqs.meal.config.ForecastExpiry;
+import pt.ua.deti.tqs.meal.domain.ForecastSnapshot;
+import pt.ua.deti.tqs.meal.exception.WeatherUnavailableException;
+import pt.ua.deti.tqs.meal.repository.ForecastSnapshotRepository;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
-public class WeatherService {
+public class WeatherService implements SmartInitializingSingleton {
     private static final Logger logger = LoggerFactory.getLogger(WeatherService.class);
     
-    @Value("${api.weather.url:https://api.openweathermap.org/data/2.5/weather}")
-    private String apiUrl;
+    public static final String WEATHER_CACHE = "weatherData";
     
-    @Value("${api.weather.key:defaultKey}")
-    private String apiKey;
+    // Days ahead (including today) the provider forecasts
+    public static final int FORECAST_HORIZON_DAYS = 10;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final int SNAPSHOT_QUEUE_CAPACITY = 16;
+    
+    // When false, forecasts are generated locally instead of calling the provider
+    @Value("${api.weather.enabled:false}")
+    private boolean providerEnabled;
+    
+    // Consecutive provider failures that open the circuit, and how long it stays open
+    @Value("${api.weather.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+    
+    @Value("${api.weather.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+    
+    // Provider calls allowed in flight at once; further calls are rejected, not queued
+    @Value("${api.weather.bulkhead.max-concurrent-calls:4}")
+    private int maxConcurrentCalls;
+    
+    // How long a page waits for missing forecasts before rendering without them
+    @Value("${api.weather.caller-timeout-ms:1500}")
+    private long callerTimeoutMs;
+    
+    @Autowired
+    private WeatherClient weatherClient;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private ForecastSnapshotRepository snapshotRepository;
+    
+    @Autowired
+    private ForecastExpiry forecastExpiry;
+    
+    // Reload stored forecasts into the cache at startup, so a restarted node starts warm
+    @Value("${meal.weather.snapshot.restore-on-startup:true}")
+    private boolean restoreSnapshot;
+    
+    private CircuitBreaker circuitBreaker;
+    private Semaphore bulkhead;
+    
+    // Snapshot reads and writes block on JPA; they run here rather than on the HTTP client's threads.
+    // The queue is bounded: snapshots are best effort and are dropped when the database falls behind
+    private final ExecutorService snapshotExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(SNAPSHOT_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "weather-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    // Upstream calls in progress per date; concurrent misses for a date share one call
+    private final ConcurrentMap<LocalDate, CompletableFuture<WeatherForecast>> inFlight = new ConcurrentHashMap<>();
     
     // Simple counters for cache statistics
     private final AtomicInteger hits = new AtomicInteger(0);
     private final AtomicInteger misses = new AtomicInteger(0);
     
+    // Provider resilience counters
+    private final AtomicLong bulkheadRejections = new AtomicLong();
+    private final AtomicLong callerTimeouts = new AtomicLong();
+    private final AtomicLong lastKnownGoodServed = new AtomicLong();
+    private final AtomicLong unavailable = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        circuitBreaker = new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC());
+        bulkhead = new Semaphore(maxConcurrentCalls);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        snapshotExecutor.shutdown();
+    }
+    
+    /**
+     * Runs once the context is wired and before the web server accepts requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (restoreSnapshot) {
+            restoreSnapshot();
+        }
+    }
+    
+    /**
+     * Dates from today on that have a forecast, for lookups that start before the meals are known
+     * @param days Number of days, starting today; capped at the forecast horizon
+     * @return The dates
+     */
+    public static Set<LocalDate> forecastWindow(int days) {
+        LocalDate today = LocalDate.now();
+        Set<LocalDate> dates = new TreeSet<>();
+        for (int i = 0; i < Math.min(days, FORECAST_HORIZON_DAYS); i++) {
+            dates.add(today.plusDays(i));
+        }
+        return dates;
+    }
+    
     /**
      * Get weather forecast for a specific date
      * @param date The date to get forecast for
-     * @return Weather forecast
+     * @return Weather forecast, or null if the forecast is unavailable
      */
-    @Cacheable("weatherData")
+    // A last-known-good forecast stands in while the provider fails; it is not cached as a fresh one
+    @Cacheable(value = WEATHER_CACHE, unless = "#result == null || #result.fallback")
     public WeatherForecast getForecastForDate(LocalDate date) {
         logger.info("Fetching weather forecast for date: {}", date);
         misses.incrementAndGet();
         
-        // In a real application, we would call an external API
-        // For this example, we'll just return mock data
-        return generateMockForecast(date);
+        return await(fetchCoalesced(new TreeSet<>(Set.of(date))).get(date), () -> null);
     }
     
     /**
-     * Get weather forecasts for multiple dates
+     * Get weather forecast for a specific date without blocking the caller
+     * @param date The date to get forecast for
+     * @return Future of the forecast; completes with null if the forecast is unavailable
+     */
+    public CompletableFuture<WeatherForecast> getForecastAsync(LocalDate date) {
+        return getForecastsAsync(Set.of(date)).thenApply(forecasts -> forecasts.get(date));
+    }
+    
+    /**
+     * Get weather forecasts for multiple dates (getAll semantics).
+     * Cached dates are served from the weatherData cache; all missing dates are fetched
+     * with one range request and written to the cache in one step.
+     * Waits at most {@code api.weather.caller-timeout-ms}; dates still missing then are left out.
      * @param dates Set of dates to get forecasts for
-     * @return Map of date to forecast
+     * @return Map of date to forecast; dates without an available forecast are absent
      */
     public Map<LocalDate, WeatherForecast> getForecastForDates(Set<LocalDate> dates) {
+        return await(getForecastsAsync(dates), () -> new HashMap<>(getCachedForecasts(dates)));
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getForecastForDates(Set)}.
+     * Dates already being fetched by another caller join that call instead of issuing a new one.
+     * @param dates Set of dates to get forecasts for
+     * @return Future of date to forecast; dates without an available forecast are absent
+     */
+    public CompletableFuture<Map<LocalDate, WeatherForecast>> getForecastsAsync(Set<LocalDate> dates) {
         logger.info("Fetching weather forecasts for {} dates", dates.size());
         
+        Map<LocalDate, WeatherForecast> forecasts = new ConcurrentHashMap<>(getCachedForecasts(dates));
+        TreeSet<LocalDate> missing = dates.stream()
+                .filter(date -> !forecasts.containsKey(date))
+                .collect(Collectors.toCollection(TreeSet::new));
+        
+        hits.addAndGet(forecasts.size());
+        misses.addAndGet(missing.size());
+        logger.info("Weather forecasts: {} cached, {} to fetch", dates.size() - missing.size(), missing.size());
+        
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(forecasts);
+        }
+        
+        Map<LocalDate, CompletableFuture<WeatherForecast>> pending = fetchCoalesced(missing);
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    pending.forEach((date, forecast) -> {
+                        WeatherForecast value = forecast.join();
+                        if (value != null) {
+                            forecasts.put(date, value);
+                        }
+                    });
+                    return forecasts;
+                });
+    }
+    
+    /**
+     * Fingerprint of the forecasts currently cached for some dates, for use in ETags.
+     * Only looks at the cache; it changes whenever a cached forecast appears, expires or changes.
+     * @param dates The dates
+     * @return Hash of the cached forecasts, by date
+     */
+    @SuppressWarnings("unchecked")
+    public int cachedForecastsFingerprint(Set<LocalDate> dates) {
+        Cache cache = cacheManager.getCache(WEATHER_CACHE);
+        if (cache == null) {
+            return 0;
+        }
+        
+        Map<LocalDate, Object> cached = new TreeMap<>();
+        for (LocalDate date : dates) {
+            // Peek without recording a hit or miss, the cache statistics only count real lookups
+            Object forecast = cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+                    ? ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).policy().getIfPresentQuietly(date)
+                    : cache.get(date, Object.class);
+            cached.put(date, forecast);
+        }
+        return List.copyOf(cached.entrySet()).hashCode();
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getForecastForDates(Set)} with the same caller timeout.
+     * @param dates Set of dates to get forecasts for
+     * @return Future of date to forecast; completes with the forecasts cached by then if the provider is slower than the caller timeout
+     */
+    public CompletableFuture<Map<LocalDate, WeatherForecast>> getForecastsWithinDeadline(Set<LocalDate> dates) {
+        return getForecastsAsync(dates)
+                .orTimeout(callerTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    if (!(e instanceof TimeoutException) && !(e.getCause() instanceof TimeoutException)) {
+                        throw new IllegalStateException("Weather forecast lookup failed", e);
+                    }
+                    // As in await: the fetch carries on in the background and caches its result
+                    callerTimeouts.incrementAndGet();
+                    logger.warn("Weather forecasts not ready after {}ms, continuing without them", callerTimeoutMs);
+                    return new HashMap<>(getCachedForecasts(dates));
+                });
+    }
+    
+    /**
+     * Fetch forecasts for a range of dates in one upstream request
+     * @param from First date (inclusive)
+     * @param to Last date (inclusive)
+     * @return Future of date to forecast for every date in the range; fails with
+     *         {@link WeatherUnavailableException} when the circuit is open or the bulkhead is full
+     */
+    public CompletableFuture<Map<LocalDate, WeatherForecast>> fetchForecasts(LocalDate from, LocalDate to) {
+        logger.info("Fetching weather forecasts from {} to {}", from, to);
+        
+        if (providerEnabled) {
+            return fetchFromProvider(from, to);
+        }
+        
         Map<LocalDate, WeatherForecast> forecasts = new HashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            forecasts.put(date, generateMockForecast(date));
+        }
+        // Generated forecasts are not worth keeping as last-known-good ones
+        return CompletableFuture.completedFuture(forecasts);
+    }
+    
+    /**
+     * Reload a range of forecasts into the cache ahead of their expiry, replacing cached values
+     * @param from First date (inclusive)
+     * @param to Last date (inclusive)
+     * @return Future completing once the cache holds the fresh forecasts
+     */
+    public CompletableFuture<Void> refreshForecasts(LocalDate from, LocalDate to) {
+        return fetchForecasts(from, to).thenAccept(this::cacheForecasts);
+    }
+    
+    /**
+     * Call the provider through the bulkhead and the circuit breaker; rejected calls fail fast
+     * instead of tying up a thread, and successful responses are stored as the forecast snapshot
+     * @param from First date (inclusive)
+     * @param to Last date (inclusive)
+     * @return Future of date to forecast
+     */
+    private CompletableFuture<Map<LocalDate, WeatherForecast>> fetchFromProvider(LocalDate from, LocalDate to) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.incrementAndGet();
+            return CompletableFuture.failedFuture(new WeatherUnavailableException("Weather provider bulkhead is full"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new WeatherUnavailableException("Weather provider circuit is open"));
+        }
+        
+        CompletableFuture<Map<LocalDate, WeatherForecast>> call;
+        try {
+            call = weatherClient.fetchForecasts(from, to);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        
+        return call.whenComplete((forecasts, error) -> {
+            bulkhead.release();
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                saveSnapshot(forecasts);
+            } else {
+                circuitBreaker.onFailure();
+                logger.warn("Weather provider call failed ({} consecutive failures, circuit {}): {}",
+                        circuitBreaker.getConsecutiveFailures(), circuitBreaker.getState(), error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Single-flight fetch: join the in-flight call for dates already being fetched, and fetch
+     * the remaining dates with one range request that other callers can join meanwhile.
+     * When the fetch fails, dates are answered with their last-known-good forecast, marked as
+     * {@link WeatherForecast#isFallback() fallback} and not cached, or with null when there is none.
+     * @param dates Dates missing from the cache
+     * @return Future per date
+     */
+    private Map<LocalDate, CompletableFuture<WeatherForecast>> fetchCoalesced(SortedSet<LocalDate> dates) {
+        Map<LocalDate, CompletableFuture<WeatherForecast>> futures = new HashMap<>();
+        TreeMap<LocalDate, CompletableFuture<WeatherForecast>> owned = new TreeMap<>();
         
         for (LocalDate date : dates) {
-            forecasts.put(date, getForecastForDate(date));
+            CompletableFuture<WeatherForecast> promise = new CompletableFuture<>();
+            CompletableFuture<WeatherForecast> existing = inFlight.putIfAbsent(date, promise);
+            if (existing != null) {
+                futures.put(date, existing);
+            } else {
+                owned.put(date, promise);
+                futures.put(date, promise);
+            }
         }
         
-        return forecasts;
+        // A call that finished between the caller's cache miss and our claim has cached its dates already
+        if (!owned.isEmpty()) {
+            getCachedForecasts(owned.keySet()).forEach((date, forecast) -> {
+                CompletableFuture<WeatherForecast> promise = owned.remove(date);
+                inFlight.remove(date, promise);
+                promise.complete(forecast);
+            });
+        }
+        
+        if (!owned.isEmpty()) {
+            fetchForecasts(owned.firstKey(), owned.lastKey()).thenApply(fetched -> {
+                cacheForecasts(fetched);
+                return fetched;
+            }).exceptionallyCompose(error -> findLastKnownGood(owned.keySet())).whenComplete((resolved, error) -> {
+                Map<LocalDate, WeatherForecast> forecasts = resolved == null ? Map.of() : resolved;
+                owned.forEach((date, promise) -> {
+                    inFlight.remove(date, promise);
+                    WeatherForecast forecast = forecasts.get(date);
+                    if (forecast == null) {
+                        unavailable.incrementAndGet();
+                        logger.warn("No weather forecast available for {}", date);
+                    }
+                    promise.complete(forecast);
+                });
+            });
+        }
+        
+        // Callers get copies so none of them can complete the shared future
+        futures.replaceAll((date, future) -> future.copy());
+        return futures;
+    }
+    
+    /**
+     * Wait for a forecast lookup for at most the caller timeout
+     * @param future The lookup
+     * @param onTimeout Result to use when the lookup does not finish in time
+     * @return The lookup result, or the timeout result
+     */
+    private <T> T await(CompletableFuture<T> future, Supplier<T> onTimeout) {
+        try {
+            return future.get(callerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The fetch carries on in the background and caches its result for later requests
+            callerTimeouts.incrementAndGet();
+            logger.warn("Weather forecasts not ready after {}ms, continuing without them", callerTimeoutMs);
+            return onTimeout.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return onTimeout.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Weather forecast lookup failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Load the stored forecasts of some dates, on the snapshot executor
+     * @param dates The dates
+     * @return Future of date to forecast, each marked as fallback; empty when none can be loaded
+     */
+    private CompletableFuture<Map<LocalDate, WeatherForecast>> findLastKnownGood(Collection<LocalDate> dates) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Map<LocalDate, WeatherForecast> forecasts = snapshotRepository.findByForecastDateIn(dates).stream()
+                            .collect(Collectors.toMap(ForecastSnapshot::getForecastDate, snapshot -> {
+                                WeatherForecast forecast = toForecast(snapshot);
+                                forecast.fallback = true;
+                                return forecast;
+                            }));
+                    lastKnownGoodServed.addAndGet(forecasts.size());
+                    return forecasts;
+                } catch (RuntimeException e) {
+                    logger.error("Could not load last-known-good weather forecasts: {}", e.getMessage());
+                    return Map.<LocalDate, WeatherForecast>of();
+                }
+            }, snapshotExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Weather snapshot queue is full, no last-known-good forecasts for {} dates", dates.size());
+            return CompletableFuture.completedFuture(Map.of());
+        }
+    }
+    
+    /**
+     * Store freshly fetched forecasts, one row per date, on the snapshot executor; they serve as
+     * last-known-good forecasts and are reloaded into the cache on restart
+     * @param forecasts Forecasts just fetched
+     */
+    private void saveSnapshot(Map<LocalDate, WeatherForecast> forecasts) {
+        LocalDateTime fetchedAt = LocalDateTime.now();
+        List<ForecastSnapshot> snapshots = forecasts.entrySet().stream()
+                .map(entry -> toSnapshot(entry.getKey(), entry.getValue(), fetchedAt))
+                .collect(Collectors.toList());
+        try {
+            snapshotExecutor.execute(() -> {
+                try {
+                    snapshotRepository.saveAll(snapshots);
+                } catch (RuntimeException e) {
+                    logger.error("Could not save weather forecast snapshot: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Weather snapshot queue is full, dropping snapshot of {} forecasts", snapshots.size());
+        }
+    }
+    
+    /**
+     * Load the stored forecasts into the weatherData cache. Each entry only lives for what is
+     * left of its time to live, counted from when it was fetched; expired entries are skipped.
+     * @return Number of forecasts restored
+     */
+    @SuppressWarnings("unchecked")
+    public int restoreSnapshot() {
+        Cache cache = cacheManager.getCache(WEATHER_CACHE);
+        if (cache == null) {
+            return 0;
+        }
+        
+        int restored = 0;
+        try {
+            LocalDate today = LocalDate.now();
+            // Forecasts from before yesterday are never served again
+            snapshotRepository.deleteByForecastDateBefore(today.minusDays(1));
+            
+            LocalDateTime now = LocalDateTime.now();
+            for (ForecastSnapshot snapshot : snapshotRepository.findByForecastDateGreaterThanEqual(today.minusDays(1))) {
+                Duration age = Duration.between(snapshot.getFetchedAt(), now);
+                Duration remaining = forecastExpiry.timeToLive(snapshot.getForecastDate()).minus(age);
+                if (remaining.isNegative() || remaining.isZero()) {
+                    continue;
+                }
+                
+                WeatherForecast forecast = toForecast(snapshot);
+                if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+                        && nativeCache.policy().expireVariably().isPresent()) {
+                    ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).policy().expireVariably().get()
+                            .put(snapshot.getForecastDate(), forecast, remaining);
+                } else {
+                    cache.put(snapshot.getForecastDate(), forecast);
+                }
+                restored++;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not restore weather forecast snapshot: {}", e.getMessage());
+        }
+        
+        logger.info("Restored {} weather forecasts from snapshot", restored);
+        return restored;
+    }
+    
+    private ForecastSnapshot toSnapshot(LocalDate date, WeatherForecast forecast, LocalDateTime fetchedAt) {
+        ForecastSnapshot snapshot = new ForecastSnapshot();
+        snapshot.setForecastDate(date);
+        snapshot.setDescription(forecast.getDescription());
+        snapshot.setMinTemperature(forecast.getMinTemperature());
+        snapshot.setMaxTemperature(forecast.getMaxTemperature());
+        snapshot.setPrecipitationProbability(forecast.getPrecipitationProbability());
+        snapshot.setFetchedAt(fetchedAt);
+        return snapshot;
+    }
+    
+    private WeatherForecast toForecast(ForecastSnapshot snapshot) {
+        return WeatherForecast.builder()
+                .description(snapshot.getDescription())
+                .minTemperature(snapshot.getMinTemperature())
+                .maxTemperature(snapshot.getMaxTemperature())
+                .precipitationProbability(snapshot.getPrecipitationProbability())
+                .build();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<LocalDate, WeatherForecast> getCachedForecasts(Set<LocalDate> dates) {
+        Cache cache = cacheManager.getCache(WEATHER_CACHE);
+        if (cache == null) {
+            return Map.of();
+        }
+        
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            Map<?, ?> present = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).getAllPresent(dates);
+            return (Map<LocalDate, WeatherForecast>) present;
+        }
+        
+        Map<LocalDate, WeatherForecast> cached = new HashMap<>();
+        for (LocalDate date : dates) {
+            WeatherForecast forecast = cache.get(date, WeatherForecast.class);
+            if (forecast != null) {
+                cached.put(date, forecast);
+            }
+        }
+        return cached;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void cacheForecasts(Map<LocalDate, WeatherForecast> forecasts) {
+        Cache cache = cacheManager.getCache(WEATHER_CACHE);
+        if (cache == null) {
+            return;
+        }
+        
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).putAll(forecasts);
+        } else {
+            forecasts.forEach(cache::put);
+        }
     }
     
     /**
@@ -96,6 +598,26 @@ public class WeatherService {
         Map<String, Integer> stats = new HashMap<>();
         stats.put("hits", hits.get());
         stats.put("misses", misses.get());
+        int lookups = hits.get() + misses.get();
+        stats.put("hitRatePercent", lookups == 0 ? 0 : hits.get() * 100 / lookups);
+        return stats;
+    }
+    
+    /**
+     * Get the state of the weather provider circuit breaker and bulkhead
+     * @return Map with circuit state, rejection counts and degraded responses
+     */
+    public Map<String, Object> getProviderStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", providerEnabled);
+        stats.put("circuitState", circuitBreaker.getState().name());
+        stats.put("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+        stats.put("circuitRejections", circuitBreaker.getRejections());
+        stats.put("bulkheadRejections", bulkheadRejections.get());
+        stats.put("bulkheadAvailable", bulkhead.availablePermits());
+        stats.put("callerTimeouts", callerTimeouts.get());
+        stats.put("lastKnownGoodServed", lastKnownGoodServed.get());
+        stats.put("unavailable", unavailable.get());
         return stats;
     }
     
@@ -123,6 +645,8 @@ public class WeatherService {
         private Double minTemperature;
         private Double maxTemperature;
         private String precipitationProbability;
+        // Last-known-good forecast served while the provider fails; not part of the value
+        private boolean fallback;
         
         public WeatherForecast() {
             // Default constructor for builder
@@ -152,11 +676,38 @@ public class WeatherService {
             return precipitationProbability;
         }
         
+        /**
+         * @return true if this is a stored forecast standing in for a failed provider call
+         */
+        @JsonIgnore
+        public boolean isFallback() {
+            return fallback;
+        }
+        
         // For backward compatibility
         public double getTemperature() {
             return (minTemperature + maxTemperature) / 2;
         }
         
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WeatherForecast other)) {
+                return false;
+            }
+            return Objects.equals(description, other.description)
+                    && Objects.equals(minTemperature, other.minTemperature)
+                    && Objects.equals(maxTemperature, other.maxTemperature)
+                    && Objects.equals(precipitationProbability, other.precipitationProbability);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(description, minTemperature, maxTemperature, precipitationProbability);
+        }
+        
         // Builder method
         public static Builder builder() {
             return new Builder();
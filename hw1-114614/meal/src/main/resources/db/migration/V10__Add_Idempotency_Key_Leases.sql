@@ -0,0 +1,9 @@
+-- Claims of Idempotency-Keys belong to one request on one node, which renews a lease while it runs;
+-- other nodes only take a claim over once its lease has lapsed
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS owner_id VARCHAR(64);
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+
+UPDATE idempotency_keys SET owner_id = 'unknown', lease_expires_at = created_at WHERE owner_id IS NULL;
+
+ALTER TABLE idempotency_keys ALTER COLUMN owner_id SET NOT NULL;
+ALTER TABLE idempotency_keys ALTER COLUMN lease_expires_at SET NOT NULL;
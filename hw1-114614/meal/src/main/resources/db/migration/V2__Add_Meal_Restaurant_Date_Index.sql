@@ -0,0 +1,6 @@
+-- Composite index backing the per-restaurant menu range query
+-- (restaurant_id = ? AND available_date BETWEEN ? AND ?)
+CREATE INDEX IF NOT EXISTS idx_meal_restaurant_date ON meals (restaurant_id, available_date);
+
+-- idx_meal_restaurant is a prefix of the composite index and no longer needed
+DROP INDEX IF EXISTS idx_meal_restaurant;
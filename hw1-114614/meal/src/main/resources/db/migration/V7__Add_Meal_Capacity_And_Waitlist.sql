@@ -0,0 +1,16 @@
+-- Seat limit per meal; NULL means unlimited (existing meals keep their behaviour)
+ALTER TABLE meals ADD COLUMN capacity INTEGER;
+ALTER TABLE meals ADD COLUMN remaining_seats INTEGER;
+ALTER TABLE meals ADD CONSTRAINT chk_meal_remaining_seats CHECK (remaining_seats >= 0);
+
+-- FIFO waitlist for fully booked meals
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id SERIAL PRIMARY KEY,
+    token BIGINT NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    meal_id BIGINT NOT NULL,
+    CONSTRAINT fk_waitlist_meal FOREIGN KEY (meal_id) REFERENCES meals (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_meal_status ON waitlist_entries (meal_id, status, id);
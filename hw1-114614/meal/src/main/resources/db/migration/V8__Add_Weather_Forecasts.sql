@@ -0,0 +1,9 @@
+-- Last-known-good forecast per date, served while the weather provider is unavailable
+CREATE TABLE IF NOT EXISTS weather_forecasts (
+    forecast_date DATE PRIMARY KEY,
+    description VARCHAR(255),
+    min_temperature DOUBLE PRECISION,
+    max_temperature DOUBLE PRECISION,
+    precipitation_probability VARCHAR(20),
+    fetched_at TIMESTAMP NOT NULL
+);
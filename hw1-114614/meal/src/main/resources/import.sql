@@ -0,0 +1,3 @@
+-- Run by Hibernate only when it creates the schema itself (ddl-auto create/create-drop, Flyway disabled).
+-- Objects not mapped by any entity, mirroring the Flyway migrations.
+CREATE SEQUENCE IF NOT EXISTS reservation_token_block_seq START WITH 1 INCREMENT BY 1;
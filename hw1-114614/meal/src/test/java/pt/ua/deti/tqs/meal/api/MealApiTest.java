@@ -0,0 +1,130 @@
+package pt.ua.deti.tqs.meal.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.restassured.RestAssured;
+import io.restassured.parsing.Parser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+
+import java.time.LocalDate;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.hasSize;
+
+// Rendered responses would be served without any weather lookup; this test is about the weather cache
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "meal.web.response-cache.enabled=false")
+public class MealApiTest {
+
+    private static final int DAYS = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    private Long restaurantId;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1";
+        RestAssured.defaultParser = Parser.JSON;
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("Weather Cache Test Restaurant");
+        restaurant = restaurantRepository.save(restaurant);
+        restaurantId = restaurant.getId();
+
+        for (int i = 0; i < DAYS; i++) {
+            mealRepository.save(new Meal("Meal " + i, "Test meal", LocalDate.now().plusDays(i), restaurant));
+        }
+    }
+
+    @Test
+    void whenMealsRequestedAgain_thenWeatherServedFromCache() {
+        // First request warms the weather cache for the whole range
+        given()
+                .when()
+                .get("/meals?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(DAYS))
+                .body("[0].weather", notNullValue());
+        long hitsBefore = weatherCacheStat("hits");
+        long missesBefore = weatherCacheStat("misses");
+
+        // Second request must not miss
+        given()
+                .when()
+                .get("/meals?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        assertThat(weatherCacheStat("hits") - hitsBefore).isEqualTo(DAYS);
+        assertThat(weatherCacheStat("misses") - missesBefore).isZero();
+    }
+
+    @Test
+    void whenMenuRequested_thenRestaurantOnceAndMealsGroupedByDate() {
+        given()
+                .when()
+                .get("/meals/menu?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("restaurant.name", equalTo("Weather Cache Test Restaurant"))
+                .body("days", hasSize(DAYS))
+                .body("days[0].date", equalTo(LocalDate.now().toString()))
+                .body("days[0].weather", notNullValue())
+                .body("days[0].meals", hasSize(1))
+                .body("days[0].meals[0].name", equalTo("Meal 0"));
+    }
+
+    @Test
+    void whenMenuRequestedAsCbor_thenSameDocumentInBinary() throws Exception {
+        byte[] cbor = given()
+                .accept(MediaType.APPLICATION_CBOR_VALUE)
+                .when()
+                .get("/meals/menu?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(MediaType.APPLICATION_CBOR_VALUE)
+                .extract().asByteArray();
+        String json = given()
+                .when()
+                .get("/meals/menu?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().asString();
+
+        assertThat(new CBORMapper().readTree(cbor)).isEqualTo(new ObjectMapper().readTree(json));
+        assertThat(cbor.length).isLessThan(json.getBytes().length);
+    }
+
+    private long weatherCacheStat(String stat) {
+        Number value = given()
+                .when()
+                .get("/metrics/cache")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("weatherData." + stat);
+        return value.longValue();
+    }
+}
@@ -0,0 +1,198 @@
+package pt.ua.deti.tqs.meal.api;
+
+import io.restassured.RestAssured;
+import io.restassured.parsing.Parser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+
+import java.time.LocalDate;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.hasSize;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveReadApiTest {
+
+    private static final int DAYS = 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    private Long restaurantId;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1";
+        RestAssured.defaultParser = Parser.JSON;
+
+        // Written through JPA, read back through R2DBC
+        Restaurant restaurant = restaurantRepository.save(new Restaurant("Reactive Test Restaurant", "Test Description"));
+        restaurantId = restaurant.getId();
+        for (int i = 0; i < DAYS; i++) {
+            Meal meal = new Meal("Meal " + i, "Test meal", LocalDate.now().plusDays(i), restaurant);
+            meal.setCapacity(10);
+            meal.setRemainingSeats(10);
+            mealRepository.save(meal);
+        }
+    }
+
+    @Test
+    void whenGetMeals_thenSameContractAsBlockingHandler() {
+        given()
+                .when()
+                .get("/meals?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(DAYS))
+                .body("[0].name", equalTo("Meal 0"))
+                .body("[0].date", equalTo(LocalDate.now().toString()))
+                .body("[0].restaurantId", equalTo(restaurantId.intValue()))
+                .body("[0].restaurantName", equalTo("Reactive Test Restaurant"))
+                .body("[0].remainingSeats", is(10))
+                .body("[0].weather", notNullValue());
+    }
+
+    @Test
+    void whenMenuGoesPastForecastHorizon_thenLaterMealsGetTheirForecastToo() {
+        Restaurant restaurant = restaurantRepository.findById(restaurantId).orElseThrow();
+        mealRepository.save(new Meal("Late meal", "Test meal", LocalDate.now().plusDays(12), restaurant));
+
+        given()
+                .when()
+                .get("/meals?restaurantId={id}&days=14", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasSize(DAYS + 1))
+                .body("find { it.name == 'Late meal' }.weather", notNullValue());
+    }
+
+    @Test
+    void whenGetMealsAsNdjson_thenOneDocumentPerLine() {
+        String body = given()
+                .accept(MediaType.APPLICATION_NDJSON_VALUE)
+                .when()
+                .get("/meals?restaurantId={id}&days={days}", restaurantId, DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType(startsWith(MediaType.APPLICATION_NDJSON_VALUE))
+                .extract().asString();
+
+        assertThat(body.lines()).hasSize(DAYS).allSatisfy(line -> assertThat(line).startsWith("{").contains("\"weather\""));
+    }
+
+    @Test
+    void whenGetMealsWithoutRestaurant_thenStatus400() {
+        given()
+                .when()
+                .get("/meals")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void whenGetMealsWithMalformedParameters_thenStatus400() {
+        given()
+                .when()
+                .get("/meals?restaurantId=abc")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .when()
+                .get("/meals?restaurantId=1&days=week")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .when()
+                .get("/meals?restaurantId=1&days=100000000")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .when()
+                .get("/meals?restaurantId=1&days=0")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void whenGetRestaurants_thenRowsWrittenThroughJpaReturned() {
+        given()
+                .when()
+                .get("/restaurants")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("name", hasItem("Reactive Test Restaurant"));
+    }
+
+    @Test
+    void whenGetMultiDayForecast_thenForecastPerDayOrBadRequest() {
+        given()
+                .when()
+                .get("/weather/forecast/days?days={days}", DAYS)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("forecasts", aMapWithSize(DAYS));
+
+        given()
+                .when()
+                .get("/weather/forecast/days?days=11")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        given()
+                .when()
+                .get("/weather/forecast/days?days=three")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void whenRestaurantsUnchanged_thenConditionalGetReturns304() {
+        String etag = given()
+                .when()
+                .get("/restaurants")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/restaurants")
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        // The stream carries no tag, so it is always sent
+        given()
+                .accept(MediaType.APPLICATION_NDJSON_VALUE)
+                .header("If-None-Match", etag)
+                .when()
+                .get("/restaurants")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+    }
+}
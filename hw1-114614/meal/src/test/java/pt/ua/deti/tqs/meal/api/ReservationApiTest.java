@@ -14,11 +14,17 @@ import pt.ua.deti.tqs.meal.domain.Restaurant;
 import pt.ua.deti.tqs.meal.repository.MealRepository;
 import pt.ua.deti.tqs.meal.repository.ReservationRepository;
 import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+import pt.ua.deti.tqs.meal.repository.WaitlistEntryRepository;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.contains;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class ReservationApiTest {
@@ -35,6 +41,9 @@ public class ReservationApiTest {
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
     private Long mealId;
     private String reservationToken;
 
@@ -47,6 +56,7 @@ public class ReservationApiTest {
 
         // Clear data
         reservationRepository.deleteAll();
+        waitlistEntryRepository.deleteAll();
         mealRepository.deleteAll();
         restaurantRepository.deleteAll();
 
@@ -122,6 +132,39 @@ public class ReservationApiTest {
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
 
+    @Test
+    void whenLookedUpByLookAlikeSpelling_thenCheckInIsSeen() {
+        String token = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+        String lookAlike = token.toLowerCase(Locale.ROOT).replace('0', 'o').replace('1', 'l');
+
+        // Cached under the code as issued, whatever spelling asked for it
+        given()
+                .when()
+                .get("/reservations/{token}", lookAlike)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("used", is(false));
+        given()
+                .when()
+                .put("/reservations/{token}/use", token)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .when()
+                .get("/reservations/{token}", lookAlike)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("token", equalTo(token))
+                .body("used", is(true));
+    }
+
     @Test
     void whenMarkReservationAsUsed_thenStatus200AndReservationIsUsed() {
         // First create a reservation
@@ -180,4 +223,310 @@ public class ReservationApiTest {
                 .then()
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void whenGetActiveReservationsForRestaurant_thenOnlyUnusedReservationsReturned() {
+        Long restaurantId = mealRepository.findById(mealId).orElseThrow().getRestaurant().getId();
+
+        // Create two reservations and use one of them
+        String usedToken = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+        String activeToken = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .put("/reservations/{token}/use", usedToken)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .get("/restaurants/{id}/reservations/active", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(1))
+                .body("[0].token", equalTo(activeToken))
+                .body("[0].mealName", equalTo("REST-Assured Test Meal"))
+                .body("[0].restaurantName", equalTo("REST-Assured Test Restaurant"));
+    }
+
+    @Test
+    void whenGetActiveReservationsWithLimit_thenPagesFollowCursor() {
+        Long restaurantId = mealRepository.findById(mealId).orElseThrow().getRestaurant().getId();
+        for (int i = 0; i < 3; i++) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .when()
+                    .post("/reservations?mealId={id}", mealId)
+                    .then()
+                    .statusCode(HttpStatus.OK.value());
+        }
+
+        String cursor = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .get("/restaurants/{id}/reservations/active?limit=2", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(2))
+                .header("X-Next-Cursor", notNullValue())
+                .extract().header("X-Next-Cursor");
+
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .get("/restaurants/{id}/reservations/active?limit=2&after={cursor}", restaurantId, cursor)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(1))
+                .header("X-Next-Cursor", nullValue());
+    }
+
+    @Test
+    void whenCreateReservationsInBatch_thenAllReservationsPersisted() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"items\": [{\"mealId\": " + mealId + ", \"quantity\": 60}]}")
+                .when()
+                .post("/reservations/batch")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(60))
+                .body("used", everyItem(is(false)));
+
+        assertThat(reservationRepository.count()).isEqualTo(60);
+    }
+
+    @Test
+    void whenCheckInInBulk_thenEachTokenGetsItsOutcome() {
+        List<String> tokens = given()
+                .contentType(ContentType.JSON)
+                .body("{\"items\": [{\"mealId\": " + mealId + ", \"quantity\": 2}]}")
+                .when()
+                .post("/reservations/batch")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+        given().when().put("/reservations/{token}/use", tokens.get(1)).then().statusCode(HttpStatus.OK.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("tokens", List.of(tokens.get(0).toLowerCase(), tokens.get(1), "UNKNOWN00")))
+                .when()
+                .post("/reservations/check-in")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("status", contains("OK", "ALREADY_USED", "UNKNOWN"))
+                .body("[0].reservation.used", is(true));
+
+        // The token cache was refreshed with the bulk change
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("tokens", List.of(tokens.get(0))))
+                .when()
+                .post("/reservations/lookup")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("[0].status", equalTo("ALREADY_USED"));
+        given().when().get("/reservations/{token}", tokens.get(0)).then().body("used", is(true));
+    }
+
+    @Test
+    void whenCheckInWithoutTokens_thenStatus400() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"tokens\": []}")
+                .when()
+                .post("/reservations/check-in")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    void whenMealFullyBooked_thenWaitlistIsPromotedOnCancellation() {
+        Meal meal = mealRepository.findById(mealId).orElseThrow();
+        meal.setCapacity(1);
+        meal.setRemainingSeats(1);
+        mealRepository.save(meal);
+
+        // Take the only seat
+        String token = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+
+        // Sold out
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.CONFLICT.value());
+
+        // Queue for the next free seat
+        String waitlistToken = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations/waitlist?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("status", equalTo("WAITING"))
+                .body("position", is(1))
+                .extract().path("token");
+
+        // Cancelling the reservation hands the seat to the waitlist
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .delete("/reservations/{token}", token)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .get("/reservations/waitlist/{token}", waitlistToken)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("status", equalTo("PROMOTED"))
+                .body("position", is(0));
+
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .get("/reservations/{token}", waitlistToken)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("used", is(false));
+
+        assertThat(mealRepository.findById(mealId).orElseThrow().getRemainingSeats()).isZero();
+    }
+
+    @Test
+    void whenCapacityChanged_thenMenuShowsSeatsLeftAndWaitlistIsPromoted() {
+        Long restaurantId = mealRepository.findById(mealId).orElseThrow().getRestaurant().getId();
+        given().when().get("/meals?restaurantId={id}", restaurantId).then().body("[0].remainingSeats", nullValue());
+
+        // Limiting a meal already on sale counts its reservation as a taken seat
+        given().when().post("/reservations?mealId={id}", mealId).then().statusCode(HttpStatus.OK.value());
+        given()
+                .when()
+                .put("/meals/{id}/capacity?capacity=1", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+        given().when().get("/meals?restaurantId={id}", restaurantId).then().body("[0].remainingSeats", is(0));
+
+        String waitlistToken = given()
+                .when()
+                .post("/reservations/waitlist?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("status", equalTo("WAITING"))
+                .extract().path("token");
+
+        // Fewer seats than reservations
+        given()
+                .when()
+                .put("/meals/{id}/capacity?capacity=0", mealId)
+                .then()
+                .statusCode(HttpStatus.CONFLICT.value());
+
+        // The new seats go to the waitlist first
+        given()
+                .when()
+                .put("/meals/{id}/capacity?capacity=3", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+        given().when().get("/reservations/waitlist/{token}", waitlistToken).then().body("status", equalTo("PROMOTED"));
+        given().when().get("/meals?restaurantId={id}", restaurantId).then().body("[0].remainingSeats", is(1));
+
+        given()
+                .when()
+                .put("/meals/{id}/capacity", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+        given().when().get("/meals?restaurantId={id}", restaurantId).then().body("[0].remainingSeats", nullValue());
+
+        given()
+                .when()
+                .put("/meals/{id}/capacity?capacity=1", 999999L)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    @Test
+    void whenListingsUnchanged_thenConditionalGetReturns304UntilReservationChangesThem() {
+        // With a seat limit, so the menu shows the seats left
+        Meal meal = mealRepository.findById(mealId).orElseThrow();
+        meal.setCapacity(10);
+        mealRepository.save(meal);
+        Long restaurantId = meal.getRestaurant().getId();
+
+        String activeTag = given()
+                .when()
+                .get("/restaurants/{id}/reservations/active", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+        String menuTag = given()
+                .when()
+                .get("/meals?restaurantId={id}", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().header("ETag");
+
+        // Unchanged: 304 without a body
+        given()
+                .header("If-None-Match", activeTag)
+                .when()
+                .get("/restaurants/{id}/reservations/active", restaurantId)
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+        given()
+                .header("If-None-Match", menuTag)
+                .when()
+                .get("/meals?restaurantId={id}", restaurantId)
+                .then()
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        // A new reservation changes the active listing and the seats on the menu
+        given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .header("If-None-Match", activeTag)
+                .when()
+                .get("/restaurants/{id}/reservations/active", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", is(1))
+                .header("ETag", not(equalTo(activeTag)));
+        given()
+                .header("If-None-Match", menuTag)
+                .when()
+                .get("/meals?restaurantId={id}", restaurantId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", not(equalTo(menuTag)));
+    }
+}
@@ -0,0 +1,190 @@
+package pt.ua.deti.tqs.meal.api;
+
+import io.restassured.RestAssured;
+import io.restassured.parsing.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReservationFeedApiTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<InputStream> streams = new ArrayList<>();
+
+    private Long restaurantId;
+    private Long mealId;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1";
+        RestAssured.defaultParser = Parser.JSON;
+
+        Restaurant restaurant = restaurantRepository.save(new Restaurant("Feed Test Restaurant", "Test Description"));
+        restaurantId = restaurant.getId();
+        Meal meal = new Meal("Feed Test Meal", "Test meal", LocalDate.now(), restaurant);
+        mealId = mealRepository.save(meal).getId();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+    }
+
+    @Test
+    void whenReservationCreatedAndUsed_thenSubscriberReceivesBothChanges() throws Exception {
+        // Arrange
+        BlockingQueue<String> lines = subscribe(null);
+        assertThat(nextEvent(lines)).containsEntry("event", "open");
+
+        // Act
+        String token = createReservation();
+        given().when().put("/reservations/{token}/use", token).then().statusCode(HttpStatus.OK.value());
+
+        // Assert
+        Map<String, String> created = nextEvent(lines);
+        assertThat(created).containsEntry("event", "created");
+        assertThat(created.get("data")).contains(token);
+
+        Map<String, String> used = nextEvent(lines);
+        assertThat(used).containsEntry("event", "used");
+        assertThat(used.get("data")).contains(token).contains("\"used\":true");
+        assertThat(used.get("id")).isNotEqualTo(created.get("id"));
+    }
+
+    @Test
+    void whenReconnectingWithLastEventId_thenMissedChangesReplayed() throws Exception {
+        // Arrange
+        BlockingQueue<String> lines = subscribe(null);
+        String lastEventId = nextEvent(lines).get("id");
+        String token = createReservation();
+        assertThat(nextEvent(lines)).containsEntry("event", "created");
+
+        // Act
+        BlockingQueue<String> resumed = subscribe(lastEventId);
+
+        // Assert
+        assertThat(nextEvent(resumed)).containsEntry("event", "open");
+        Map<String, String> replayed = nextEvent(resumed);
+        assertThat(replayed).containsEntry("event", "created");
+        assertThat(replayed.get("data")).contains(token);
+    }
+
+    @Test
+    void whenResumeTokenUnknown_thenResetSent() throws Exception {
+        // Act
+        BlockingQueue<String> lines = subscribe("previous-process-42");
+
+        // Assert
+        Map<String, String> reset = nextEvent(lines);
+        assertThat(reset).containsEntry("event", "reset");
+        assertThat(reset.get("id")).isNotEqualTo("previous-process-42");
+    }
+
+    @Test
+    void whenRestaurantDoesNotExist_thenStatus404() {
+        given()
+                .when()
+                .get("/restaurants/{id}/reservations/events", 999999L)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    private String createReservation() {
+        return given()
+                .when()
+                .post("/reservations?mealId={id}", mealId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().path("token");
+    }
+
+    /**
+     * Open the event stream and read its lines on a background thread
+     */
+    private BlockingQueue<String> subscribe(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/v1/restaurants/" + restaurantId + "/reservations/events"));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+        streams.add(response.body());
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException e) {
+                // Stream closed by the test
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * @return The fields of the next event, skipping heartbeat comments
+     */
+    private Map<String, String> nextEvent(BlockingQueue<String> lines) throws InterruptedException {
+        Map<String, String> event = new LinkedHashMap<>();
+        while (true) {
+            String line = lines.poll(5, TimeUnit.SECONDS);
+            assertThat(line).as("next event line").isNotNull();
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                int separator = line.indexOf(':');
+                event.merge(line.substring(0, separator), line.substring(separator + 1), (first, next) -> first + "\n" + next);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package pt.ua.deti.tqs.meal.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ForecastExpiryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 4, 10);
+
+    private ForecastExpiry expiry;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        expiry = new ForecastExpiry(clock);
+    }
+
+    @Test
+    void whenForecastIsForToday_thenItExpiresSoonest() {
+        assertThat(expiry.timeToLive(TODAY)).isEqualTo(ForecastExpiry.TODAY);
+    }
+
+    @Test
+    void whenForecastIsFurtherOut_thenItLivesLonger() {
+        assertThat(expiry.timeToLive(TODAY.plusDays(1))).isEqualTo(ForecastExpiry.THIS_WEEK);
+        assertThat(expiry.timeToLive(TODAY.plusDays(6))).isEqualTo(ForecastExpiry.THIS_WEEK);
+        assertThat(expiry.timeToLive(TODAY.plusDays(7))).isEqualTo(ForecastExpiry.LATER);
+        assertThat(expiry.timeToLive(TODAY.minusDays(1))).isEqualTo(ForecastExpiry.PAST);
+    }
+
+    @Test
+    void whenEntryIsUpdatedOrRead_thenExpiryFollowsTheDate() {
+        // Act
+        long afterUpdate = expiry.expireAfterUpdate(TODAY.plusDays(8), "forecast", 0L, 1L);
+        long afterRead = expiry.expireAfterRead(TODAY.plusDays(8), "forecast", 0L, 42L);
+
+        // Assert - updates reset the time to live, reads keep it
+        assertThat(afterUpdate).isEqualTo(Duration.ofHours(6).toNanos());
+        assertThat(afterRead).isEqualTo(42L);
+    }
+}
@@ -0,0 +1,135 @@
+package pt.ua.deti.tqs.meal.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.service.WeatherService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PolicyCacheManagerTest {
+
+    private CacheProperties properties;
+    private StaticListableBeanFactory beanFactory;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        properties.getDefaults().setMaximumSize(100L);
+        beanFactory = new StaticListableBeanFactory();
+    }
+
+    @Test
+    void whenCacheHasSpec_thenItsPolicyIsApplied() {
+        // Arrange
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaximumSize(10L);
+        policy.setExpireAfterAccess(Duration.ofMinutes(5));
+        properties.getSpecs().put("tokens", policy);
+
+        // Act
+        PolicyCacheManager cacheManager = new PolicyCacheManager(properties, beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+
+        // Assert
+        assertThat(cacheManager.getCacheNames()).contains("tokens");
+        Cache<Object, Object> nativeCache = nativeCache(cacheManager, "tokens");
+        assertThat(nativeCache.policy().eviction().orElseThrow().getMaximum()).isEqualTo(10L);
+        assertThat(nativeCache.policy().expireAfterAccess().orElseThrow().getExpiresAfter()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(nativeCache.policy().expireAfterWrite()).isEmpty();
+    }
+
+    @Test
+    void whenCacheHasNoSpec_thenDefaultsAreApplied() {
+        // Act
+        PolicyCacheManager cacheManager = new PolicyCacheManager(properties, beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+
+        // Assert
+        assertThat(nativeCache(cacheManager, "other").policy().eviction().orElseThrow().getMaximum()).isEqualTo(100L);
+    }
+
+    @Test
+    void whenCacheIsWeighted_thenPagesWeighByTheirItems() {
+        // Arrange
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setMaximumWeight(1000L);
+        properties.getSpecs().put("pages", policy);
+        PolicyCacheManager cacheManager = new PolicyCacheManager(properties, beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+
+        // Act
+        cacheManager.getCache("pages").put("first", new ReservationPage(List.of(), null));
+        cacheManager.getCache("pages").put("second", List.of(1, 2, 3));
+
+        // Assert
+        Cache<Object, Object> nativeCache = nativeCache(cacheManager, "pages");
+        nativeCache.cleanUp();
+        assertThat(nativeCache.policy().eviction().orElseThrow().isWeighted()).isTrue();
+        assertThat(nativeCache.policy().eviction().orElseThrow().weightedSize()).hasValue(5L);
+    }
+
+    @Test
+    void whenCacheRefreshes_thenReloaderProvidesTheNewValue() {
+        // Arrange
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setRefreshAfterWrite(Duration.ofHours(1));
+        properties.getSpecs().put("weather", policy);
+        beanFactory.addBean("weatherReloader", new CacheReloader() {
+            @Override
+            public String cacheName() {
+                return "weather";
+            }
+
+            @Override
+            public Object reload(Object key) {
+                return "fresh " + key;
+            }
+        });
+        PolicyCacheManager cacheManager = new PolicyCacheManager(properties, beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+        cacheManager.getCache("weather").put("today", "stale today");
+
+        // Act
+        LoadingCache<Object, Object> nativeCache = (LoadingCache<Object, Object>) nativeCache(cacheManager, "weather");
+        Object refreshed = nativeCache.refresh("today").join();
+        // The refreshed value is written to the cache just after the future completes
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!"fresh today".equals(nativeCache.getIfPresent("today")) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        // Assert
+        assertThat(refreshed).isEqualTo("fresh today");
+        assertThat(cacheManager.getCache("weather").get("today").get()).isEqualTo("fresh today");
+        assertThat(cacheManager.getCache("weather").get("tomorrow")).isNull();
+    }
+
+    @Test
+    void whenCacheHasExpiry_thenEntriesExpireVariably() {
+        // Arrange
+        CacheProperties.Policy policy = new CacheProperties.Policy();
+        policy.setExpireAfterWrite(Duration.ofHours(6));
+        properties.getSpecs().put(WeatherService.WEATHER_CACHE, policy);
+        beanFactory.addBean("forecastExpiry", new ForecastExpiry(Clock.systemDefaultZone()));
+
+        // Act
+        PolicyCacheManager cacheManager = new PolicyCacheManager(properties, beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+        cacheManager.getCache(WeatherService.WEATHER_CACHE).put(LocalDate.now(), "today");
+
+        // Assert - the expiry replaces the fixed expire-after-write
+        Cache<Object, Object> nativeCache = nativeCache(cacheManager, WeatherService.WEATHER_CACHE);
+        assertThat(nativeCache.policy().expireAfterWrite()).isEmpty();
+        Duration remaining = nativeCache.policy().expireVariably().orElseThrow().getExpiresAfter(LocalDate.now()).orElseThrow();
+        assertThat(remaining).isLessThanOrEqualTo(ForecastExpiry.TODAY).isGreaterThan(ForecastExpiry.TODAY.minusMinutes(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache(PolicyCacheManager cacheManager, String name) {
+        return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+    }
+}
@@ -0,0 +1,105 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitFilter filter;
+
+    // Async requests that have not completed, so they count as in flight
+    private final List<MockHttpServletRequest> held = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", 5);
+        ReflectionTestUtils.setField(filter, "minLimit", 5);
+        ReflectionTestUtils.setField(filter, "maxLimit", 5);
+        ReflectionTestUtils.setField(filter, "windowSize", 50);
+        ReflectionTestUtils.setField(filter, "tolerance", 1.5);
+        ReflectionTestUtils.setField(filter, "criticalShare", 0.2);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 2);
+        filter.init();
+    }
+
+    @Test
+    void whenBrowsingShareFull_thenBrowsingShedWithRetryAfterButCheckInServed() throws Exception {
+        // Arrange - browsing may use 4 of the 5 slots
+        for (int i = 0; i < 4; i++) {
+            hold("GET", "/api/v1/restaurants");
+        }
+
+        // Act
+        MockHttpServletResponse browsing = perform("GET", "/api/v1/restaurants");
+        MockHttpServletResponse checkIn = perform("PUT", "/api/v1/reservations/ABC123/use");
+
+        // Assert
+        assertThat(browsing.getStatus()).isEqualTo(503);
+        assertThat(browsing.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(checkIn.getStatus()).isEqualTo(200);
+
+        releaseHeld();
+        Map<String, Object> stats = filter.getStats();
+        assertThat(stats).containsEntry("enabled", true).containsEntry("limit", 5).containsEntry("inFlight", 0);
+        assertThat(stats.get("normal")).isEqualTo(Map.of("accepted", 4L, "rejected", 1L));
+        assertThat(stats.get("critical")).isEqualTo(Map.of("accepted", 1L, "rejected", 0L));
+    }
+
+    @Test
+    void whenLimitReached_thenMetricsAndEventStreamsStillServed() throws Exception {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            hold("POST", "/api/v1/reservations/check-in");
+        }
+
+        // Act & Assert
+        assertThat(perform("POST", "/api/v1/reservations/check-in").getStatus()).isEqualTo(503);
+        assertThat(perform("GET", "/api/v1/metrics/concurrency-limit").getStatus()).isEqualTo(200);
+        assertThat(perform("GET", "/api/v1/restaurants/1/reservations/events").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void whenRequestFinishes_thenSlotReleased() throws Exception {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertThat(perform("GET", "/api/v1/restaurants").getStatus()).isEqualTo(200);
+        }
+
+        // Assert
+        assertThat(filter.getStats()).containsEntry("inFlight", 0);
+    }
+
+    private MockHttpServletResponse perform(String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, path), response, new MockFilterChain());
+        return response;
+    }
+
+    /**
+     * Start a request that goes async, so it stays in flight until {@link #releaseHeld()}
+     */
+    private void hold(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        held.add(request);
+    }
+
+    private void releaseHeld() {
+        held.forEach(request -> request.getAsyncContext().complete());
+        held.clear();
+    }
+}
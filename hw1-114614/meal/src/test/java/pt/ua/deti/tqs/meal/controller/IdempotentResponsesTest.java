@@ -0,0 +1,157 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.repository.IdempotencyRecordRepository;
+import pt.ua.deti.tqs.meal.service.IdempotencyStore;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Idempotency-Key handling on a real {@link IdempotencyStore} over a mocked idempotency_keys table
+ */
+@ExtendWith(MockitoExtension.class)
+public class IdempotentResponsesTest {
+
+    private static final String REQUEST = "POST /api/v1/reservations?mealId=1";
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotentResponses idempotentResponses;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyStore store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "repository", repository);
+        ReflectionTestUtils.setField(store, "cacheManager", new ConcurrentMapCacheManager());
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(store, "lease", Duration.ofSeconds(30));
+
+        idempotentResponses = new IdempotentResponses();
+        ReflectionTestUtils.setField(idempotentResponses, "store", store);
+        ReflectionTestUtils.setField(idempotentResponses, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void whenRetriedWithSameKey_thenReplayFirstResponse() {
+        // Act
+        ResponseEntity<?> first = idempotentResponses.respond("key-1", REQUEST, this::reserve);
+        ResponseEntity<?> second = idempotentResponses.respond("key-1", REQUEST, this::reserve);
+
+        // Assert
+        assertThat(runs).hasValue(1);
+        assertThat(first.getHeaders().containsKey(IdempotentResponses.REPLAYED_HEADER)).isFalse();
+        assertThat(second.getHeaders().getFirst(IdempotentResponses.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(new String((byte[]) second.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"token\":\"TEST123\"}");
+    }
+
+    @Test
+    void whenKeyReusedForOtherRequest_thenReturn422() {
+        // Arrange
+        idempotentResponses.respond("key-1", REQUEST, this::reserve);
+
+        // Act
+        ResponseEntity<?> response = idempotentResponses.respond("key-1", "POST /api/v1/reservations?mealId=2", this::reserve);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void whenOriginalFails_thenRetryRunsAgain() {
+        // Act
+        ResponseEntity<?> failed = idempotentResponses.respond("key-1", REQUEST, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Meal fully booked");
+        });
+        ResponseEntity<?> retried = idempotentResponses.respond("key-1", REQUEST, this::reserve);
+
+        // Assert
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getHeaders().containsKey(IdempotentResponses.REPLAYED_HEADER)).isFalse();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void whenDuplicatesArriveWhileOriginalRuns_thenTheyWaitAndReplayIt() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<ResponseEntity<?>>> responses = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < 4; i++) {
+                responses.add(executor.submit(() -> idempotentResponses.respond("key-1", REQUEST, () -> {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return reserve();
+                })));
+            }
+
+            int replayed = 0;
+            for (Future<ResponseEntity<?>> response : responses) {
+                ResponseEntity<?> result = response.get(10, TimeUnit.SECONDS);
+                assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+                if (result.getHeaders().containsKey(IdempotentResponses.REPLAYED_HEADER)) {
+                    replayed++;
+                }
+            }
+
+            // Assert
+            assertThat(replayed).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void whenResponseCannotBeStored_thenRequestFails() {
+        // Arrange
+        when(repository.complete(anyString(), anyString(), anyInt(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act & Assert - a success that would not be replayed is not reported as one
+        assertThatThrownBy(() -> idempotentResponses.respond("key-1", REQUEST, this::reserve))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ResponseEntity<?> reserve() {
+        runs.incrementAndGet();
+        return ResponseEntity.ok(Map.of("token", "TEST123"));
+    }
+}
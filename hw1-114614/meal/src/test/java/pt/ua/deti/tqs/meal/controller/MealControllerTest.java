@@ -0,0 +1,214 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.accept.ContentNegotiationManager;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+import pt.ua.deti.tqs.meal.service.CacheInvalidationBus;
+import pt.ua.deti.tqs.meal.service.ConcurrentLookups;
+import pt.ua.deti.tqs.meal.service.ContentVersions;
+import pt.ua.deti.tqs.meal.service.InvalidationTransport;
+import pt.ua.deti.tqs.meal.service.MealService;
+import pt.ua.deti.tqs.meal.service.RestaurantService;
+import pt.ua.deti.tqs.meal.service.WeatherService;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Conditional GETs on the menu endpoints, with the real version counters, invalidation bus and
+ * response cache behind them and the data sources mocked
+ */
+@ExtendWith(MockitoExtension.class)
+public class MealControllerTest {
+
+    @Mock
+    private MealService mealService;
+
+    @Mock
+    private WeatherService weatherService;
+
+    @Mock
+    private RestaurantRepository restaurantRepository;
+
+    @Mock
+    private InvalidationTransport transport;
+
+    @Mock
+    private ConcurrentLookups lookups;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private MockMvc mockMvc;
+    private MealController controller;
+    private RestaurantService restaurantService;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(invalidationBus, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(invalidationBus, "transport", transport);
+
+        ContentVersions contentVersions = new ContentVersions();
+        ReflectionTestUtils.setField(contentVersions, "invalidationBus", invalidationBus);
+        ReflectionTestUtils.setField(contentVersions, "weatherService", weatherService);
+        ReflectionTestUtils.invokeMethod(contentVersions, "observeInvalidations");
+
+        restaurantService = new RestaurantService();
+        ReflectionTestUtils.setField(restaurantService, "restaurantRepository", restaurantRepository);
+        ReflectionTestUtils.setField(restaurantService, "invalidationBus", invalidationBus);
+
+        SerializedResponseCache responseCache = new SerializedResponseCache();
+        ReflectionTestUtils.setField(responseCache, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(responseCache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+
+        controller = new MealController();
+        ReflectionTestUtils.setField(controller, "mealService", mealService);
+        ReflectionTestUtils.setField(controller, "weatherService", weatherService);
+        ReflectionTestUtils.setField(controller, "restaurantService", restaurantService);
+        ReflectionTestUtils.setField(controller, "lookups", lookups);
+        ReflectionTestUtils.setField(controller, "contentVersions", contentVersions);
+        ReflectionTestUtils.setField(controller, "responseCache", responseCache);
+        ReflectionTestUtils.setField(controller, "contentNegotiationManager", new ContentNegotiationManager());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        restaurant = new Restaurant("Canteen", "Old description");
+        restaurant.setId(1L);
+        Meal meal = new Meal("Soup", "Vegetable soup", LocalDate.now(), restaurant);
+        meal.setId(10L);
+        lenient().when(mealService.getMealsForRestaurant(anyLong(), anyInt())).thenReturn(List.of(meal));
+    }
+
+    @Test
+    void whenRestaurantUpdated_thenConditionalMealsRequestGetsNewBody() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/v1/meals?restaurantId=1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/meals?restaurantId=1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        when(restaurantRepository.findById(1L)).thenReturn(Optional.of(restaurant));
+        when(restaurantRepository.save(any(Restaurant.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        restaurantService.updateRestaurant(1L, new Restaurant("Canteen", "New description"));
+
+        // Assert
+        mockMvc.perform(get("/api/v1/meals?restaurantId=1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("New description")));
+    }
+
+    @Test
+    void whenLookupsRunInParallel_thenMenuBeyondForecastHorizonHasTheSameForecasts() throws Exception {
+        // Arrange - a two-week menu, with a meal past the provider's horizon
+        ConcurrentLookups parallelLookups = new ConcurrentLookups();
+        ReflectionTestUtils.setField(parallelLookups, "enabled", true);
+        ReflectionTestUtils.setField(parallelLookups, "deadlineMs", 2000L);
+        ReflectionTestUtils.setField(parallelLookups, "maxThreads", 2);
+        ReflectionTestUtils.setField(parallelLookups, "queueCapacity", 2);
+        ReflectionTestUtils.invokeMethod(parallelLookups, "init");
+        ReflectionTestUtils.setField(controller, "lookups", parallelLookups);
+
+        LocalDate late = LocalDate.now().plusDays(12);
+        Meal lateMeal = new Meal("Stew", "Beef stew", late, restaurant);
+        lateMeal.setId(11L);
+        when(mealService.getMealsForRestaurant(1L, 14)).thenReturn(List.of(lateMeal));
+        Set<LocalDate> window = WeatherService.forecastWindow(14);
+        Map<LocalDate, WeatherForecast> forecasts = new HashMap<>();
+        window.forEach(date -> forecasts.put(date, new WeatherForecast("Cloudy", 10, 20, "40%")));
+        when(weatherService.getForecastForDates(window)).thenReturn(forecasts);
+        when(weatherService.getForecastForDates(Set.of(late))).thenReturn(Map.of(late, new WeatherForecast("Sunny", 15, 25, "10%")));
+
+        // Act & Assert - only the horizon is looked up up front, the late meal's date after the join
+        try {
+            mockMvc.perform(get("/api/v1/meals?restaurantId=1&days=14"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(11))
+                    .andExpect(jsonPath("$[0].weather.description").value("Sunny"));
+        } finally {
+            ReflectionTestUtils.invokeMethod(parallelLookups, "shutdown");
+        }
+        verify(weatherService, times(2)).getForecastForDates(any());
+    }
+
+    @Test
+    void whenDaysOutOfRange_thenReturn400WithoutLookups() throws Exception {
+        // Act & Assert
+        for (String days : List.of("0", "29", "100000000")) {
+            mockMvc.perform(get("/api/v1/meals?restaurantId=1&days=" + days))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/v1/meals/menu?restaurantId=1&days=" + days))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(weatherService, mealService);
+    }
+
+    @Test
+    void whenEncodingRefusedWithZeroQuality_thenMenuSentAndTaggedAsJson() throws Exception {
+        // Arrange
+        when(restaurantRepository.findById(1L)).thenReturn(Optional.of(restaurant));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/meals/menu?restaurantId=1")
+                        .header(HttpHeaders.ACCEPT, "application/cbor;q=0, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-menu-json\"")));
+    }
+
+    @Test
+    void whenEncodingsWeighted_thenHighestQualityEncodingSentAndTagged() throws Exception {
+        // Arrange
+        when(restaurantRepository.findById(1L)).thenReturn(Optional.of(restaurant));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/meals/menu?restaurantId=1")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, " + MealController.APPLICATION_SMILE_VALUE + ";q=0.8, application/cbor;q=0.9"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-menu-cbor\"")));
+    }
+
+    @Test
+    void whenNoEncodingAcceptable_thenReturn406() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/meals/menu?restaurantId=1").header(HttpHeaders.ACCEPT, "text/html"))
+                .andExpect(status().isNotAcceptable());
+    }
+}
@@ -9,14 +9,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import pt.ua.deti.tqs.meal.controller.dto.BatchReservationRequest;
+import pt.ua.deti.tqs.meal.controller.dto.BulkTokenRequest;
 import pt.ua.deti.tqs.meal.domain.Meal;
 import pt.ua.deti.tqs.meal.domain.Reservation;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.exception.MealFullyBookedException;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
 import pt.ua.deti.tqs.meal.service.ReservationService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
@@ -185,4 +191,90 @@ public class ReservationControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void whenCreateReservationsInBatch_thenMergeRepeatedMealsAndReturnAll() throws Exception {
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new BatchReservationRequest.Item(1L, 1),
+                new BatchReservationRequest.Item(1L, 1)));
+        when(reservationService.createReservations(Map.of(1L, 2))).thenReturn(List.of(testReservation, testReservation));
+
+        mockMvc.perform(post("/api/v1/reservations/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].token", is("TEST123")));
+    }
+
+    @Test
+    void whenCreateReservationsInBatchWithInvalidMeal_thenReturn404() throws Exception {
+        BatchReservationRequest request = new BatchReservationRequest(List.of(new BatchReservationRequest.Item(999L, 1)));
+        when(reservationService.createReservations(Map.of(999L, 1))).thenThrow(new ResourceNotFoundException("Meal not found with id: 999"));
+
+        mockMvc.perform(post("/api/v1/reservations/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenBatchHasNoItems_thenReturn400() throws Exception {
+        for (String body : List.of("{\"items\": null}", "{\"items\": []}", "{\"items\": [null]}",
+                "{\"items\": [{\"mealId\": 1, \"quantity\": null}]}", "{\"items\": [{\"mealId\": 1, \"quantity\": -1}]}")) {
+            mockMvc.perform(post("/api/v1/reservations/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void whenBatchQuantitiesOverflowInt_thenReturn400WithoutReachingService() throws Exception {
+        BatchReservationRequest request = new BatchReservationRequest(List.of(
+                new BatchReservationRequest.Item(1L, Integer.MAX_VALUE),
+                new BatchReservationRequest.Item(1L, Integer.MAX_VALUE)));
+
+        mockMvc.perform(post("/api/v1/reservations/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void whenCreateReservationForFullyBookedMeal_thenReturn409() throws Exception {
+        when(reservationService.createReservation(1L)).thenThrow(new MealFullyBookedException(1L));
+
+        mockMvc.perform(post("/api/v1/reservations?mealId=1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void whenBulkRequestHasNoTokens_thenReturn400() throws Exception {
+        for (String body : List.of("{\"tokens\": null}", "{}", "{\"tokens\": []}")) {
+            mockMvc.perform(post("/api/v1/reservations/lookup")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(post("/api/v1/reservations/check-in")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void whenBulkRequestHasTooManyTokens_thenReturn400WithoutReachingService() throws Exception {
+        BulkTokenRequest request = new BulkTokenRequest(Collections.nCopies(ReservationService.MAX_BULK_TOKENS + 1, "TEST123"));
+
+        mockMvc.perform(post("/api/v1/reservations/check-in")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reservationService);
+    }
+}
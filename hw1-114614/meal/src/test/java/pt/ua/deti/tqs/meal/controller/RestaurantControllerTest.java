@@ -0,0 +1,60 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.service.ContentVersions;
+import pt.ua.deti.tqs.meal.service.RestaurantService;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class RestaurantControllerTest {
+
+    private static final String TAG = "*";
+
+    @Mock
+    private RestaurantService restaurantService;
+
+    @Mock
+    private ContentVersions contentVersions;
+
+    @InjectMocks
+    private RestaurantController controller;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void whenMissingRestaurantRequestedWithCurrentTag_thenReturn404() throws Exception {
+        // Arrange
+        when(restaurantService.getRestaurantById(999L)).thenThrow(new ResourceNotFoundException("Restaurant not found with id: 999"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/restaurants/999").header(HttpHeaders.IF_NONE_MATCH, TAG))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenMissingRestaurantReservationsRequestedWithCurrentTag_thenReturn404() throws Exception {
+        // Arrange
+        when(restaurantService.getRestaurantById(999L)).thenThrow(new ResourceNotFoundException("Restaurant not found with id: 999"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/restaurants/999/reservations/active").header(HttpHeaders.IF_NONE_MATCH, TAG))
+                .andExpect(status().isNotFound());
+    }
+}
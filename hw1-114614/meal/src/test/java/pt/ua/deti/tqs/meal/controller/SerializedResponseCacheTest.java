@@ -0,0 +1,163 @@
+package pt.ua.deti.tqs.meal.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class SerializedResponseCacheTest {
+
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private SerializedResponseCache responseCache;
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+    }
+
+    @Test
+    void whenSameVersionRequestedAgain_thenStoredBytesServedWithoutRendering() {
+        // Act
+        ResponseEntity<byte[]> first = responseCache.respond(request(null, null), "restaurants", "v1", this::body);
+        ResponseEntity<byte[]> second = responseCache.respond(request(null, null), "restaurants", "v1", this::body);
+
+        // Assert
+        assertThat(renders).hasValue(1);
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(new String(second.getBody())).isEqualTo("[{\"name\":\"Canteen\"}]");
+    }
+
+    @Test
+    void whenVersionMoves_thenBodyRenderedAgain() {
+        // Act
+        responseCache.respond(request(null, null), "restaurants", "v1", this::body);
+        responseCache.respond(request(null, null), "restaurants", "v2", this::body);
+
+        // Assert
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void whenClientAcceptsGzip_thenCompressedBytesServed() throws IOException {
+        // Act
+        ResponseEntity<byte[]> response = responseCache.respond(request("gzip, deflate", null), "restaurants", "v1", this::body);
+
+        // Assert
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertThat(new String(in.readAllBytes())).isEqualTo("[{\"name\":\"Canteen\"}]");
+        }
+    }
+
+    @Test
+    void whenGzipRefusedWithZeroQuality_thenPlainBytesServed() {
+        for (String acceptEncoding : List.of("gzip;q=0", "gzip; q=0.0, deflate", "*;q=0", "*, gzip;q=0", "deflate", "gzip;q=abc")) {
+            // Act
+            ResponseEntity<byte[]> response = responseCache.respond(request(acceptEncoding, null), "restaurants", "v1", this::body);
+
+            // Assert
+            assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).as(acceptEncoding).isFalse();
+            assertThat(new String(response.getBody())).isEqualTo("[{\"name\":\"Canteen\"}]");
+        }
+    }
+
+    @Test
+    void whenGzipAcceptedByQualityOrWildcard_thenCompressedBytesServed() {
+        for (String acceptEncoding : List.of("GZIP;q=0.5", "br;q=1.0, gzip;q=0.1", "*", "*;q=0.3, identity", "x-gzip")) {
+            // Act
+            ResponseEntity<byte[]> response = responseCache.respond(request(acceptEncoding, null), "restaurants", "v1", this::body);
+
+            // Assert
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).as(acceptEncoding).isEqualTo("gzip");
+        }
+    }
+
+    @Test
+    void whenClientCopyIsCurrent_then304WithoutRenderingAgain() {
+        // Arrange
+        String etag = etagSentBy(responseCache, "v1");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletWebRequest request = new ServletWebRequest(requestWith(null, etag), servletResponse);
+
+        // Act
+        ResponseEntity<byte[]> response = responseCache.respond(request, "restaurants", "v1", this::body);
+
+        // Assert
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(304);
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void whenSameContentRenderedUnderAnotherVersion_thenSameEtag() {
+        // Arrange - another node, whose local counters are elsewhere
+        SerializedResponseCache otherNode = new SerializedResponseCache();
+        ReflectionTestUtils.setField(otherNode, "cacheManager", new CaffeineCacheManager());
+        ReflectionTestUtils.setField(otherNode, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(otherNode, "enabled", true);
+
+        // Act
+        String etag = etagSentBy(responseCache, "v1");
+        String otherEtag = etagSentBy(otherNode, "v7");
+
+        // Assert
+        assertThat(etag).isNotBlank();
+        assertThat(otherEtag).isEqualTo(etag);
+        assertThat(etag).isEqualTo("\"" + responseCache.contentTag(body()) + "\"");
+    }
+
+    private String etagSentBy(SerializedResponseCache cache, String version) {
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        cache.respond(new ServletWebRequest(requestWith(null, null), servletResponse), "restaurants", version, this::body);
+        return servletResponse.getHeader(HttpHeaders.ETAG);
+    }
+
+    private Object body() {
+        renders.incrementAndGet();
+        return List.of(Map.of("name", "Canteen"));
+    }
+
+    private ServletWebRequest request(String acceptEncoding, String ifNoneMatch) {
+        return new ServletWebRequest(requestWith(acceptEncoding, ifNoneMatch), new MockHttpServletResponse());
+    }
+
+    private MockHttpServletRequest requestWith(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/restaurants");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
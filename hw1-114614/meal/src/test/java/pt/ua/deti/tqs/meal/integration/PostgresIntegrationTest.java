@@ -22,9 +22,15 @@ import pt.ua.deti.tqs.meal.domain.Restaurant;
 import pt.ua.deti.tqs.meal.repository.MealRepository;
 import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
 import pt.ua.deti.tqs.meal.repository.ReservationRepository;
+import pt.ua.deti.tqs.meal.service.PostgresInvalidationTransport;
+
+import javax.sql.DataSource;
 
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -54,6 +60,9 @@ public class PostgresIntegrationTest {
     @Autowired
     private ReservationRepository reservationRepository;
     
+    @Autowired
+    private DataSource dataSource;
+    
     @DynamicPropertySource
     static void postgresProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
@@ -259,4 +268,27 @@ public class PostgresIntegrationTest {
         // Verify proper 404 handling
         assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void whenInvalidationNotified_thenOtherNodeReceivesIt() throws Exception {
+        // Two transports on the same database behave like two replicas
+        PostgresInvalidationTransport sender = new PostgresInvalidationTransport(dataSource);
+        PostgresInvalidationTransport receiver = new PostgresInvalidationTransport(dataSource);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        receiver.subscribe(received::add, () -> { });
+        
+        try {
+            // LISTEN is issued asynchronously; keep notifying until the receiver is listening
+            String message = null;
+            for (int attempt = 0; attempt < 20 && message == null; attempt++) {
+                sender.send("node|EVICT|restaurantServiceFindById||L1");
+                message = received.poll(500, TimeUnit.MILLISECONDS);
+            }
+            
+            assertThat(message).isEqualTo("node|EVICT|restaurantServiceFindById||L1");
+        } finally {
+            sender.destroy();
+            receiver.destroy();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheInvalidationBusTest {
+
+    private InJvmInvalidationTransport transport;
+    private CacheManager nodeACaches;
+    private CacheManager nodeBCaches;
+    private CacheInvalidationBus nodeA;
+    private CacheInvalidationBus nodeB;
+
+    @BeforeEach
+    void setUp() {
+        // Two nodes with their own local caches, sharing one transport
+        transport = new InJvmInvalidationTransport();
+        nodeACaches = new ConcurrentMapCacheManager();
+        nodeBCaches = new ConcurrentMapCacheManager();
+        nodeA = bus(nodeACaches);
+        nodeB = bus(nodeBCaches);
+    }
+
+    @Test
+    void whenKeyEvictedOnOneNode_thenOtherNodeEvictsOnlyThatKey() {
+        // Arrange
+        nodeBCaches.getCache("restaurantServiceFindById").put(1L, "stale");
+        nodeBCaches.getCache("restaurantServiceFindById").put(2L, "other");
+
+        // Act
+        nodeA.evict("restaurantServiceFindById", 1L);
+
+        // Assert
+        assertThat(nodeBCaches.getCache("restaurantServiceFindById").get(1L)).isNull();
+        assertThat(nodeBCaches.getCache("restaurantServiceFindById").get(2L)).isNotNull();
+    }
+
+    @Test
+    void whenOwnMessageArrives_thenItIsIgnored() {
+        // Arrange
+        List<CacheInvalidation> received = new ArrayList<>();
+        nodeA.addListener(received::add);
+        nodeB.addListener(received::add);
+
+        // Act
+        nodeA.publish(CacheInvalidation.lastPages(7L));
+
+        // Assert
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).getType()).isEqualTo(CacheInvalidation.Type.EVICT_LAST_PAGES);
+        assertThat(received.get(0).getRestaurantId()).isEqualTo(7L);
+    }
+
+    @Test
+    void whenInvalidationEncoded_thenDecodesToEqualKey() {
+        assertThat(CacheInvalidation.decode(CacheInvalidation.evict("weatherData", LocalDate.of(2025, 4, 1)).encode()).getKey())
+                .isEqualTo(LocalDate.of(2025, 4, 1));
+        assertThat(CacheInvalidation.decode(CacheInvalidation.evict("reservationsByToken", "3KQ7|Z").encode()).getKey())
+                .isEqualTo("3KQ7|Z");
+        assertThat(CacheInvalidation.decode(CacheInvalidation.pagesListing(5L, 2L).encode()).getKey())
+                .isEqualTo(5L);
+    }
+
+    @Test
+    void whenKeyCannotBeSent_thenWholeCacheIsCleared() {
+        assertThat(CacheInvalidation.evict("restaurantServiceFindAll", new Object()).getType())
+                .isEqualTo(CacheInvalidation.Type.CLEAR);
+    }
+
+    private CacheInvalidationBus bus(CacheManager cacheManager) {
+        CacheInvalidationBus bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(bus, "transport", transport);
+        bus.subscribe();
+        return bus;
+    }
+}
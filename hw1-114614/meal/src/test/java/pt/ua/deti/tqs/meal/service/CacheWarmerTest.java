@@ -0,0 +1,149 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheWarmerTest {
+
+    @Mock
+    private RestaurantService restaurantService;
+
+    @Mock
+    private MealService mealService;
+
+    @Mock
+    private WeatherService weatherService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @InjectMocks
+    private CacheWarmer cacheWarmer;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheWarmer, "enabled", true);
+        ReflectionTestUtils.setField(cacheWarmer, "parallelism", 2);
+        ReflectionTestUtils.invokeMethod(cacheWarmer, "init");
+        today = LocalDate.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(cacheWarmer, "shutdown");
+    }
+
+    @Test
+    void whenStartupWarmUpRuns_thenReadinessIsHeldDownUntilItIsDone() {
+        // Arrange
+        when(restaurantService.getAllRestaurants()).thenReturn(List.of());
+
+        // Act
+        cacheWarmer.run(null);
+
+        // Assert
+        ArgumentCaptor<AvailabilityChangeEvent<?>> events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        InOrder order = inOrder(eventPublisher, restaurantService);
+        order.verify(eventPublisher).publishEvent(events.capture());
+        order.verify(restaurantService).getAllRestaurants();
+        order.verify(eventPublisher).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(event -> (Object) event.getState())
+                .containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    @Test
+    void whenWarmingUp_thenRestaurantsMenusAndForecastsAreLoaded() {
+        // Arrange
+        Restaurant first = restaurant(1L);
+        Restaurant second = restaurant(2L);
+        when(restaurantService.getAllRestaurants()).thenReturn(List.of(first, second));
+        when(mealService.getMealsForRestaurant(1L, CacheWarmer.MENU_DAYS)).thenReturn(List.of(meal(today), meal(today.plusDays(1))));
+        when(mealService.getMealsForRestaurant(2L, CacheWarmer.MENU_DAYS)).thenReturn(List.of(meal(today)));
+        when(weatherService.getForecastForDates(Set.of(today, today.plusDays(1))))
+                .thenReturn(Map.of(today, new WeatherService.WeatherForecast(), today.plusDays(1), new WeatherService.WeatherForecast()));
+
+        // Act
+        Map<String, Object> report = cacheWarmer.warmUp();
+
+        // Assert - one bulk forecast lookup for the dates of every menu
+        verify(restaurantService).getRestaurantById(1L);
+        verify(restaurantService).getRestaurantById(2L);
+        verify(weatherService, times(1)).getForecastForDates(Set.of(today, today.plusDays(1)));
+        assertThat(report).containsEntry("restaurants", 2)
+                .containsEntry("menus", 2)
+                .containsEntry("meals", 3)
+                .containsEntry("forecasts", 2)
+                .containsKey("durationMs")
+                .doesNotContainKey("error");
+        assertThat(cacheWarmer.getLastReport()).isEqualTo(report);
+    }
+
+    @Test
+    void whenWarmUpFails_thenErrorIsReportedInsteadOfThrown() {
+        // Arrange
+        when(restaurantService.getAllRestaurants()).thenThrow(new IllegalStateException("database unavailable"));
+
+        // Act
+        Map<String, Object> report = cacheWarmer.warmUp();
+
+        // Assert
+        assertThat(report).containsEntry("error", "database unavailable").containsEntry("restaurants", 0);
+        verifyNoInteractions(weatherService);
+    }
+
+    @Test
+    void whenNewDayStarts_thenMenusAreReloaded() {
+        // Arrange
+        cacheManager.getCache(MealService.MENU_CACHE).put(List.of(1L, 7), List.of());
+        when(restaurantService.getAllRestaurants()).thenReturn(List.of());
+
+        // Act
+        cacheWarmer.warmUpForNewDay();
+
+        // Assert
+        assertThat(cacheManager.getCache(MealService.MENU_CACHE).get(List.of(1L, 7))).isNull();
+        verify(restaurantService).getAllRestaurants();
+    }
+
+    private Restaurant restaurant(Long id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        return restaurant;
+    }
+
+    private Meal meal(LocalDate date) {
+        Meal meal = new Meal();
+        meal.setAvailableDate(date);
+        return meal;
+    }
+}
@@ -0,0 +1,105 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.ua.deti.tqs.meal.service.ConcurrencyLimiter.Priority;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long FAST = 10_000_000L;
+    private static final long SLOW = 100_000_000L;
+
+    private ConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new ConcurrencyLimiter(20, 5, 100, 10, 1.5, 0.2);
+    }
+
+    @Test
+    void whenNormalShareInUse_thenNormalRejectedButCriticalAccepted() {
+        // Arrange - 80% of 20 is the normal share
+        for (int i = 0; i < 16; i++) {
+            assertThat(limiter.tryAcquire(Priority.NORMAL)).isTrue();
+        }
+
+        // Act & Assert
+        assertThat(limiter.tryAcquire(Priority.NORMAL)).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(Priority.CRITICAL)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(Priority.CRITICAL)).isFalse();
+
+        Map<String, Object> stats = limiter.getStats();
+        assertThat(stats).containsEntry("inFlight", 20).containsEntry("normalLimit", 16);
+        assertThat(stats.get("normal")).isEqualTo(Map.of("accepted", 16L, "rejected", 1L));
+        assertThat(stats.get("critical")).isEqualTo(Map.of("accepted", 4L, "rejected", 1L));
+    }
+
+    @Test
+    void whenBusyAndLatencySteady_thenLimitGrows() {
+        // Act
+        runWindows(5, 15, FAST);
+
+        // Assert
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void whenLatencyRises_thenLimitShrinksTowardsMinimum() {
+        // Arrange
+        runWindows(5, 15, FAST);
+        int before = limiter.getLimit();
+
+        // Act
+        runWindows(10, 15, SLOW);
+
+        // Assert
+        assertThat(limiter.getLimit()).isLessThan(before).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void whenMostlyIdle_thenLimitDoesNotGrow() {
+        // Act - one request at a time never uses half of the limit
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire(Priority.NORMAL)).isTrue();
+            limiter.onSample(FAST);
+        }
+
+        // Assert
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void whenRequestDropped_thenSlotFreedWithoutSample() {
+        // Act
+        assertThat(limiter.tryAcquire(Priority.NORMAL)).isTrue();
+        limiter.onDropped();
+
+        // Assert
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getStats()).containsEntry("lastWindowRttMs", 0.0);
+    }
+
+    /**
+     * Run windows of requests, each with {@code concurrency} requests in flight at once
+     */
+    private void runWindows(int windows, int concurrency, long rttNanos) {
+        for (int window = 0; window < windows; window++) {
+            int accepted = 0;
+            for (int i = 0; i < concurrency; i++) {
+                if (limiter.tryAcquire(Priority.CRITICAL)) {
+                    accepted++;
+                }
+            }
+            for (int i = 0; i < accepted; i++) {
+                limiter.onSample(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import pt.ua.deti.tqs.meal.exception.RequestDeadlineExceededException;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrentLookupsTest {
+
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("lookup-");
+
+    @Test
+    void whenLookupsSucceed_thenTheyRunConcurrently() {
+        // Arrange - each lookup waits for the other, so they only finish if both run at once
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ConcurrentLookups.Scope scope = new ConcurrentLookups.Scope(executor, 2000);
+
+        // Act
+        Supplier<String> first = scope.fork(() -> awaitOther(bothStarted, "first"));
+        Supplier<String> second = scope.fork(() -> awaitOther(bothStarted, "second"));
+        scope.join();
+
+        // Assert
+        assertThat(first.get()).isEqualTo("first");
+        assertThat(second.get()).isEqualTo("second");
+    }
+
+    @Test
+    void whenOneLookupFails_thenItsErrorIsThrownAndTheOthersAreCancelled() throws Exception {
+        // Arrange
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ConcurrentLookups.Scope scope = new ConcurrentLookups.Scope(executor, 5000);
+        scope.fork(() -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+        scope.fork(() -> {
+            throw new ResourceNotFoundException("Restaurant not found with id: 1");
+        });
+
+        // Act & Assert
+        long start = System.nanoTime();
+        assertThatThrownBy(scope::join).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void whenLookupsOutliveTheDeadline_thenRequestFails() {
+        // Arrange
+        ConcurrentLookups.Scope scope = new ConcurrentLookups.Scope(executor, 100);
+        scope.fork(() -> {
+            Thread.sleep(2000);
+            return "late";
+        });
+
+        // Act & Assert
+        assertThatThrownBy(scope::join).isInstanceOf(RequestDeadlineExceededException.class);
+    }
+
+    private String awaitOther(CountDownLatch bothStarted, String result) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(1, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Lookups ran one after another");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ContentVersionsTest {
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private WeatherService weatherService;
+
+    @InjectMocks
+    private ContentVersions contentVersions;
+
+    @Test
+    void whenReservationsChange_thenOnlyThatRestaurantsMenuVersionMoves() {
+        // Arrange
+        String menu1 = contentVersions.menuVersion(1L, 7);
+        String menu2 = contentVersions.menuVersion(2L, 7);
+        String restaurants = contentVersions.restaurantsVersion();
+
+        // Act
+        contentVersions.invalidated(CacheInvalidation.lastPages(1L));
+
+        // Assert
+        assertThat(contentVersions.menuVersion(1L, 7)).isNotEqualTo(menu1);
+        assertThat(contentVersions.menuVersion(2L, 7)).isEqualTo(menu2);
+        assertThat(contentVersions.restaurantsVersion()).isEqualTo(restaurants);
+    }
+
+    @Test
+    void whenBulkCheckIn_thenMenuVersionStays() {
+        // Arrange
+        String menu = contentVersions.menuVersion(1L, 7);
+
+        // Act
+        contentVersions.invalidated(CacheInvalidation.restaurantPages(1L));
+
+        // Assert
+        assertThat(contentVersions.menuVersion(1L, 7)).isEqualTo(menu);
+    }
+
+    @Test
+    void whenRestaurantCacheEvicted_thenRestaurantsVersionMoves() {
+        // Arrange
+        String restaurants = contentVersions.restaurantsVersion();
+
+        // Act
+        contentVersions.invalidated(CacheInvalidation.evict(ContentVersions.RESTAURANTS_ALL, SimpleKey.EMPTY));
+
+        // Assert
+        assertThat(contentVersions.restaurantsVersion()).isNotEqualTo(restaurants);
+    }
+
+    @Test
+    void whenRestaurantEvicted_thenItsMenuVersionMovesToo() {
+        // Arrange
+        String menu1 = contentVersions.menuVersion(1L, 7);
+        String menu2 = contentVersions.menuVersion(2L, 7);
+
+        // Act
+        contentVersions.invalidated(CacheInvalidation.evict(ContentVersions.RESTAURANTS_BY_ID, 1L));
+
+        // Assert
+        assertThat(contentVersions.menuVersion(1L, 7)).isNotEqualTo(menu1);
+        assertThat(contentVersions.menuVersion(2L, 7)).isEqualTo(menu2);
+    }
+
+    @Test
+    void whenCacheClearedOrForecastsChange_thenEveryMenuVersionMoves() {
+        // Arrange
+        String menu = contentVersions.menuVersion(1L, 7);
+
+        // Act
+        contentVersions.invalidated(CacheInvalidation.clear(MealService.MENU_CACHE));
+        String afterClear = contentVersions.menuVersion(1L, 7);
+        when(weatherService.cachedForecastsFingerprint(anySet())).thenReturn(42);
+
+        // Assert
+        assertThat(afterClear).isNotEqualTo(menu);
+        assertThat(contentVersions.menuVersion(1L, 7)).isNotEqualTo(afterClear);
+    }
+}
@@ -0,0 +1,264 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.domain.IdempotencyRecord;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyInFlightException;
+import pt.ua.deti.tqs.meal.exception.IdempotencyKeyReusedException;
+import pt.ua.deti.tqs.meal.repository.IdempotencyRecordRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyStoreTest {
+
+    private static final String KEY = "key-1";
+    private static final String REQUEST = "POST /api/v1/reservations?mealId=1";
+    private static final byte[] BODY = "{\"token\":\"TEST123\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @InjectMocks
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(store, "lease", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void whenDuplicatesArriveOnThisNode_thenOnlyOneClaimsAndTheOthersGetItsResponse() throws Exception {
+        // Arrange
+        int callers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyRecord>> results = new ArrayList<>();
+
+        // Act - the caller that gets the claim completes it, the others wait for it
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    IdempotencyRecord stored = store.claim(KEY, REQUEST);
+                    if (stored != null) {
+                        return stored;
+                    }
+                    Thread.sleep(100);
+                    store.complete(KEY, REQUEST, 200, "application/json", BODY);
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            int owners = 0;
+            for (Future<IdempotencyRecord> result : results) {
+                IdempotencyRecord stored = result.get(5, TimeUnit.SECONDS);
+                if (stored == null) {
+                    owners++;
+                } else {
+                    assertThat(stored.getResponseBody()).isEqualTo(BODY);
+                }
+            }
+
+            // Assert
+            assertThat(owners).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(repository, times(1)).claim(eq(KEY), anyString(), anyString(), any(), any(), any());
+        verify(repository, never()).findById(KEY);
+    }
+
+    @Test
+    void whenKeyClaimedByAnotherNode_thenWaitForItsResponse() {
+        // Arrange - the other node is still running when first polled, then stores its response
+        LocalDateTime now = LocalDateTime.now();
+        claimedElsewhere();
+        when(repository.findById(KEY)).thenReturn(
+                Optional.of(row("other-node", false, now.plusSeconds(20), now.plusHours(24))),
+                Optional.of(row("other-node", true, now.plusSeconds(20), now.plusHours(24))));
+
+        // Act
+        IdempotencyRecord stored = store.claim(KEY, REQUEST);
+
+        // Assert
+        assertThat(stored.getResponseBody()).isEqualTo(BODY);
+        verify(repository, never()).deleteStale(anyString(), anyString(), any());
+        assertThat(cacheManager.getCache(IdempotencyStore.CACHE_NAME).get(KEY)).isNotNull();
+    }
+
+    @Test
+    void whenOtherNodeKeepsRenewingItsLease_thenDuplicateGivesUpWithoutTakingOver() {
+        // Arrange
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofMillis(200));
+        LocalDateTime now = LocalDateTime.now();
+        claimedElsewhere();
+        when(repository.findById(KEY)).thenReturn(Optional.of(row("other-node", false, now.plusSeconds(20), now.plusHours(24))));
+
+        // Act & Assert - an old claim whose owner is alive is never taken over
+        assertThatThrownBy(() -> store.claim(KEY, REQUEST)).isInstanceOf(IdempotencyKeyInFlightException.class);
+        verify(repository, never()).deleteStale(anyString(), anyString(), any());
+    }
+
+    @Test
+    void whenClaimAbandoned_thenTakeItOverAndRunAgain() {
+        // Arrange - the owner's lease lapsed without a response
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.claim(eq(KEY), anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(1);
+        when(repository.findById(KEY)).thenReturn(Optional.of(row("crashed-node", false, now.minusSeconds(1), now.plusHours(24))));
+
+        // Act
+        IdempotencyRecord stored = store.claim(KEY, REQUEST);
+
+        // Assert - only the crashed node's claim is removed, and this caller now owns the key
+        assertThat(stored).isNull();
+        verify(repository).deleteStale(eq(KEY), eq("crashed-node"), any());
+        verify(repository, times(2)).claim(eq(KEY), anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void whenCompletedRowExpired_thenClaimAnew() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.claim(eq(KEY), anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(1);
+        when(repository.findById(KEY)).thenReturn(Optional.of(row("other-node", true, now.minusHours(24), now.minusSeconds(1))));
+
+        // Act
+        IdempotencyRecord stored = store.claim(KEY, REQUEST);
+
+        // Assert
+        assertThat(stored).isNull();
+        verify(repository).deleteStale(eq(KEY), eq("other-node"), any());
+    }
+
+    @Test
+    void whenKeyUsedForOtherRequest_thenRejectIt() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        claimedElsewhere();
+        when(repository.findById(KEY)).thenReturn(Optional.of(row("other-node", true, now, now.plusHours(24))));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.claim(KEY, "POST /api/v1/reservations?mealId=2"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void whenOriginalRuns_thenHeartbeatRenewsItsLeaseUntilCompleted() {
+        // Arrange
+        store.claim(KEY, REQUEST);
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        verify(repository).claim(eq(KEY), anyString(), owner.capture(), any(), any(), any());
+
+        // Act
+        store.renewLeases();
+        store.complete(KEY, REQUEST, 200, "application/json", BODY);
+        store.renewLeases();
+
+        // Assert - renewed once while running, and completed under the same owner
+        verify(repository, times(1)).renewLease(eq(KEY), eq(owner.getValue()), any());
+        verify(repository).complete(KEY, owner.getValue(), 200, "application/json", BODY);
+    }
+
+    @Test
+    void whenStoringResponseFailsOnce_thenRetry() {
+        // Arrange
+        store.claim(KEY, REQUEST);
+        when(repository.complete(eq(KEY), anyString(), anyInt(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        // Act
+        IdempotencyRecord record = store.complete(KEY, REQUEST, 200, "application/json", BODY);
+
+        // Assert
+        assertThat(record.getResponseBody()).isEqualTo(BODY);
+        verify(repository, times(2)).complete(eq(KEY), anyString(), anyInt(), any(), any());
+    }
+
+    @Test
+    void whenResponseCannotBeStored_thenFailureIsSurfaced() {
+        // Arrange
+        store.claim(KEY, REQUEST);
+        when(repository.complete(eq(KEY), anyString(), anyInt(), any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act & Assert - the claim is kept and no longer renewed, so it lapses instead of replaying nothing
+        assertThatThrownBy(() -> store.complete(KEY, REQUEST, 200, "application/json", BODY))
+                .isInstanceOf(IllegalStateException.class);
+        store.renewLeases();
+        verify(repository, never()).renewLease(anyString(), anyString(), any());
+        verify(repository, never()).release(anyString(), anyString());
+        assertThat(cacheManager.getCache(IdempotencyStore.CACHE_NAME).get(KEY)).isNull();
+    }
+
+    private void claimedElsewhere() {
+        when(repository.claim(eq(KEY), anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    }
+
+    private IdempotencyRecord row(String owner, boolean completed, LocalDateTime leaseExpiresAt, LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(KEY);
+        record.setRequestFingerprint(fingerprint(REQUEST));
+        record.setOwnerId(owner);
+        record.setCompleted(completed);
+        record.setLeaseExpiresAt(leaseExpiresAt);
+        record.setCreatedAt(expiresAt.minusHours(24));
+        record.setExpiresAt(expiresAt);
+        if (completed) {
+            record.setResponseStatus(200);
+            record.setContentType("application/json");
+            record.setResponseBody(BODY);
+        }
+        return record;
+    }
+
+    private static String fingerprint(String request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
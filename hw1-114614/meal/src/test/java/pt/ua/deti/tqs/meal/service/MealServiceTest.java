@@ -0,0 +1,122 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MealServiceTest {
+
+    @Mock
+    private MealRepository mealRepository;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private ReservationCacheMaintainer cacheMaintainer;
+
+    @InjectMocks
+    private MealService mealService;
+
+    @Test
+    void whenGetMealsForRestaurant_thenQueryDateRangeInRepository() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        Restaurant restaurant = new Restaurant("Test Restaurant", "Test Description");
+        restaurant.setId(1L);
+        Meal meal = new Meal("Test Meal", "Test Meal Description", today, restaurant);
+
+        when(mealRepository.findByRestaurantIdAndAvailableDateBetweenOrderByAvailableDateAsc(1L, today, today.plusDays(6)))
+                .thenReturn(List.of(meal));
+
+        // Act
+        List<Meal> result = mealService.getMealsForRestaurant(1L, 7);
+
+        // Assert
+        assertThat(result).containsExactly(meal);
+        verify(mealRepository, never()).findAll();
+    }
+
+    @Test
+    void whenGetMealsForUnknownRestaurant_thenReturnEmptyList() {
+        // Arrange
+        when(mealRepository.findByRestaurantIdAndAvailableDateBetweenOrderByAvailableDateAsc(any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        List<Meal> result = mealService.getMealsForRestaurant(999L, 7);
+
+        // Assert
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void whenCapacityRaised_thenFreedSeatsGoToWaitlistFirst() {
+        // Arrange - two entries waiting, three seats freed
+        Meal meal = limitedMeal();
+        when(mealRepository.findById(10L)).thenReturn(Optional.of(meal));
+        when(mealRepository.changeCapacity(10L, 5)).thenReturn(1);
+        when(mealRepository.reserveSeats(10L, 1)).thenReturn(1);
+        when(waitlistService.promoteNext(meal)).thenReturn(true, true, false);
+
+        // Act
+        mealService.setCapacity(10L, 5);
+
+        // Assert - the seat taken for nobody is given back, and the menus are evicted
+        verify(mealRepository, times(3)).reserveSeats(10L, 1);
+        verify(mealRepository).releaseSeats(10L, 1);
+        verify(cacheMaintainer).seatsChanged(1L);
+    }
+
+    @Test
+    void whenCapacityBelowTakenSeats_thenRejectIt() {
+        // Arrange
+        when(mealRepository.findById(10L)).thenReturn(Optional.of(limitedMeal()));
+        when(mealRepository.changeCapacity(10L, 1)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> mealService.setCapacity(10L, 1)).isInstanceOf(IllegalStateException.class);
+        verify(mealRepository, never()).reserveSeats(any(), anyInt());
+        verify(cacheMaintainer, never()).seatsChanged(any());
+    }
+
+    @Test
+    void whenCapacitySetOnNewMeal_thenEverySeatIsFree() {
+        // Act
+        Meal meal = new Meal("Test Meal", "Test Meal Description", LocalDate.now(), null);
+        meal.setCapacity(20);
+
+        // Assert
+        assertThat(meal.getRemainingSeats()).isEqualTo(20);
+    }
+
+    private Meal limitedMeal() {
+        Restaurant restaurant = new Restaurant("Test Restaurant", "Test Description");
+        restaurant.setId(1L);
+        Meal meal = new Meal("Test Meal", "Test Meal Description", LocalDate.now(), restaurant);
+        meal.setId(10L);
+        meal.setCapacity(3);
+        meal.setRemainingSeats(0);
+        return meal;
+    }
+}
@@ -0,0 +1,159 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationCacheMaintainerTest {
+
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager();
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private ReservationCacheMaintainer cacheMaintainer;
+
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(1L);
+
+        Meal meal = new Meal();
+        meal.setId(10L);
+        meal.setRestaurant(restaurant);
+
+        reservation = new Reservation();
+        reservation.setId(100L);
+        reservation.setMeal(meal);
+        reservation.setToken(ReservationToken.encode(100L));
+        reservation.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Test
+    void whenReservationUsed_thenOnlyPagesListingItAreEvicted() {
+        // Arrange
+        ReservationPage listingIt = new ReservationPage(List.of(dto(100L)), null);
+        ReservationPage notListingIt = new ReservationPage(List.of(dto(50L)), "cursor");
+        cache("activeReservationsByRestaurant").put(key(1L, null, 50), listingIt);
+        cache("activeReservationsByRestaurant").put(key(1L, "other", 50), notListingIt);
+        cache("activeReservationsByRestaurant").put(key(2L, null, 50), listingIt);
+        cache("activeReservations").put(key(null, 50), listingIt);
+
+        // Act
+        cacheMaintainer.reservationUsed(reservation);
+
+        // Assert
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, null, 50))).isNull();
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, "other", 50))).isNotNull();
+        assertThat(cache("activeReservationsByRestaurant").get(key(2L, null, 50))).isNotNull();
+        assertThat(cache("activeReservations").get(key(null, 50))).isNull();
+        assertThat(cache("reservationsByToken").get(reservation.getToken()).get()).isEqualTo(reservation);
+        verify(invalidationBus).publish(argThat(invalidation ->
+                invalidation.getType() == CacheInvalidation.Type.EVICT_PAGES_LISTING
+                        && invalidation.getKey().equals(100L)
+                        && invalidation.getRestaurantId().equals(1L)));
+    }
+
+    @Test
+    void whenReservationCreated_thenTokenWrittenThroughAndLastPagesEvicted() {
+        // Arrange
+        cache("activeReservationsByRestaurant").put(key(1L, null, 50), new ReservationPage(List.of(dto(50L)), "cursor"));
+        cache("activeReservationsByRestaurant").put(key(1L, "cursor", 50), new ReservationPage(List.of(dto(60L)), null));
+
+        // Act
+        cacheMaintainer.reservationsCreated(List.of(reservation));
+
+        // Assert
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, null, 50))).isNotNull();
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, "cursor", 50))).isNull();
+        assertThat(cache("reservationsByToken").get(reservation.getToken()).get()).isEqualTo(reservation);
+    }
+
+    @Test
+    void whenReservationCreated_thenOnlyThatRestaurantsMenusEvicted() {
+        // Arrange
+        cache(MealService.MENU_CACHE).put(key(1L, 7), List.of());
+        cache(MealService.MENU_CACHE).put(key(2L, 7), List.of());
+
+        // Act
+        cacheMaintainer.reservationsCreated(List.of(reservation));
+
+        // Assert
+        assertThat(cache(MealService.MENU_CACHE).get(key(1L, 7))).isNull();
+        assertThat(cache(MealService.MENU_CACHE).get(key(2L, 7))).isNotNull();
+    }
+
+    @Test
+    void whenReservationsUsedInBulk_thenOnePassAndOneMessagePerRestaurant() {
+        // Arrange
+        Reservation other = new Reservation();
+        other.setId(200L);
+        other.setMeal(reservation.getMeal());
+        other.setToken(ReservationToken.encode(200L));
+        cache("activeReservationsByRestaurant").put(key(1L, null, 50), new ReservationPage(List.of(dto(100L)), "cursor"));
+        cache("activeReservationsByRestaurant").put(key(1L, "cursor", 50), new ReservationPage(List.of(dto(200L)), "next"));
+        cache("activeReservationsByRestaurant").put(key(1L, "next", 50), new ReservationPage(List.of(dto(300L)), null));
+
+        // Act
+        cacheMaintainer.reservationsUsed(List.of(reservation, other));
+
+        // Assert
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, null, 50))).isNull();
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, "cursor", 50))).isNull();
+        assertThat(cache("activeReservationsByRestaurant").get(key(1L, "next", 50))).isNotNull();
+        assertThat(cache("reservationsByToken").get(other.getToken()).get()).isEqualTo(other);
+        verify(invalidationBus).publish(argThat(invalidation ->
+                invalidation.getType() == CacheInvalidation.Type.EVICT_RESTAURANT_PAGES
+                        && invalidation.getRestaurantId().equals(1L)));
+        verify(invalidationBus).publish(argThat(invalidation ->
+                invalidation.getType() == CacheInvalidation.Type.EVICT_KEYS
+                        && invalidation.getKey().equals(reservation.getToken() + "," + other.getToken())));
+    }
+
+    @Test
+    void whenReservationDeleted_thenOnlyItsTokenIsEvictedOnEveryNode() {
+        // Act
+        cacheMaintainer.reservationDeleted(reservation);
+
+        // Assert
+        verify(invalidationBus).evict("reservationsByToken", reservation.getToken());
+    }
+
+    private org.springframework.cache.Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    // Same shape as the SpEL inline list keys used by ReservationService
+    private List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    private ReservationDto dto(Long id) {
+        return new ReservationDto(id, ReservationToken.encode(id), LocalDateTime.now(), false, 10L, "Meal", "Restaurant");
+    }
+}
@@ -0,0 +1,242 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pt.ua.deti.tqs.meal.domain.Meal;
+import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.domain.WaitlistStatus;
+import pt.ua.deti.tqs.meal.exception.MealFullyBookedException;
+import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
+import pt.ua.deti.tqs.meal.repository.MealRepository;
+import pt.ua.deti.tqs.meal.repository.ReservationRepository;
+import pt.ua.deti.tqs.meal.repository.RestaurantRepository;
+import pt.ua.deti.tqs.meal.repository.WaitlistEntryRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ReservationConcurrencyTest {
+
+    private static final int CAPACITY = 50;
+    private static final int ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    private Meal meal;
+
+    @BeforeEach
+    void setUp() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("Concurrency Test Restaurant");
+        restaurant = restaurantRepository.save(restaurant);
+
+        meal = new Meal("Limited Meal", "Only a few seats", LocalDate.now(), restaurant);
+        meal.setCapacity(CAPACITY);
+        meal.setRemainingSeats(CAPACITY);
+        meal = mealRepository.save(meal);
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistEntryRepository.deleteAll(waitlistEntryRepository.findAll().stream()
+                .filter(entry -> entry.getMeal().getId().equals(meal.getId()))
+                .toList());
+        reservationRepository.deleteAll(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getMeal().getId().equals(meal.getId()))
+                .toList());
+        mealRepository.delete(meal);
+        restaurantRepository.delete(meal.getRestaurant());
+    }
+
+    @Test
+    void whenManyClientsReserveAtOnce_thenNeverOversell() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(ATTEMPTS);
+
+        // Act
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    reservationService.createReservation(meal.getId());
+                    reserved.incrementAndGet();
+                } catch (MealFullyBookedException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(reserved.get()).isEqualTo(CAPACITY);
+        assertThat(rejected.get()).isEqualTo(ATTEMPTS - CAPACITY);
+        assertThat(mealRepository.findById(meal.getId()).orElseThrow().getRemainingSeats()).isZero();
+        assertThat(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getMeal().getId().equals(meal.getId()))
+                .count()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void whenSameReservationCheckedInConcurrently_thenOnlyOneSucceeds() throws Exception {
+        // Arrange
+        String token = reservationService.createReservation(meal.getId()).getToken();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger checkedIn = new AtomicInteger();
+        AtomicInteger alreadyUsed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+
+        // Act
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    Reservation reservation = reservationService.markReservationAsUsed(token);
+                    assertThat(reservation.isUsed()).isTrue();
+                    checkedIn.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    alreadyUsed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(checkedIn.get()).isEqualTo(1);
+        assertThat(alreadyUsed.get()).isEqualTo(THREADS - 1);
+        assertThat(reservationRepository.findByToken(token).orElseThrow().isUsed()).isTrue();
+    }
+
+    @Test
+    void whenCancellationsRaceWaitlistJoins_thenNoSeatIsLeftFreeWhileSomeoneWaits() throws Exception {
+        // Arrange - a full meal
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            tokens.add(reservationService.createReservation(meal.getId()).getToken());
+        }
+        List<Callable<?>> tasks = new ArrayList<>();
+        for (String token : tokens) {
+            tasks.add(() -> reservationService.deleteReservation(token));
+            tasks.add(() -> waitlistService.joinWaitlist(meal.getId()));
+        }
+
+        // Act
+        runAtOnce(tasks);
+
+        // Assert - every freed seat went to a joiner, whichever came first
+        assertThat(mealRepository.findById(meal.getId()).orElseThrow().getRemainingSeats()).isZero();
+        assertThat(waitlistEntryRepository.findAll().stream()
+                .filter(entry -> entry.getMeal().getId().equals(meal.getId()))
+                .filter(entry -> entry.getStatus() == WaitlistStatus.WAITING)
+                .count()).isZero();
+        assertThat(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getMeal().getId().equals(meal.getId()))
+                .count()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void whenCancellationsRaceCheckIns_thenACheckedInReservationIsNeverDeleted() throws Exception {
+        // Arrange
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            tokens.add(reservationService.createReservation(meal.getId()).getToken());
+        }
+        AtomicInteger checkedIn = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        List<Callable<?>> tasks = new ArrayList<>();
+        for (String token : tokens) {
+            tasks.add(() -> {
+                try {
+                    reservationService.markReservationAsUsed(token);
+                    checkedIn.incrementAndGet();
+                } catch (IllegalStateException | ResourceNotFoundException e) {
+                    // Cancelled first
+                }
+                return null;
+            });
+            tasks.add(() -> {
+                try {
+                    reservationService.deleteReservation(token);
+                    cancelled.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // Checked in first
+                }
+                return null;
+            });
+        }
+
+        // Act
+        runAtOnce(tasks);
+
+        // Assert - one outcome per reservation, and only cancellations gave seats back
+        assertThat(checkedIn.get() + cancelled.get()).isEqualTo(CAPACITY);
+        assertThat(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getMeal().getId().equals(meal.getId()))
+                .filter(Reservation::isUsed)
+                .count()).isEqualTo(checkedIn.get());
+        assertThat(mealRepository.findById(meal.getId()).orElseThrow().getRemainingSeats()).isEqualTo(cancelled.get());
+    }
+
+    private void runAtOnce(List<Callable<?>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Callable<?> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
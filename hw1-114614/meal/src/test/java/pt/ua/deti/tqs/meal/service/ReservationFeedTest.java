@@ -0,0 +1,73 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReservationFeedTest {
+
+    private static final int MAX_PENDING = 4;
+    private static final int EVENTS = 10;
+
+    private final ReservationFeed feed = new ReservationFeed();
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(feed, "objectMapper", JsonMapper.builder().findAndAddModules().build());
+        ReflectionTestUtils.setField(feed, "replaySize", 256);
+        ReflectionTestUtils.setField(feed, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(feed, "maxPending", MAX_PENDING);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        unstall.countDown();
+        ReflectionTestUtils.invokeMethod(feed, "close");
+    }
+
+    @Test
+    void whenOneSubscriberStalls_thenOthersStillGetEveryEventAndTheStalledOneIsDropped() throws Exception {
+        // Arrange - one connection whose writes never return, one that reads normally
+        BlockingQueue<Set<DataWithMediaType>> received = new LinkedBlockingQueue<>();
+        feed.subscribe(1L, null, new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) throws IOException {
+                try {
+                    unstall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        feed.subscribe(1L, null, new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                received.add(items);
+            }
+        });
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).as("open").isNotNull();
+
+        // Act & Assert - every change arrives while the stalled stream's queue fills up
+        for (int i = 1; i <= EVENTS; i++) {
+            feed.reservationsChanged(new ReservationChangedEvent(ReservationChangedEvent.Type.CREATED, 1L, List.of()));
+            assertThat(received.poll(5, TimeUnit.SECONDS)).as("event %d", i).isNotNull();
+        }
+        assertThat(feed.getStats()).containsEntry("subscribers", 1);
+    }
+}
@@ -3,25 +3,39 @@ package pt.ua.deti.tqs.meal.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationDto;
+import pt.ua.deti.tqs.meal.controller.dto.ReservationPage;
+import pt.ua.deti.tqs.meal.controller.dto.TokenResult;
 import pt.ua.deti.tqs.meal.domain.Meal;
 import pt.ua.deti.tqs.meal.domain.Reservation;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
 import pt.ua.deti.tqs.meal.domain.Restaurant;
+import pt.ua.deti.tqs.meal.exception.ConcurrentCheckInException;
+import pt.ua.deti.tqs.meal.exception.MealFullyBookedException;
 import pt.ua.deti.tqs.meal.exception.ResourceNotFoundException;
 import pt.ua.deti.tqs.meal.repository.MealRepository;
 import pt.ua.deti.tqs.meal.repository.ReservationRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,9 +47,24 @@ public class ReservationServiceTest {
     @Mock
     private MealRepository mealRepository;
 
+    @Mock
+    private TokenAllocator tokenAllocator;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private ReservationCacheMaintainer cacheMaintainer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ReservationService reservationService;
 
+    private static final String TEST_TOKEN = ReservationToken.encode(1234L);
+    private static final String UNKNOWN_TOKEN = ReservationToken.encode(5678L);
+
     private Meal testMeal;
     private Reservation testReservation;
 
@@ -55,7 +84,7 @@ public class ReservationServiceTest {
         testReservation = new Reservation();
         testReservation.setId(1L);
         testReservation.setMeal(testMeal);
-        testReservation.setToken("TEST_TOKEN");
+        testReservation.setToken(TEST_TOKEN);
         testReservation.setUsed(false);
         testReservation.setCreatedAt(LocalDateTime.now());
     }
@@ -64,6 +93,7 @@ public class ReservationServiceTest {
     void whenCreateReservation_thenReturnReservation() {
         // Arrange
         when(mealRepository.findById(1L)).thenReturn(Optional.of(testMeal));
+        when(tokenAllocator.nextToken()).thenReturn(TEST_TOKEN);
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
             Reservation savedReservation = invocation.getArgument(0);
             savedReservation.setId(1L);
@@ -77,7 +107,7 @@ public class ReservationServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getMeal()).isEqualTo(testMeal);
         assertThat(result.isUsed()).isFalse();
-        assertThat(result.getToken()).isNotNull();
+        assertThat(result.getToken()).isEqualTo(TEST_TOKEN);
     }
 
     @Test
@@ -94,10 +124,10 @@ public class ReservationServiceTest {
     @Test
     void whenGetReservationByToken_thenReturnReservation() {
         // Arrange
-        when(reservationRepository.findByToken("TEST_TOKEN")).thenReturn(Optional.of(testReservation));
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(testReservation));
 
         // Act
-        Reservation result = reservationService.getReservationByToken("TEST_TOKEN");
+        Reservation result = reservationService.getReservationByToken(TEST_TOKEN);
 
         // Assert
         assertThat(result).isEqualTo(testReservation);
@@ -106,53 +136,294 @@ public class ReservationServiceTest {
     @Test
     void whenGetReservationByInvalidToken_thenThrowException() {
         // Arrange
-        when(reservationRepository.findByToken("INVALID_TOKEN")).thenReturn(Optional.empty());
+        when(reservationRepository.findByToken(UNKNOWN_TOKEN)).thenReturn(Optional.empty());
 
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.getReservationByToken(UNKNOWN_TOKEN))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Reservation not found");
+    }
+
+    @Test
+    void whenGetReservationByMalformedToken_thenThrowWithoutQuerying() {
         // Act & Assert
         assertThatThrownBy(() -> reservationService.getReservationByToken("INVALID_TOKEN"))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Reservation not found");
+        verify(reservationRepository, never()).findByToken(any());
     }
 
     @Test
     void whenMarkReservationAsUsed_thenUpdateReservation() {
         // Arrange
-        Reservation unusedReservation = new Reservation();
-        unusedReservation.setId(1L);
-        unusedReservation.setMeal(testMeal);
-        unusedReservation.setToken("TEST_TOKEN");
-        unusedReservation.setUsed(false);
-
         Reservation usedReservation = new Reservation();
         usedReservation.setId(1L);
         usedReservation.setMeal(testMeal);
-        usedReservation.setToken("TEST_TOKEN");
+        usedReservation.setToken(TEST_TOKEN);
         usedReservation.setUsed(true);
 
-        when(reservationRepository.findByToken("TEST_TOKEN")).thenReturn(Optional.of(unusedReservation));
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(usedReservation);
+        when(reservationRepository.markUsed(TEST_TOKEN)).thenReturn(1);
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(usedReservation));
 
         // Act
-        Reservation result = reservationService.markReservationAsUsed("TEST_TOKEN");
+        Reservation result = reservationService.markReservationAsUsed(TEST_TOKEN);
 
         // Assert
         assertThat(result.isUsed()).isTrue();
+        verify(reservationRepository, never()).save(any());
+
+        ArgumentCaptor<ReservationChangedEvent> event = ArgumentCaptor.forClass(ReservationChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ReservationChangedEvent.Type.USED);
+        assertThat(event.getValue().getRestaurantId()).isEqualTo(1L);
+        assertThat(event.getValue().getReservations()).extracting(ReservationDto::getToken).containsExactly(TEST_TOKEN);
+    }
+
+    @Test
+    void whenMarkUsedReservationAsUsed_thenThrowException() {
+        // Arrange
+        testReservation.setUsed(true);
+        when(reservationRepository.markUsed(TEST_TOKEN)).thenReturn(0);
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(testReservation));
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.markReservationAsUsed(TEST_TOKEN))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("already been used");
+    }
+
+    @Test
+    void whenMarkUnknownReservationAsUsed_thenThrowNotFound() {
+        // Arrange
+        when(reservationRepository.markUsed(UNKNOWN_TOKEN)).thenReturn(0);
+        when(reservationRepository.findByToken(UNKNOWN_TOKEN)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.markReservationAsUsed(UNKNOWN_TOKEN))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void whenGetActiveReservations_thenReturnFirstPage() {
+        // Arrange
+        ReservationDto first = new ReservationDto(testReservation);
+        ReservationDto second = new ReservationDto(2L, "SECOND", LocalDateTime.now(), false, 1L, "Test Meal", "Test Restaurant");
+        when(reservationRepository.findActive(Limit.of(11))).thenReturn(List.of(first, second));
+
+        // Act
+        ReservationPage result = reservationService.getActiveReservations(null, 10);
+
+        // Assert
+        assertThat(result.getItems()).containsExactly(first, second);
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    void whenMoreActiveReservationsThanLimit_thenReturnNextCursor() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2025, 4, 1, 12, 0);
+        ReservationDto first = new ReservationDto(1L, "FIRST", createdAt, false, 1L, "Test Meal", "Test Restaurant");
+        ReservationDto second = new ReservationDto(2L, "SECOND", createdAt, false, 1L, "Test Meal", "Test Restaurant");
+        when(reservationRepository.findActiveByRestaurantId(1L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(reservationRepository.findActiveByRestaurantIdAfter(1L, createdAt, 1L, Limit.of(2))).thenReturn(List.of(second));
+
+        // Act
+        ReservationPage firstPage = reservationService.getActiveReservationsForRestaurant(1L, null, 1);
+        ReservationPage secondPage = reservationService.getActiveReservationsForRestaurant(1L, firstPage.getNextCursor(), 1);
+
+        // Assert
+        assertThat(firstPage.getItems()).containsExactly(first);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getItems()).containsExactly(second);
+        assertThat(secondPage.hasNext()).isFalse();
+        verify(reservationRepository, never()).findByUsed(false);
+    }
+
+    @Test
+    void whenGetActiveReservationsWithInvalidCursor_thenThrowException() {
+        assertThatThrownBy(() -> reservationService.getActiveReservationsForRestaurant(1L, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenCreateReservationsInBatch_thenResolveMealsOnceAndSaveAll() {
+        // Arrange
+        Meal otherMeal = new Meal();
+        otherMeal.setId(2L);
+        otherMeal.setName("Other Meal");
+        otherMeal.setRestaurant(testMeal.getRestaurant());
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 2);
+        quantities.put(2L, 1);
+
+        when(mealRepository.findAllById(quantities.keySet())).thenReturn(List.of(testMeal, otherMeal));
+        when(tokenAllocator.nextTokens(3)).thenReturn(List.of(
+                ReservationToken.encode(1L), ReservationToken.encode(2L), ReservationToken.encode(3L)));
+        when(reservationRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Reservation> result = reservationService.createReservations(quantities);
+
+        // Assert
+        assertThat(result).hasSize(3);
+        assertThat(result).extracting(Reservation::getMeal).containsExactly(testMeal, testMeal, otherMeal);
+        assertThat(result).extracting(Reservation::getToken).doesNotHaveDuplicates();
+        verify(mealRepository, never()).findById(any());
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void whenCreateReservationsWithUnknownMeal_thenThrowAndSaveNothing() {
+        // Arrange
+        Map<Long, Integer> quantities = Map.of(1L, 1, 999L, 1);
+        when(mealRepository.findAllById(quantities.keySet())).thenReturn(List.of(testMeal));
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.createReservations(quantities))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("999");
+        verify(reservationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void whenCreateReservationsOverBatchLimit_thenThrowException() {
+        assertThatThrownBy(() -> reservationService.createReservations(Map.of(1L, ReservationService.MAX_BATCH_SIZE + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenBatchQuantitiesOverflowInt_thenThrowException() {
+        // Two quantities whose int sum wraps around to a small negative number
+        Map<Long, Integer> quantities = Map.of(1L, Integer.MAX_VALUE, 2L, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> reservationService.createReservations(quantities))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(mealRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void whenCreateReservationForFullyBookedMeal_thenThrowAndSaveNothing() {
+        // Arrange
+        testMeal.setCapacity(10);
+        testMeal.setRemainingSeats(0);
+        when(mealRepository.findById(1L)).thenReturn(Optional.of(testMeal));
+        when(mealRepository.reserveSeats(1L, 1)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.createReservation(1L))
+                .isInstanceOf(MealFullyBookedException.class);
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void whenCreateReservationForUnlimitedMeal_thenDoNotTouchSeats() {
+        // Arrange
+        when(mealRepository.findById(1L)).thenReturn(Optional.of(testMeal));
+        when(tokenAllocator.nextToken()).thenReturn(TEST_TOKEN);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        reservationService.createReservation(1L);
+
+        // Assert
+        verify(mealRepository, never()).reserveSeats(any(), anyInt());
+    }
+
+    @Test
+    void whenCancelReservationWithWaitlist_thenPromoteInsteadOfReleasingSeat() {
+        // Arrange
+        testMeal.setCapacity(10);
+        testMeal.setRemainingSeats(0);
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(testReservation));
+        when(reservationRepository.deleteUnused(1L)).thenReturn(1);
+        when(waitlistService.promoteNext(testMeal)).thenReturn(true);
+
+        // Act
+        reservationService.deleteReservation(TEST_TOKEN);
+
+        // Assert
+        verify(mealRepository).findByIdForUpdate(1L);
+        verify(reservationRepository).deleteUnused(1L);
+        verify(mealRepository, never()).releaseSeats(1L, 1);
+    }
+
+    @Test
+    void whenCancelReservationWithoutWaitlist_thenReleaseSeat() {
+        // Arrange
+        testMeal.setCapacity(10);
+        testMeal.setRemainingSeats(0);
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(testReservation));
+        when(reservationRepository.deleteUnused(1L)).thenReturn(1);
+        when(waitlistService.promoteNext(testMeal)).thenReturn(false);
+
+        // Act
+        reservationService.deleteReservation(TEST_TOKEN);
+
+        // Assert
+        verify(mealRepository).releaseSeats(1L, 1);
+    }
+
+    @Test
+    void whenCancelRacesCheckIn_thenThrowAndKeepTheSeatTaken() {
+        // Arrange - read as unused, checked in before the delete
+        testMeal.setCapacity(10);
+        testMeal.setRemainingSeats(0);
+        when(reservationRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(testReservation));
+        when(reservationRepository.deleteUnused(1L)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.deleteReservation(TEST_TOKEN))
+                .isInstanceOf(IllegalStateException.class);
+        verify(waitlistService, never()).promoteNext(any());
+        verify(mealRepository, never()).releaseSeats(1L, 1);
+        verify(cacheMaintainer, never()).reservationDeleted(any());
     }
 
     @Test
-    void whenGetActiveReservations_thenReturnListOfReservations() {
+    void whenCheckInReservationsInBulk_thenOneQueryOneUpdateAndPerTokenResult() {
         // Arrange
-        List<Reservation> activeReservations = Arrays.asList(
-                testReservation,
-                new Reservation()
-        );
-        when(reservationRepository.findByUsed(false)).thenReturn(activeReservations);
+        Reservation alreadyUsed = new Reservation();
+        alreadyUsed.setId(2L);
+        alreadyUsed.setMeal(testMeal);
+        alreadyUsed.setToken(ReservationToken.encode(2L));
+        alreadyUsed.setUsed(true);
+        when(reservationRepository.findAllByTokenIn(any())).thenReturn(List.of(testReservation, alreadyUsed));
+        when(reservationRepository.markAllUsed(List.of(1L))).thenReturn(1);
+
+        // Act
+        List<TokenResult> results = reservationService.checkInReservations(List.of(
+                TEST_TOKEN.toLowerCase(), alreadyUsed.getToken(), UNKNOWN_TOKEN, "not-a-token", TEST_TOKEN));
+
+        // Assert
+        assertThat(results).extracting(TokenResult::getStatus).containsExactly(
+                TokenResult.Status.OK, TokenResult.Status.ALREADY_USED, TokenResult.Status.UNKNOWN,
+                TokenResult.Status.UNKNOWN, TokenResult.Status.ALREADY_USED);
+        assertThat(results.get(0).getToken()).isEqualTo(TEST_TOKEN.toLowerCase());
+        assertThat(results.get(0).getReservation().isUsed()).isTrue();
+        verify(reservationRepository).findAllByTokenIn(Set.of(TEST_TOKEN, alreadyUsed.getToken(), UNKNOWN_TOKEN));
+        verify(reservationRepository, never()).markUsed(any());
+        verify(cacheMaintainer).reservationsUsed(List.of(testReservation));
+    }
 
+    @Test
+    void whenBulkCheckInRacesAnotherCheckIn_thenThrowConflict() {
+        // Arrange
+        when(reservationRepository.findAllByTokenIn(any())).thenReturn(List.of(testReservation));
+        when(reservationRepository.markAllUsed(List.of(1L))).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationService.checkInReservations(List.of(TEST_TOKEN)))
+                .isInstanceOf(ConcurrentCheckInException.class);
+        verify(cacheMaintainer, never()).reservationsUsed(any());
+    }
+
+    @Test
+    void whenLookupOnlyMalformedTokens_thenDoNotQuery() {
         // Act
-        List<Reservation> result = reservationService.getActiveReservations();
+        List<TokenResult> results = reservationService.lookupReservations(List.of("bad", "also-bad"));
 
         // Assert
-        assertThat(result).hasSize(2);
-        assertThat(result).contains(testReservation);
+        assertThat(results).extracting(TokenResult::getStatus).containsOnly(TokenResult.Status.UNKNOWN);
+        verify(reservationRepository, never()).findAllByTokenIn(any());
     }
-} 
\ No newline at end of file
+}
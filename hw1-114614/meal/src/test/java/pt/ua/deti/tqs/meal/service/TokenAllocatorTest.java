@@ -0,0 +1,95 @@
+package pt.ua.deti.tqs.meal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.domain.ReservationToken;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TokenAllocator tokenAllocator;
+
+    @BeforeEach
+    void setUp() {
+        tokenAllocator = new TokenAllocator("test-secret");
+        ReflectionTestUtils.setField(tokenAllocator, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void whenAllocatingAcrossBlocks_thenTokensAreUniqueAndOneQueryPerBlock() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L, 2L, 3L);
+        int count = TokenAllocator.BLOCK_SIZE * 3;
+
+        // Act
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            tokens.add(tokenAllocator.nextToken());
+        }
+
+        // Assert
+        assertThat(tokens).hasSize(count);
+        assertThat(tokens).allMatch(ReservationToken::isValid);
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void whenPermutingValues_thenPermutationIsCollisionFree() {
+        Set<Long> permuted = new HashSet<>();
+        for (long value = 0; value < 100_000; value++) {
+            long result = tokenAllocator.permute(value);
+            assertThat(result).isBetween(0L, ReservationToken.MAX_VALUE);
+            permuted.add(result);
+        }
+
+        assertThat(permuted).hasSize(100_000);
+    }
+
+    @Test
+    void whenEncodingAndDecoding_thenRoundTrip() {
+        long value = 0x9A_BCDE_F012L;
+
+        String token = ReservationToken.encode(value);
+
+        assertThat(token).hasSize(ReservationToken.LENGTH);
+        assertThat(ReservationToken.decode(token)).isEqualTo(value);
+        assertThat(ReservationToken.decode(token.toLowerCase())).isEqualTo(value);
+    }
+
+    @Test
+    void whenTokenHasTypo_thenCheckCharacterRejectsIt() {
+        String token = ReservationToken.encode(123_456_789L);
+        char replacement = token.charAt(3) == '7' ? '8' : '7';
+        String typo = token.substring(0, 3) + replacement + token.substring(4);
+
+        assertThat(ReservationToken.isValid(token)).isTrue();
+        assertThat(ReservationToken.isValid(typo)).isFalse();
+        assertThat(ReservationToken.isValid("INVALID_TOKEN")).isFalse();
+    }
+
+    @Test
+    void whenLegacyHexToken_thenRoundTripsThroughLegacyRange() {
+        long value = ReservationToken.decode("1A2B3C4D");
+
+        assertThat(value).isGreaterThan(ReservationToken.MAX_VALUE);
+        assertThat(ReservationToken.encode(value)).isEqualTo("1A2B3C4D");
+    }
+}
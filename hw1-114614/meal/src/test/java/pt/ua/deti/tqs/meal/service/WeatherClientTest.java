@@ -0,0 +1,163 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.config.ForecastExpiry;
+import pt.ua.deti.tqs.meal.repository.ForecastSnapshotRepository;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * WeatherService and WeatherClient wired by hand against a WireMock provider, no Spring context
+ */
+public class WeatherClientTest {
+
+    private static final int CALLERS = 50;
+    // Generous, so a loaded machine never turns a coalesced call into a timeout
+    private static final long TIMEOUT_MS = 10000;
+    // Only for the test that is about the read timeout
+    private static final long SHORT_TIMEOUT_MS = 1500;
+
+    private static final WireMockServer provider = new WireMockServer(wireMockConfig().dynamicPort());
+
+    private CacheManager cacheManager;
+    private WeatherClient weatherClient;
+    private WeatherService weatherService;
+
+    @BeforeAll
+    static void startProvider() {
+        provider.start();
+    }
+
+    @AfterAll
+    static void stopProvider() {
+        provider.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        provider.resetAll();
+
+        weatherClient = new WeatherClient();
+        ReflectionTestUtils.setField(weatherClient, "apiUrl", provider.baseUrl() + "/forecast");
+        ReflectionTestUtils.setField(weatherClient, "apiKey", "test");
+        ReflectionTestUtils.setField(weatherClient, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(weatherClient, "readTimeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(weatherClient, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.invokeMethod(weatherClient, "init");
+
+        cacheManager = new CaffeineCacheManager();
+        weatherService = new WeatherService();
+        ReflectionTestUtils.setField(weatherService, "providerEnabled", true);
+        ReflectionTestUtils.setField(weatherService, "failureThreshold", 5);
+        ReflectionTestUtils.setField(weatherService, "openDuration", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(weatherService, "maxConcurrentCalls", 4);
+        ReflectionTestUtils.setField(weatherService, "callerTimeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(weatherService, "weatherClient", weatherClient);
+        ReflectionTestUtils.setField(weatherService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(weatherService, "snapshotRepository", mock(ForecastSnapshotRepository.class));
+        ReflectionTestUtils.setField(weatherService, "forecastExpiry", mock(ForecastExpiry.class));
+        ReflectionTestUtils.invokeMethod(weatherService, "init");
+    }
+
+    @Test
+    void whenManyCallersMissTheSameDate_thenOneUpstreamRequest() throws Exception {
+        // Arrange - a slow provider keeps the first call in flight while the others arrive
+        LocalDate date = LocalDate.now().plusDays(3);
+        provider.stubFor(get(urlPathEqualTo("/forecast"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(forecastJson(date))
+                        .withFixedDelay(300)));
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<WeatherForecast>> forecasts = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                forecasts.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return weatherService.getForecastAsync(date).join();
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(forecasts.toArray(CompletableFuture[]::new)).get(3 * TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertThat(forecasts).allSatisfy(forecast -> assertThat(forecast.join().getDescription()).isEqualTo("Sunny"));
+        provider.verify(1, getRequestedFor(urlPathEqualTo("/forecast")));
+    }
+
+    @Test
+    void whenProviderIsTooSlow_thenForecastIsUnavailableWithinReadTimeout() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(weatherClient, "readTimeoutMs", SHORT_TIMEOUT_MS);
+        ReflectionTestUtils.setField(weatherService, "callerTimeoutMs", SHORT_TIMEOUT_MS);
+        LocalDate date = LocalDate.now().plusDays(4);
+        provider.stubFor(get(urlPathEqualTo("/forecast"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(forecastJson(date))
+                        .withFixedDelay(4000)));
+
+        // Act
+        CompletableFuture<WeatherForecast> forecast = weatherService.getForecastAsync(date);
+
+        // Assert - no forecast was ever stored for the date, so it degrades to unavailable
+        assertThat(forecast.get(3, TimeUnit.SECONDS)).isNull();
+        assertThat(cacheManager.getCache(WeatherService.WEATHER_CACHE).get(date)).isNull();
+    }
+
+    @Test
+    void whenDateCachedAfterCallerMissed_thenNoUpstreamRequest() {
+        // Arrange - the date was cached by a call that finished after this caller's cache miss
+        LocalDate date = LocalDate.now().plusDays(5);
+        WeatherForecast cached = new WeatherForecast("Cloudy", 10, 15, "40%");
+        cacheManager.getCache(WeatherService.WEATHER_CACHE).put(date, cached);
+
+        // Act - straight to the single-flight path, as a caller past its cache lookup
+        WeatherForecast forecast = weatherService.getForecastForDate(date);
+
+        // Assert
+        assertThat(forecast).isEqualTo(cached);
+        provider.verify(0, getRequestedFor(urlPathEqualTo("/forecast")));
+    }
+
+    private static String forecastJson(LocalDate date) {
+        return "[{\"date\":\"" + date + "\",\"description\":\"Sunny\",\"minTemperature\":15.0,"
+                + "\"maxTemperature\":25.0,\"precipitationProbability\":\"10%\"}]";
+    }
+}
@@ -0,0 +1,122 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import pt.ua.deti.tqs.meal.config.ForecastExpiry;
+import pt.ua.deti.tqs.meal.domain.ForecastSnapshot;
+import pt.ua.deti.tqs.meal.repository.ForecastSnapshotRepository;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The single-date lookup goes through the {@code @Cacheable} proxy, so it runs in a minimal
+ * Spring context: caching enabled, provider and snapshot store mocked
+ */
+public class WeatherFallbackCachingTest {
+
+    private final WeatherClient weatherClient = mock(WeatherClient.class);
+    private final ForecastSnapshotRepository snapshotRepository = mock(ForecastSnapshotRepository.class);
+    private final CacheManager cacheManager = new CaffeineCacheManager();
+
+    private AnnotationConfigApplicationContext context;
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "api.weather.enabled", "true",
+                "meal.weather.snapshot.restore-on-startup", "false")));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.register(CachingConfig.class);
+        context.registerBean(CacheManager.class, () -> cacheManager);
+        context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+        context.registerBean(WeatherClient.class, () -> weatherClient);
+        context.registerBean(ForecastSnapshotRepository.class, () -> snapshotRepository);
+        context.registerBean(ForecastExpiry.class, () -> new ForecastExpiry(Clock.systemDefaultZone()));
+        context.registerBean(WeatherService.class);
+        context.refresh();
+        weatherService = context.getBean(WeatherService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void whenProviderFails_thenLastKnownGoodServedButNotCached() {
+        // Arrange
+        LocalDate date = LocalDate.now().plusDays(2);
+        when(weatherClient.fetchForecasts(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Weather provider returned status 500")));
+        when(snapshotRepository.findByForecastDateIn(anyCollection())).thenReturn(List.of(snapshot(date)));
+
+        // Act
+        WeatherForecast first = weatherService.getForecastForDate(date);
+        WeatherForecast second = weatherService.getForecastForDate(date);
+
+        // Assert - both lookups went to the provider, neither cached the stand-in
+        assertThat(first.getDescription()).isEqualTo("Sunny");
+        assertThat(first.isFallback()).isTrue();
+        assertThat(second.isFallback()).isTrue();
+        verify(weatherClient, times(2)).fetchForecasts(date, date);
+        assertThat(cacheManager.getCache(WeatherService.WEATHER_CACHE).get(date)).isNull();
+    }
+
+    @Test
+    void whenProviderAnswers_thenForecastCached() {
+        // Arrange
+        LocalDate date = LocalDate.now().plusDays(2);
+        WeatherForecast fresh = new WeatherForecast("Cloudy", 10, 15, "40%");
+        when(weatherClient.fetchForecasts(date, date)).thenReturn(CompletableFuture.completedFuture(Map.of(date, fresh)));
+
+        // Act
+        weatherService.getForecastForDate(date);
+        WeatherForecast cached = weatherService.getForecastForDate(date);
+
+        // Assert
+        assertThat(cached).isEqualTo(fresh);
+        assertThat(cached.isFallback()).isFalse();
+        verify(weatherClient, times(1)).fetchForecasts(date, date);
+    }
+
+    private ForecastSnapshot snapshot(LocalDate date) {
+        ForecastSnapshot snapshot = new ForecastSnapshot();
+        snapshot.setForecastDate(date);
+        snapshot.setDescription("Sunny");
+        snapshot.setMinTemperature(15.0);
+        snapshot.setMaxTemperature(25.0);
+        snapshot.setPrecipitationProbability("10%");
+        snapshot.setFetchedAt(LocalDateTime.now().minusHours(5));
+        return snapshot;
+    }
+
+    @Configuration
+    @EnableCaching(proxyTargetClass = true)
+    static class CachingConfig {
+    }
+}
@@ -0,0 +1,160 @@
+package pt.ua.deti.tqs.meal.service;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pt.ua.deti.tqs.meal.repository.ForecastSnapshotRepository;
+import pt.ua.deti.tqs.meal.service.WeatherService.WeatherForecast;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class WeatherResilienceTest {
+
+    private static final WireMockServer provider = new WireMockServer(wireMockConfig().dynamicPort());
+
+    static {
+        provider.start();
+    }
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ForecastSnapshotRepository snapshotRepository;
+
+    @DynamicPropertySource
+    static void weatherProperties(DynamicPropertyRegistry registry) {
+        registry.add("api.weather.enabled", () -> "true");
+        registry.add("api.weather.url", () -> provider.baseUrl() + "/forecast");
+        registry.add("api.weather.read-timeout-ms", () -> "2000");
+        registry.add("api.weather.circuit-breaker.failure-threshold", () -> "2");
+        registry.add("api.weather.circuit-breaker.open-duration", () -> "PT10M");
+        registry.add("api.weather.bulkhead.max-concurrent-calls", () -> "1");
+        registry.add("api.weather.caller-timeout-ms", () -> "300");
+        registry.add("meal.weather.refresh-ahead.enabled", () -> "false");
+        registry.add("meal.cache.warm-up.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopProvider() {
+        provider.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        provider.resetAll();
+        snapshotRepository.deleteAll();
+        cacheManager.getCache(WeatherService.WEATHER_CACHE).clear();
+    }
+
+    @Test
+    void whenProviderFails_thenLastKnownGoodIsServedAndCircuitOpens() {
+        // Arrange - one good response is stored as the last-known-good forecast
+        LocalDate date = LocalDate.now().plusDays(2);
+        provider.stubFor(get(urlPathEqualTo("/forecast"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(forecastJson(date))));
+        weatherService.getForecastAsync(date).join();
+        awaitSnapshot(date);
+        provider.resetAll();
+        provider.stubFor(get(urlPathEqualTo("/forecast")).willReturn(aResponse().withStatus(500)));
+
+        // Act - two failures open the circuit, the third lookup never reaches the provider
+        WeatherForecast[] forecasts = new WeatherForecast[3];
+        for (int i = 0; i < forecasts.length; i++) {
+            cacheManager.getCache(WeatherService.WEATHER_CACHE).clear();
+            forecasts[i] = weatherService.getForecastAsync(date).join();
+        }
+
+        // Assert
+        assertThat(forecasts).allSatisfy(forecast -> assertThat(forecast.getDescription()).isEqualTo("Sunny"));
+        provider.verify(2, getRequestedFor(urlPathEqualTo("/forecast")));
+        Map<String, Object> stats = weatherService.getProviderStats();
+        assertThat(stats.get("circuitState")).isEqualTo("OPEN");
+        assertThat(stats.get("circuitRejections")).isEqualTo(1L);
+        assertThat(stats.get("lastKnownGoodServed")).isEqualTo(3L);
+        // Fallback forecasts are not cached, so the provider is retried once the circuit closes
+        assertThat(cacheManager.getCache(WeatherService.WEATHER_CACHE).get(date)).isNull();
+    }
+
+    @Test
+    void whenBulkheadIsFull_thenFurtherCallsAreRejected() throws Exception {
+        // Arrange - the only permit is held by a slow call
+        LocalDate slowDate = LocalDate.now().plusDays(5);
+        LocalDate otherDate = LocalDate.now().plusDays(8);
+        provider.stubFor(get(urlPathEqualTo("/forecast"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(forecastJson(slowDate))
+                        .withFixedDelay(500)));
+        CompletableFuture<WeatherForecast> slow = weatherService.getForecastAsync(slowDate);
+
+        // Act
+        WeatherForecast rejected = weatherService.getForecastAsync(otherDate).get(100, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertThat(rejected).isNull();
+        assertThat(slow.get(2, TimeUnit.SECONDS).getDescription()).isEqualTo("Sunny");
+        assertThat(weatherService.getProviderStats().get("bulkheadRejections")).isEqualTo(1L);
+        assertThat(weatherService.getProviderStats().get("circuitState")).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void whenProviderIsSlow_thenListingsRenderWithoutForecastsAfterCallerTimeout() {
+        // Arrange
+        LocalDate date = LocalDate.now().plusDays(6);
+        provider.stubFor(get(urlPathEqualTo("/forecast"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(forecastJson(date))
+                        .withFixedDelay(1000)));
+
+        // Act
+        long start = System.nanoTime();
+        Map<LocalDate, WeatherForecast> forecasts = weatherService.getForecastForDates(Set.of(date));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertThat(forecasts).isEmpty();
+        assertThat(elapsedMs).isLessThan(1000);
+        assertThat(weatherService.getProviderStats().get("callerTimeouts")).isEqualTo(1L);
+    }
+
+    // Snapshots are written in the background
+    private void awaitSnapshot(LocalDate date) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (snapshotRepository.findById(date).isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(snapshotRepository.findById(date)).isPresent();
+    }
+
+    private static String forecastJson(LocalDate date) {
+        return "[{\"date\":\"" + date + "\",\"description\":\"Sunny\",\"minTemperature\":15.0,"
+                + "\"maxTemperature\":25.0,\"precipitationProbability\":\"10%\"}]";
+    }
+}
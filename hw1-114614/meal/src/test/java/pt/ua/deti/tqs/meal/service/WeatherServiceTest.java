@@ -2,22 +2,54 @@ package pt.ua.deti.tqs.meal.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.ua.deti.tqs.meal.config.CacheExpiry;
+import pt.ua.deti.tqs.meal.config.CacheProperties;
+import pt.ua.deti.tqs.meal.config.CacheReloader;
+import pt.ua.deti.tqs.meal.config.ForecastExpiry;
+import pt.ua.deti.tqs.meal.config.PolicyCacheManager;
+import pt.ua.deti.tqs.meal.domain.ForecastSnapshot;
+import pt.ua.deti.tqs.meal.repository.ForecastSnapshotRepository;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class WeatherServiceTest {
 
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager();
+
+    @Spy
+    private ForecastExpiry forecastExpiry = new ForecastExpiry(Clock.systemDefaultZone());
+
+    @Mock
+    private ForecastSnapshotRepository snapshotRepository;
+
+    @Mock
+    private WeatherClient weatherClient;
+
     @Spy
     @InjectMocks
     private WeatherService weatherService;
@@ -34,7 +66,7 @@ public class WeatherServiceTest {
     }
 
     @Test
-    void whenGetForecastForMultipleDates_thenCacheWorksCorrectly() {
+    void whenGetForecastForMultipleDates_thenFetchMissingDatesInOneRequest() {
         // Arrange
         LocalDate today = LocalDate.now();
         LocalDate tomorrow = today.plusDays(1);
@@ -43,24 +75,34 @@ public class WeatherServiceTest {
         dates.add(today);
         dates.add(tomorrow);
         
-        // Mock internal forecast generation to isolate cache behavior
-        doReturn(WeatherService.WeatherForecast.builder()
-                .description("Sunny")
-                .minTemperature(20.0)
-                .maxTemperature(30.0)
-                .precipitationProbability("10%")
-                .build())
-                .when(weatherService).generateMockForecast(any());
+        // Act
+        Map<LocalDate, WeatherService.WeatherForecast> forecasts = weatherService.getForecastForDates(dates);
         
-        // Act - Get forecasts for both dates
-        weatherService.getForecastForDates(dates);
+        // Assert - one range request, no per-date calls
+        assertThat(forecasts).containsOnlyKeys(today, tomorrow);
+        verify(weatherService, times(1)).fetchForecasts(today, tomorrow);
+        verify(weatherService, never()).getForecastForDate(any(LocalDate.class));
+        assertThat(weatherService.getCacheStats().get("misses")).isEqualTo(2);
+    }
+
+    @Test
+    void whenGetForecastForCachedDates_thenServeFromCache() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        Set<LocalDate> dates = Set.of(today, today.plusDays(1), today.plusDays(2));
+        weatherService.getForecastForDates(Set.of(today.plusDays(1)));
+        clearInvocations(weatherService);
         
-        // Verify the correct number of calls to getForecastForDate
-        verify(weatherService, times(2)).getForecastForDate(any(LocalDate.class));
+        // Act
+        weatherService.getForecastForDates(dates);
+        Map<LocalDate, WeatherService.WeatherForecast> cached = weatherService.getForecastForDates(dates);
         
-        // Verify the expected number of calls to generateMockForecast
-        // If each date causes a cache miss, we should see 2 calls
-        verify(weatherService, times(2)).generateMockForecast(any(LocalDate.class));
+        // Assert - only the first call fetched, once, for the whole missing range
+        assertThat(cached).hasSize(3);
+        verify(weatherService, times(1)).fetchForecasts(today, today.plusDays(2));
+        Map<String, Integer> stats = weatherService.getCacheStats();
+        assertThat(stats.get("hits")).isEqualTo(4);
+        assertThat(stats.get("misses")).isEqualTo(3);
     }
 
     @Test
@@ -76,4 +118,99 @@ public class WeatherServiceTest {
         assertThat(forecast.getMaxTemperature()).isNotNull();
         assertThat(forecast.getPrecipitationProbability()).isNotNull();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void whenRefreshForecasts_thenCachedForecastsAreReplaced() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        LocalDate last = today.plusDays(WeatherService.FORECAST_HORIZON_DAYS - 1);
+        cacheManager.getCache(WeatherService.WEATHER_CACHE).put(today, new WeatherService.WeatherForecast("Stale", 0, 0, "0%"));
+        
+        // Act
+        weatherService.refreshForecasts(today, last).join();
+        
+        // Assert - the whole horizon is cached, and counters only track client lookups
+        verify(weatherService, times(1)).fetchForecasts(today, last);
+        assertThat(cacheManager.getCache(WeatherService.WEATHER_CACHE).get(today, WeatherService.WeatherForecast.class).getDescription())
+                .isNotEqualTo("Stale");
+        assertThat(weatherService.getForecastForDates(Set.of(today, last))).hasSize(2);
+        assertThat(weatherService.getCacheStats().get("hits")).isEqualTo(2);
+        assertThat(weatherService.getCacheStats().get("misses")).isZero();
+    }
+
+    @Test
+    void whenProviderDisabled_thenGeneratedForecastsAreNotStored() {
+        // Act
+        weatherService.getForecastForDates(Set.of(LocalDate.now(), LocalDate.now().plusDays(1)));
+        
+        // Assert
+        verifyNoInteractions(snapshotRepository);
+    }
+
+    @Test
+    void whenProviderAnswers_thenSnapshotIsStoredOffTheClientThread() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherService, "providerEnabled", true);
+        ReflectionTestUtils.setField(weatherService, "failureThreshold", 5);
+        ReflectionTestUtils.setField(weatherService, "openDuration", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(weatherService, "maxConcurrentCalls", 4);
+        ReflectionTestUtils.setField(weatherService, "callerTimeoutMs", 1000L);
+        ReflectionTestUtils.invokeMethod(weatherService, "init");
+        LocalDate date = LocalDate.now().plusDays(1);
+        when(weatherClient.fetchForecasts(date, date)).thenReturn(
+                CompletableFuture.completedFuture(Map.of(date, new WeatherService.WeatherForecast("Sunny", 15, 25, "10%"))));
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        when(snapshotRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+        
+        // Act
+        weatherService.getForecastForDates(Set.of(date));
+        
+        // Assert
+        verify(snapshotRepository, timeout(1000)).saveAll(anyList());
+        assertThat(savingThread.get()).isEqualTo("weather-snapshot");
+    }
+
+    @Test
+    void whenRestoringSnapshot_thenOnlyUnexpiredForecastsAreCachedForTheirRemainingTime() {
+        // Arrange - weatherData with date-aware expiry, as configured in the application
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("forecastExpiry", forecastExpiry);
+        PolicyCacheManager policyCacheManager = new PolicyCacheManager(new CacheProperties(),
+                beanFactory.getBeanProvider(CacheReloader.class), beanFactory.getBeanProvider(CacheExpiry.class));
+        ReflectionTestUtils.setField(weatherService, "cacheManager", policyCacheManager);
+        
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDateTime now = LocalDateTime.now();
+        when(snapshotRepository.findByForecastDateGreaterThanEqual(today.minusDays(1))).thenReturn(List.of(
+                snapshot(today, now.minusHours(2)),
+                snapshot(tomorrow, now.minusHours(1))));
+        
+        // Act
+        int restored = weatherService.restoreSnapshot();
+        
+        // Assert - today's forecast outlived its 1h, tomorrow's has 2 of its 3 hours left
+        assertThat(restored).isEqualTo(1);
+        verify(snapshotRepository).deleteByForecastDateBefore(today.minusDays(1));
+        @SuppressWarnings("unchecked")
+        Cache<Object, Object> nativeCache = (Cache<Object, Object>) policyCacheManager.getCache(WeatherService.WEATHER_CACHE).getNativeCache();
+        assertThat(nativeCache.getIfPresent(today)).isNull();
+        assertThat(nativeCache.getIfPresent(tomorrow)).isNotNull();
+        Duration remaining = nativeCache.policy().expireVariably().orElseThrow().getExpiresAfter(tomorrow).orElseThrow();
+        assertThat(remaining).isLessThanOrEqualTo(Duration.ofHours(2)).isGreaterThan(Duration.ofMinutes(119));
+    }
+
+    private ForecastSnapshot snapshot(LocalDate date, LocalDateTime fetchedAt) {
+        ForecastSnapshot snapshot = new ForecastSnapshot();
+        snapshot.setForecastDate(date);
+        snapshot.setDescription("Sunny");
+        snapshot.setMinTemperature(15.0);
+        snapshot.setMaxTemperature(25.0);
+        snapshot.setPrecipitationProbability("10%");
+        snapshot.setFetchedAt(fetchedAt);
+        return snapshot;
+    }
+}
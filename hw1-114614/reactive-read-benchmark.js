@@ -0,0 +1,53 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { randomIntBetween } from 'https://jslib.k6.io/k6-utils/1.2.0/index.js';
+
+// Read-heavy listings (restaurants, weekly menus, forecasts) under rising concurrency,
+// blocking MVC handlers against the reactive read path. Start the server once per mode:
+//   blocking handlers (default):              k6 run -e MODE=mvc reactive-read-benchmark.js
+//   --spring.profiles.active=reactive      -> k6 run -e MODE=reactive reactive-read-benchmark.js
+// Run with -e NDJSON=true to stream the menus instead of collecting them into one array.
+// Compare the *_duration p(99), the error counter and the highest VU count reached before
+// errors show up; watch server threads and database connections while the ramp runs.
+const restaurantsDuration = new Trend('restaurants_duration', true);
+const menuDuration = new Trend('menu_duration', true);
+const forecastDuration = new Trend('forecast_duration', true);
+const readErrors = new Counter('read_errors');
+
+export const options = {
+  scenarios: {
+    ramp: {
+      executor: 'ramping-vus',
+      startVUs: 10,
+      stages: [
+        { duration: '20s', target: 200 },
+        { duration: '20s', target: 1000 },
+        { duration: '20s', target: 2000 },
+        { duration: '10s', target: 0 },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(95)', 'p(99)', 'max'],
+};
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const RESTAURANTS = parseInt(__ENV.RESTAURANTS || '3');
+const MODE = __ENV.MODE || 'mvc';
+const MENU_ACCEPT = __ENV.NDJSON === 'true' ? 'application/x-ndjson' : 'application/json';
+
+function read(url, accept, trend) {
+  const response = http.get(url, { headers: { 'Accept': accept }, tags: { mode: MODE } });
+  trend.add(response.timings.duration, { mode: MODE });
+  if (!check(response, { 'status is 200': (r) => r.status === 200 })) {
+    readErrors.add(1, { mode: MODE });
+  }
+}
+
+export default function() {
+  const restaurantId = randomIntBetween(1, RESTAURANTS);
+
+  read(`${BASE_URL}/api/v1/restaurants`, 'application/json', restaurantsDuration);
+  read(`${BASE_URL}/api/v1/meals?restaurantId=${restaurantId}&days=7`, MENU_ACCEPT, menuDuration);
+  read(`${BASE_URL}/api/v1/weather/forecast/days?days=7`, 'application/json', forecastDuration);
+}
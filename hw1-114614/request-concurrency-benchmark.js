@@ -0,0 +1,52 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { randomIntBetween } from 'https://jslib.k6.io/k6-utils/1.2.0/index.js';
+
+// Menu endpoint latency and throughput under rising concurrency, tagged with the server mode.
+// Start the server once per mode and run the script against it, e.g.:
+//   platform threads, sequential lookups (default):
+//     k6 run -e MODE=platform request-concurrency-benchmark.js
+//   parallel lookups:
+//     -Dmeal.web.parallel-lookups.enabled=true                   -> k6 run -e MODE=parallel ...
+//   virtual threads + parallel lookups (Java 21+):
+//     -Dspring.threads.virtual.enabled=true -Dmeal.web.parallel-lookups.enabled=true
+//                                                                 -> k6 run -e MODE=virtual ...
+// Compare menu_duration p(99) and the highest VU count reached before errors show up.
+// Set api.weather.enabled=true against a slow provider to see blocking weather calls.
+const menuDuration = new Trend('menu_duration', true);
+const menuErrors = new Counter('menu_errors');
+
+export const options = {
+  scenarios: {
+    ramp: {
+      executor: 'ramping-vus',
+      startVUs: 10,
+      stages: [
+        { duration: '20s', target: 100 },
+        { duration: '20s', target: 400 },
+        { duration: '20s', target: 1000 },
+        { duration: '10s', target: 0 },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(95)', 'p(99)', 'max'],
+};
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const RESTAURANTS = parseInt(__ENV.RESTAURANTS || '3');
+const MODE = __ENV.MODE || 'platform';
+
+export default function() {
+  const restaurantId = randomIntBetween(1, RESTAURANTS);
+  const response = http.get(`${BASE_URL}/api/v1/meals?restaurantId=${restaurantId}&days=7`, {
+    headers: { 'Accept': 'application/json' },
+    tags: { mode: MODE },
+  });
+
+  menuDuration.add(response.timings.duration, { mode: MODE });
+
+  if (!check(response, { 'meals status is 200': (r) => r.status === 200 })) {
+    menuErrors.add(1, { mode: MODE });
+  }
+}
@@ -0,0 +1,58 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+// Compares creating a group booking of GROUP_SIZE reservations through N calls to
+// POST /api/v1/reservations against one call to POST /api/v1/reservations/batch.
+//   k6 run -e MEAL_ID=1 -e GROUP_SIZE=20 reservation-batch-benchmark.js
+const singleGroupDuration = new Trend('group_booking_single_duration', true);
+const batchGroupDuration = new Trend('group_booking_batch_duration', true);
+const reservationsCreated = new Counter('reservations_created');
+
+export const options = {
+  scenarios: {
+    single: {
+      executor: 'constant-vus',
+      exec: 'singleRequests',
+      vus: 20,
+      duration: '30s',
+    },
+    batch: {
+      executor: 'constant-vus',
+      exec: 'batchRequest',
+      vus: 20,
+      duration: '30s',
+      startTime: '35s',
+    },
+  },
+};
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const MEAL_ID = parseInt(__ENV.MEAL_ID || '1');
+const GROUP_SIZE = parseInt(__ENV.GROUP_SIZE || '20');
+
+export function singleRequests() {
+  const start = Date.now();
+  for (let i = 0; i < GROUP_SIZE; i++) {
+    const response = http.post(`${BASE_URL}/api/v1/reservations?mealId=${MEAL_ID}`, null, {
+      tags: { mode: 'single' },
+    });
+    if (check(response, { 'single reservation status is 200': (r) => r.status === 200 })) {
+      reservationsCreated.add(1, { mode: 'single' });
+    }
+  }
+  singleGroupDuration.add(Date.now() - start);
+}
+
+export function batchRequest() {
+  const start = Date.now();
+  const response = http.post(
+    `${BASE_URL}/api/v1/reservations/batch`,
+    JSON.stringify({ items: [{ mealId: MEAL_ID, quantity: GROUP_SIZE }] }),
+    { headers: { 'Content-Type': 'application/json' }, tags: { mode: 'batch' } },
+  );
+  if (check(response, { 'batch reservation status is 200': (r) => r.status === 200 })) {
+    reservationsCreated.add(GROUP_SIZE, { mode: 'batch' });
+  }
+  batchGroupDuration.add(Date.now() - start);
+}